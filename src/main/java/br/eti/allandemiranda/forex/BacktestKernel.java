@@ -0,0 +1,337 @@
+package br.eti.allandemiranda.forex;
+
+import br.eti.allandemiranda.forex.controllers.GeneratorProcessor;
+import br.eti.allandemiranda.forex.utils.PortfolioLedger;
+import br.eti.allandemiranda.forex.utils.SignalTape;
+import br.eti.allandemiranda.forex.utils.TickDataset;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Backtest without the Spring context. The beans (processors, services and repositories) are the same classes of the application, created by their
+ * constructors with the {@code @Value} fields from one {@link KernelConfig} and the {@code @PostConstruct} and {@code @PreDestroy} methods called in the Spring
+ * order, so the results are the same of a Spring run. The components are found once by JVM, so a kernel starts in milliseconds and many kernels can run in one
+ * JVM.
+ * <p>
+ * The beans of the kernel are not thread-safe between them, one kernel runs on one thread.
+ */
+public final class BacktestKernel implements AutoCloseable {
+
+  private static final String TICKET_INPUT = "config.mock.ticket.input";
+  // The components of the application package, in the scan order of Spring (the configurations are the Spring wiring, the kernel replaces them)
+  private static final List<Class<?>> COMPONENT_TYPES = findComponentTypes();
+
+  private final KernelConfig config;
+  // The shared objects given to the builder, by type (like the singletons registered on a Spring context)
+  private final Map<Class<?>, Object> singletons;
+  // The beans in the order their initialization ended, a bean ends after its dependencies
+  private final Map<Class<?>, Object> beans = new LinkedHashMap<>();
+  private final Set<Class<?>> creating = new HashSet<>();
+  private final SimpleTypeConverter typeConverter = new SimpleTypeConverter();
+  private boolean closed = false;
+
+  private BacktestKernel(final @NotNull KernelConfig config, final @NotNull Map<Class<?>, Object> singletons) {
+    this.config = config;
+    this.singletons = singletons;
+  }
+
+  public static @NotNull Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Get a bean of the kernel
+   *
+   * @param type The bean class
+   * @param <T>  The bean type
+   * @return The bean
+   */
+  public <T> @NotNull T getBean(final @NotNull Class<T> type) {
+    return type.cast(this.getOrCreate(type));
+  }
+
+  /**
+   * Send all ticks to the processors, from the tick dataset of the builder or else from the input file of the config. A kernel restored from a snapshot starts
+   * after the ticks already processed.
+   */
+  public void run() {
+    final GeneratorProcessor generatorProcessor = this.getBean(GeneratorProcessor.class);
+    final long from = generatorProcessor.getNumberOfTicks();
+    final TickDataset dataset = (TickDataset) this.singletons.get(TickDataset.class);
+    if (Objects.nonNull(dataset)) {
+      dataset.forEach((int) Math.min(from, Integer.MAX_VALUE), generatorProcessor::webSocket);
+      return;
+    }
+    try {
+      TickDataset.read(ResourceUtils.getFile(this.config.resolve("${" + TICKET_INPUT + "}")), from, generatorProcessor::webSocket);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Call the {@code @PreDestroy} methods, the dependent beans first
+   */
+  @Override
+  public void close() {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    final List<Object> destroyOrder = new ArrayList<>(this.beans.values());
+    Collections.reverse(destroyOrder);
+    destroyOrder.forEach(bean -> this.invokeAnnotated(bean, PreDestroy.class));
+  }
+
+  private static @NotNull List<Class<?>> findComponentTypes() {
+    final ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+    scanner.addIncludeFilter(new AnnotationTypeFilter(Component.class));
+    scanner.addExcludeFilter(new AnnotationTypeFilter(Configuration.class));
+    return scanner.findCandidateComponents(BacktestKernel.class.getPackageName()).stream()
+        .<Class<?>>map(definition -> ClassUtils.resolveClassName(Objects.requireNonNull(definition.getBeanClassName()), BacktestKernel.class.getClassLoader()))
+        .toList();
+  }
+
+  private @NotNull Object getOrCreate(final @NotNull Class<?> dependencyType) {
+    final Object singleton = this.singletons.get(dependencyType);
+    if (Objects.nonNull(singleton)) {
+      return singleton;
+    }
+    final Class<?> type = getComponentType(dependencyType);
+    final Object bean = this.beans.get(type);
+    if (Objects.nonNull(bean)) {
+      return bean;
+    }
+    if (!this.creating.add(type)) {
+      throw new IllegalStateException("Circular dependency on " + type.getName());
+    }
+    final Object created = this.create(type);
+    this.creating.remove(type);
+    this.beans.put(type, created);
+    return created;
+  }
+
+  private @NotNull Object create(final @NotNull Class<?> type) {
+    final Constructor<?> constructor = getConstructor(type);
+    final Type[] parameterTypes = constructor.getGenericParameterTypes();
+    final Object[] arguments = new Object[parameterTypes.length];
+    for (int i = 0; i < parameterTypes.length; i++) {
+      arguments[i] = this.resolve(parameterTypes[i]);
+    }
+    try {
+      constructor.setAccessible(true);
+      final Object bean = constructor.newInstance(arguments);
+      this.injectValues(bean);
+      this.invokeAnnotated(bean, PostConstruct.class);
+      return bean;
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new IllegalStateException("Can't create the bean " + type.getName(), e);
+    } catch (InvocationTargetException e) {
+      throw new IllegalStateException("Can't create the bean " + type.getName(), e.getCause());
+    }
+  }
+
+  private @NotNull Object resolve(final @NotNull Type parameterType) {
+    if (parameterType instanceof ParameterizedType parameterized) {
+      final Class<?> rawType = (Class<?>) parameterized.getRawType();
+      final Class<?> elementType = (Class<?>) parameterized.getActualTypeArguments()[0];
+      if (rawType.equals(ObjectProvider.class)) {
+        return new SingletonProvider<>(elementType, this.singletons);
+      }
+      if (rawType.isAssignableFrom(List.class)) {
+        // All components of the element type, like the collection injection of Spring
+        return COMPONENT_TYPES.stream().filter(elementType::isAssignableFrom).map(this::getOrCreate).toList();
+      }
+      return this.getOrCreate(rawType);
+    }
+    return this.getOrCreate((Class<?>) parameterType);
+  }
+
+  private static @NotNull Class<?> getComponentType(final @NotNull Class<?> type) {
+    if (COMPONENT_TYPES.contains(type)) {
+      return type;
+    }
+    final List<Class<?>> candidates = COMPONENT_TYPES.stream().filter(type::isAssignableFrom).toList();
+    if (candidates.size() != 1) {
+      throw new IllegalStateException("Expected one component of " + type.getName() + " but found " + candidates.size());
+    }
+    return candidates.get(0);
+  }
+
+  private static @NotNull Constructor<?> getConstructor(final @NotNull Class<?> type) {
+    final Constructor<?>[] constructors = type.getDeclaredConstructors();
+    if (constructors.length == 1) {
+      return constructors[0];
+    }
+    return Arrays.stream(constructors).filter(constructor -> constructor.isAnnotationPresent(Autowired.class)).findFirst()
+        .orElseThrow(() -> new IllegalStateException("The bean " + type.getName() + " not have one constructor to create it"));
+  }
+
+  private void injectValues(final @NotNull Object bean) throws IllegalAccessException {
+    for (Class<?> type = bean.getClass(); !type.equals(Object.class); type = type.getSuperclass()) {
+      for (final Field field : type.getDeclaredFields()) {
+        final Value value = field.getAnnotation(Value.class);
+        if (Objects.nonNull(value) && !Modifier.isStatic(field.getModifiers())) {
+          field.setAccessible(true);
+          field.set(bean, this.typeConverter.convertIfNecessary(this.config.resolve(value.value()), field.getType()));
+        }
+      }
+    }
+  }
+
+  private void invokeAnnotated(final @NotNull Object bean, final @NotNull Class<? extends Annotation> annotation) {
+    // The methods of the super classes first, like Spring
+    final List<Class<?>> hierarchy = new ArrayList<>();
+    for (Class<?> type = bean.getClass(); !type.equals(Object.class); type = type.getSuperclass()) {
+      hierarchy.add(0, type);
+    }
+    for (final Class<?> type : hierarchy) {
+      for (final Method method : type.getDeclaredMethods()) {
+        if (method.isAnnotationPresent(annotation) && method.getParameterCount() == 0) {
+          try {
+            method.setAccessible(true);
+            method.invoke(bean);
+          } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Can't call " + method, e);
+          } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : new IllegalStateException("Error on " + method, e.getCause());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Builder of a kernel, the config starts with the values of {@code application.properties}
+   */
+  public static final class Builder {
+
+    private final Map<String, String> properties = new LinkedHashMap<>();
+    private final Map<Class<?>, Object> singletons = new LinkedHashMap<>();
+    private KernelConfig config = KernelConfig.defaults();
+
+    private Builder() {
+    }
+
+    public @NotNull Builder config(final @NotNull KernelConfig config) {
+      this.config = config;
+      return this;
+    }
+
+    public @NotNull Builder property(final @NotNull String key, final @NotNull String value) {
+      this.properties.put(key, value);
+      return this;
+    }
+
+    public @NotNull Builder properties(final @NotNull Map<String, String> properties) {
+      this.properties.putAll(properties);
+      return this;
+    }
+
+    /**
+     * @param tickDataset The decoded ticks to run (shared read-only)
+     * @return The builder
+     */
+    public @NotNull Builder tickDataset(final @NotNull TickDataset tickDataset) {
+      this.singletons.put(TickDataset.class, tickDataset);
+      return this;
+    }
+
+    /**
+     * @param signalTape The signal tape to record or to replay
+     * @return The builder
+     */
+    public @NotNull Builder signalTape(final @NotNull SignalTape signalTape) {
+      this.singletons.put(SignalTape.class, signalTape);
+      return this;
+    }
+
+    /**
+     * @param symbolLedger The account of the symbol on the portfolio shared by the kernels of many symbols
+     * @return The builder
+     */
+    public @NotNull Builder symbolLedger(final @NotNull PortfolioLedger.SymbolLedger symbolLedger) {
+      this.singletons.put(PortfolioLedger.SymbolLedger.class, symbolLedger);
+      return this;
+    }
+
+    /**
+     * Create and initialize the beans
+     *
+     * @return The kernel ready to run
+     */
+    public @NotNull BacktestKernel build() {
+      final BacktestKernel kernel = new BacktestKernel(this.config.with(this.properties), Map.copyOf(this.singletons));
+      try {
+        COMPONENT_TYPES.forEach(kernel::getOrCreate);
+      } catch (RuntimeException e) {
+        kernel.close();
+        throw e;
+      }
+      return kernel;
+    }
+  }
+
+  /**
+   * Provider of an optional shared object, the kernel version of the Spring provider
+   *
+   * @param <T> The object type
+   */
+  private record SingletonProvider<T>(Class<T> type, Map<Class<?>, Object> singletons) implements ObjectProvider<T> {
+
+    @Override
+    public @NotNull T getObject() {
+      final T object = this.getIfAvailable();
+      if (Objects.isNull(object)) {
+        throw new NoSuchBeanDefinitionException(this.type());
+      }
+      return object;
+    }
+
+    @Override
+    public @NotNull T getObject(final Object @NotNull ... args) {
+      return this.getObject();
+    }
+
+    @Override
+    public T getIfAvailable() {
+      return this.type().cast(this.singletons().get(this.type()));
+    }
+
+    @Override
+    public T getIfUnique() {
+      return this.getIfAvailable();
+    }
+  }
+}
@@ -0,0 +1,186 @@
+package br.eti.allandemiranda.forex;
+
+import br.eti.allandemiranda.forex.enums.FitnessMetric;
+import br.eti.allandemiranda.forex.headers.StatisticHeader;
+import br.eti.allandemiranda.forex.utils.TickDataset;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVPrinter;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Genetic optimizer of the strategy parameters in one JVM. A genome is one value of each parameter of the sweep file, each generation runs its new genomes in
+ * parallel over the same decoded ticks (the genomes with the same indicator parameters share the signals), and the next generation is made by the best genomes,
+ * tournament selection, uniform crossover and mutation.
+ * <p>
+ * The fitness of each genome is kept on a cache, so a genome is only run once. The random numbers come from one seed and the evolution waits all runs of a
+ * generation, so the same seed gives the same result. With {@code config.statistic.stop-drawdown} the hopeless runs are stopped and have the worst fitness.
+ */
+@Slf4j
+public class ForexOptimizerApplication {
+
+  private static final String POPULATION = "config.optimizer.population";
+  private static final String GENERATIONS = "config.optimizer.generations";
+  private static final String ELITE = "config.optimizer.elite";
+  private static final String TOURNAMENT = "config.optimizer.tournament";
+  private static final String MUTATION = "config.optimizer.mutation";
+  private static final String SEED = "config.optimizer.seed";
+  private static final String FITNESS = "config.optimizer.fitness";
+  private static final String OUTPUT_FILE_NAME = "optimizer.csv";
+  private static final String RUN_FOLDER_NAME = "optimizer";
+
+  public static void main(String[] args) throws IOException {
+    final Properties defaults = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+    final Map<String, String> arguments = ForexSweepApplication.getArguments(args);
+    final File rootFolder = ResourceUtils.getFile(arguments.getOrDefault(ForexSweepApplication.ROOT_FOLDER, defaults.getProperty(ForexSweepApplication.ROOT_FOLDER)));
+    final String sweepFile = arguments.getOrDefault(ForexSweepApplication.SWEEP_FILE, defaults.getProperty(ForexSweepApplication.SWEEP_FILE, ""));
+    if (sweepFile.isEmpty()) {
+      throw new IllegalArgumentException("The optimizer needs the " + ForexSweepApplication.SWEEP_FILE + " with the values of the parameters");
+    }
+    final int threads = Integer.parseInt(arguments.getOrDefault(ForexSweepApplication.SWEEP_THREADS, defaults.getProperty(ForexSweepApplication.SWEEP_THREADS, "0")));
+    final boolean shareIndicators = Boolean.parseBoolean(
+        arguments.getOrDefault(ForexSweepApplication.SWEEP_SHARE_INDICATORS, defaults.getProperty(ForexSweepApplication.SWEEP_SHARE_INDICATORS, "true")));
+    final int populationSize = Integer.parseInt(arguments.getOrDefault(POPULATION, defaults.getProperty(POPULATION, "16")));
+    final int generations = Integer.parseInt(arguments.getOrDefault(GENERATIONS, defaults.getProperty(GENERATIONS, "8")));
+    final int elite = Integer.parseInt(arguments.getOrDefault(ELITE, defaults.getProperty(ELITE, "2")));
+    final int tournament = Integer.parseInt(arguments.getOrDefault(TOURNAMENT, defaults.getProperty(TOURNAMENT, "3")));
+    final double mutation = Double.parseDouble(arguments.getOrDefault(MUTATION, defaults.getProperty(MUTATION, "0.1")));
+    final long seed = Long.parseLong(arguments.getOrDefault(SEED, defaults.getProperty(SEED, "1")));
+    final FitnessMetric fitness = FitnessMetric.valueOf(arguments.getOrDefault(FITNESS, defaults.getProperty(FITNESS, FitnessMetric.BALANCE.toString())));
+    if (populationSize < 2 || generations < 1 || elite < 0 || elite >= populationSize || tournament < 1) {
+      throw new IllegalArgumentException("The optimizer needs a population of two or more genomes, one or more generations and less elite than population");
+    }
+    final TreeMap<String, String[]> parameters = ForexSweepApplication.getParameters(ResourceUtils.getFile(sweepFile));
+    final List<String[]> values = new ArrayList<>(parameters.values());
+
+    final long start = System.nanoTime();
+    final TickDataset dataset = ForexSweepApplication.loadDataset(
+        ResourceUtils.getFile(arguments.getOrDefault(ForexSweepApplication.TICKET_INPUT, defaults.getProperty(ForexSweepApplication.TICKET_INPUT))), arguments,
+        defaults);
+    log.info("Optimizer of {} genomes by {} generations over {} ticks (decoded in {} ms)", populationSize, generations, dataset.size(),
+        (System.nanoTime() - start) / 1_000_000L);
+
+    final SplittableRandom random = new SplittableRandom(seed);
+    final Map<List<Integer>, Evaluation> cache = new LinkedHashMap<>();
+    List<List<Integer>> population = IntStream.range(0, populationSize)
+        .mapToObj(i -> values.stream().map(options -> random.nextInt(options.length)).toList()).toList();
+    final ExecutorService executor = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    try {
+      for (int generation = 0; ; generation++) {
+        evaluate(generation, population, cache, parameters, arguments, dataset, shareIndicators, fitness, new File(rootFolder, RUN_FOLDER_NAME), executor);
+        // The sort is stable, so the genomes with the same fitness keep the order of the population
+        final List<List<Integer>> ranking = population.stream().sorted(Comparator.comparingDouble((List<Integer> genome) -> cache.get(genome).fitness()).reversed())
+            .toList();
+        log.info("Generation {} best fitness {} of {} runs", generation, cache.get(ranking.get(0)).fitness(), cache.size());
+        if (generation == generations - 1) {
+          break;
+        }
+        final List<List<Integer>> next = new ArrayList<>(ranking.subList(0, elite));
+        while (next.size() < populationSize) {
+          final List<Integer> first = select(ranking, tournament, random);
+          final List<Integer> second = select(ranking, tournament, random);
+          next.add(IntStream.range(0, values.size())
+              .mapToObj(gene -> random.nextDouble() < mutation ? random.nextInt(values.get(gene).length) : random.nextBoolean() ? first.get(gene) : second.get(gene))
+              .toList());
+        }
+        population = next;
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    printResults(rootFolder, cache, parameters);
+    log.info("Optimizer finished in {} ms", (System.nanoTime() - start) / 1_000_000L);
+  }
+
+  /**
+   * Run the genomes of the population not in the cache
+   *
+   * @param generation      The generation number
+   * @param population      The genomes of the generation
+   * @param cache           The evaluation of each genome already run
+   * @param parameters      The values of each parameter
+   * @param arguments       The arguments of all runs
+   * @param dataset         The shared ticks
+   * @param shareIndicators If the runs with the same indicator parameters share the signals
+   * @param fitness         The fitness metric
+   * @param folder          The folder of the runs
+   * @param executor        The executor of the runs
+   */
+  private static void evaluate(final int generation, final @NotNull List<List<Integer>> population, final @NotNull Map<List<Integer>, Evaluation> cache,
+      final @NotNull TreeMap<String, String[]> parameters, final @NotNull Map<String, String> arguments, final @NotNull TickDataset dataset,
+      final boolean shareIndicators, final @NotNull FitnessMetric fitness, final @NotNull File folder, final @NotNull ExecutorService executor) {
+    final List<List<Integer>> genomes = population.stream().distinct().filter(genome -> !cache.containsKey(genome)).toList();
+    final List<Map<String, String>> variants = genomes.stream().map(genome -> getVariant(genome, parameters)).toList();
+    final List<CompletableFuture<Evaluation>> results = ForexSweepApplication.submit(variants, ForexSweepApplication.getGroups(variants, shareIndicators),
+        arguments, dataset, new File(folder, String.valueOf(generation)),
+        statistics -> new Evaluation(generation, statistics.getFitness(fitness), statistics.getSummary()), executor);
+    for (int i = 0; i < genomes.size(); i++) {
+      cache.put(genomes.get(i), results.get(i).join());
+    }
+  }
+
+  /**
+   * Tournament selection, the best of random genomes of the ranking
+   *
+   * @param ranking    The genomes from the best to the worst
+   * @param tournament The number of genomes of the tournament
+   * @param random     The random numbers of the seed
+   * @return The selected genome
+   */
+  private static @NotNull List<Integer> select(final @NotNull List<List<Integer>> ranking, final int tournament, final @NotNull SplittableRandom random) {
+    int best = ranking.size();
+    for (int i = 0; i < tournament; i++) {
+      best = Math.min(best, random.nextInt(ranking.size()));
+    }
+    return ranking.get(best);
+  }
+
+  private static @NotNull Map<String, String> getVariant(final @NotNull List<Integer> genome, final @NotNull TreeMap<String, String[]> parameters) {
+    final Map<String, String> variant = new LinkedHashMap<>();
+    int gene = 0;
+    for (final Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+      variant.put(parameter.getKey(), parameter.getValue()[genome.get(gene++)]);
+    }
+    return variant;
+  }
+
+  private static void printResults(final @NotNull File rootFolder, final @NotNull Map<List<Integer>, Evaluation> cache,
+      final @NotNull TreeMap<String, String[]> parameters) throws IOException {
+    try (final FileWriter fileWriter = new FileWriter(new File(rootFolder, OUTPUT_FILE_NAME)); final CSVPrinter csvPrinter = ForexSweepApplication.CSV_FORMAT.print(
+        fileWriter)) {
+      csvPrinter.printRecord(Stream.of(Stream.of(ForexSweepApplication.RUN, "GENERATION"), parameters.keySet().stream(), Stream.of("FITNESS"),
+          Arrays.stream(StatisticHeader.values()).map(Enum::toString)).flatMap(stream -> stream).toArray());
+      int run = 0;
+      for (final Map.Entry<List<Integer>, Evaluation> entry : cache.entrySet()) {
+        final Evaluation evaluation = entry.getValue();
+        csvPrinter.printRecord(Stream.of(Stream.of(run++, evaluation.generation()), getVariant(entry.getKey(), parameters).values().stream(),
+            Stream.of(ForexSweepApplication.getFitnessNumber(evaluation.fitness())), Arrays.stream(evaluation.summary())).flatMap(stream -> stream).toArray());
+      }
+    }
+    cache.entrySet().stream().max(Comparator.comparingDouble(entry -> entry.getValue().fitness()))
+        .ifPresent(best -> log.info("=OPTIMIZER=BEST={}=FITNESS={}=", getVariant(best.getKey(), parameters), best.getValue().fitness()));
+  }
+
+  private record Evaluation(int generation, double fitness, Object[] summary) {
+
+  }
+}
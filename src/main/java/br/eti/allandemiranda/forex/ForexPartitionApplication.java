@@ -0,0 +1,205 @@
+package br.eti.allandemiranda.forex;
+
+import br.eti.allandemiranda.forex.enums.TimeFrame;
+import br.eti.allandemiranda.forex.headers.StatisticHeader;
+import br.eti.allandemiranda.forex.repositories.StatisticRepository;
+import br.eti.allandemiranda.forex.utils.SignalTape;
+import br.eti.allandemiranda.forex.utils.TickDataset;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.lang3.tuple.Pair;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Replay of one configuration split in date ranges (chunks) that run in parallel. Each chunk replays some bars before its range only to warm up the candles and
+ * the indicators ({@code order.open.start}), so its signals are the signals of a run from the first tick.
+ * <p>
+ * On the exact mode the chunks only process the indicators and record their signals, the signals of the ranges are joined on one {@link SignalTape} and one
+ * run replays them over all ticks, so the open orders continue across the chunk limits and the result is the result of a sequential run. On the other mode
+ * each chunk also opens its own orders, the orders still open on the end of a chunk are valued on its last tick, and the results of the chunks are summed.
+ */
+@Slf4j
+public class ForexPartitionApplication {
+
+  private static final String PARTITION_CHUNKS = "config.partition.chunks";
+  private static final String PARTITION_WARM_UP_BARS = "config.partition.warm-up-bars";
+  private static final String PARTITION_EXACT = "config.partition.exact";
+  private static final String CANDLESTICK_MEMORY = "candlestick.repository.memory";
+  private static final String TIME_FRAME = "chart.timeframe";
+  private static final String OPEN_START = "order.open.start";
+  private static final String OUTPUT_FILE_NAME = "partition.csv";
+  private static final String RUN_FOLDER_NAME = "partition";
+  private static final String CHUNK = "CHUNK";
+
+  public static void main(String[] args) throws IOException {
+    final Properties defaults = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+    final Map<String, String> arguments = ForexSweepApplication.getArguments(args);
+    final File rootFolder = ResourceUtils.getFile(arguments.getOrDefault(ForexSweepApplication.ROOT_FOLDER, defaults.getProperty(ForexSweepApplication.ROOT_FOLDER)));
+    final int chunks = Integer.parseInt(arguments.getOrDefault(PARTITION_CHUNKS, defaults.getProperty(PARTITION_CHUNKS, "0")));
+    final int warmUpBars = Integer.parseInt(arguments.getOrDefault(PARTITION_WARM_UP_BARS, defaults.getProperty(PARTITION_WARM_UP_BARS, "100")));
+    final boolean exact = Boolean.parseBoolean(arguments.getOrDefault(PARTITION_EXACT, defaults.getProperty(PARTITION_EXACT, "true")));
+    final int memory = Integer.parseInt(arguments.getOrDefault(CANDLESTICK_MEMORY, defaults.getProperty(CANDLESTICK_MEMORY, "41")));
+    final TimeFrame timeFrame = TimeFrame.valueOf(arguments.getOrDefault(TIME_FRAME, defaults.getProperty(TIME_FRAME, "M15")));
+    if (warmUpBars < memory) {
+      throw new IllegalArgumentException("The " + PARTITION_WARM_UP_BARS + " can't be less than the " + CANDLESTICK_MEMORY + " (" + memory + ")");
+    }
+
+    final long start = System.nanoTime();
+    final TickDataset dataset = ForexSweepApplication.loadDataset(
+        ResourceUtils.getFile(arguments.getOrDefault(ForexSweepApplication.TICKET_INPUT, defaults.getProperty(ForexSweepApplication.TICKET_INPUT))), arguments,
+        defaults);
+    if (dataset.size() == 0) {
+      throw new IllegalArgumentException("The input not have ticks");
+    }
+    final int threads = chunks > 0 ? chunks : Runtime.getRuntime().availableProcessors();
+    final List<Chunk> ranges = getChunks(dataset, threads, timeFrame, warmUpBars);
+    log.info("Partitioned replay of {} chunks ({} mode, {} warm-up bars) over {} ticks (decoded in {} ms)", ranges.size(), exact ? "exact" : "chunk",
+        warmUpBars, dataset.size(), (System.nanoTime() - start) / 1_000_000L);
+
+    final File runFolder = new File(rootFolder, RUN_FOLDER_NAME);
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final List<CompletableFuture<ChunkResult>> results = new ArrayList<>(ranges.size());
+      for (final Chunk chunk : ranges) {
+        final Map<String, String> chunkArguments = new LinkedHashMap<>();
+        // On the exact mode the chunk only records the signals, its orders are open by the replay
+        chunkArguments.put(OPEN_START, (exact ? chunk.end() : chunk.start()).toString());
+        results.add(CompletableFuture.supplyAsync(() -> {
+          final long chunkStart = System.nanoTime();
+          final SignalTape signalTape = exact ? new SignalTape() : null;
+          final TickDataset window = dataset.window(chunk.warmUpStart(), chunk.end());
+          final Object[] summary = ForexSweepApplication.run(new File(runFolder, String.valueOf(chunk.number())), chunkArguments, arguments, window, signalTape,
+              exact ? statistic -> null : ForexPartitionApplication::getResult);
+          return new ChunkResult(window.size(), (System.nanoTime() - chunkStart) / 1_000_000L, signalTape, summary);
+        }, executor));
+      }
+      final List<ChunkResult> chunkResults = results.stream().map(CompletableFuture::join).toList();
+      printChunks(rootFolder, ranges, chunkResults, exact);
+      if (exact) {
+        final SignalTape signalTape = new SignalTape();
+        for (int i = 0; i < ranges.size(); i++) {
+          signalTape.addAll(chunkResults.get(i).signalTape(), ranges.get(i).start(), ranges.get(i).end());
+        }
+        signalTape.finish();
+        final long replayStart = System.nanoTime();
+        final Object[] summary = ForexSweepApplication.run(rootFolder, Map.of(), arguments, dataset, signalTape, StatisticRepository::getSummary);
+        log.info("=PARTITION=EXACT=BALANCE={}=REPLAY_MS={}=", summary[StatisticHeader.FINAL_BALANCE.ordinal()], (System.nanoTime() - replayStart) / 1_000_000L);
+      } else {
+        final BigDecimal balance = chunkResults.stream().map(result -> (BigDecimal) result.summary()[0]).reduce(BigDecimal.ZERO, BigDecimal::add);
+        log.info("=PARTITION=CHUNKS=BALANCE={}=", balance);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    log.info("Partitioned replay finished in {} ms", (System.nanoTime() - start) / 1_000_000L);
+  }
+
+  /**
+   * Split the ticks in chunks of about the same number of ticks, each chunk starts on the open of a bar and its warm-up has the number of bars before it
+   *
+   * @param dataset    The ticks
+   * @param chunks     The number of chunks
+   * @param timeFrame  The time frame of the bars
+   * @param warmUpBars The number of bars before each chunk to warm up the indicators
+   * @return The chunks in order (can be less than the number requested on short inputs)
+   */
+  private static @NotNull List<Chunk> getChunks(final @NotNull TickDataset dataset, final int chunks, final @NotNull TimeFrame timeFrame, final int warmUpBars) {
+    final List<LocalDateTime> starts = new ArrayList<>();
+    starts.add(dataset.getDateTime(0));
+    for (int i = 1; i < chunks; i++) {
+      final LocalDateTime start = getBarOpen(dataset.getDateTime((int) ((long) dataset.size() * i / chunks)), timeFrame);
+      if (start.isAfter(starts.get(starts.size() - 1))) {
+        starts.add(start);
+      }
+    }
+    // The end of the last chunk is after the last tick
+    final LocalDateTime end = dataset.getDateTime(dataset.size() - 1).plusSeconds(1L);
+    final List<Chunk> ranges = new ArrayList<>(starts.size());
+    for (int i = 0; i < starts.size(); i++) {
+      final LocalDateTime start = starts.get(i);
+      ranges.add(new Chunk(i, i == 0 ? start : getWarmUpStart(dataset, dataset.indexOf(start), timeFrame, warmUpBars), start,
+          i + 1 < starts.size() ? starts.get(i + 1) : end));
+    }
+    return ranges;
+  }
+
+  /**
+   * Get the open of the bar that has the warm-up bars before a tick, the bars are counted on the ticks (the market closed has no bars)
+   *
+   * @param dataset    The ticks
+   * @param index      The index of the first tick of the chunk
+   * @param timeFrame  The time frame of the bars
+   * @param warmUpBars The number of bars
+   * @return The first date time of the warm-up
+   */
+  private static @NotNull LocalDateTime getWarmUpStart(final @NotNull TickDataset dataset, final int index, final @NotNull TimeFrame timeFrame,
+      final int warmUpBars) {
+    long bar = Long.MIN_VALUE;
+    int bars = 0;
+    for (int i = index - 1; i >= 0; i--) {
+      final long tickBar = dataset.getDateTime(i).toEpochSecond(ZoneOffset.UTC) / 60L / timeFrame.minutes;
+      if (tickBar != bar) {
+        if (bars == warmUpBars) {
+          return getBarOpen(dataset.getDateTime(i + 1), timeFrame);
+        }
+        bar = tickBar;
+        bars++;
+      }
+    }
+    return dataset.getDateTime(0);
+  }
+
+  private static @NotNull LocalDateTime getBarOpen(final @NotNull LocalDateTime dateTime, final @NotNull TimeFrame timeFrame) {
+    final long minutes = dateTime.toEpochSecond(ZoneOffset.UTC) / 60L;
+    return LocalDateTime.ofEpochSecond(minutes / timeFrame.minutes * timeFrame.minutes * 60L, 0, ZoneOffset.UTC);
+  }
+
+  // The final equity (the last value of the equity curve) before the summary
+  private static Object @NotNull [] getResult(final @NotNull StatisticRepository statisticRepository) {
+    final List<Pair<LocalDateTime, BigDecimal>> equityCurve = statisticRepository.getEquityCurve();
+    final BigDecimal equity = equityCurve.isEmpty() ? BigDecimal.ZERO : equityCurve.get(equityCurve.size() - 1).getValue();
+    return Stream.concat(Stream.of(equity), Arrays.stream(statisticRepository.getSummary())).toArray();
+  }
+
+  private static void printChunks(final @NotNull File rootFolder, final @NotNull List<Chunk> ranges, final @NotNull List<ChunkResult> results,
+      final boolean exact) throws IOException {
+    try (final FileWriter fileWriter = new FileWriter(new File(rootFolder, OUTPUT_FILE_NAME)); final CSVPrinter csvPrinter = ForexSweepApplication.CSV_FORMAT.print(
+        fileWriter)) {
+      final Stream<String> header = Stream.of(CHUNK, "WARM_UP_START", "START", "END", "TICKS", "MILLISECONDS");
+      csvPrinter.printRecord((exact ? header : Stream.concat(header, Arrays.stream(StatisticHeader.values()).map(Enum::toString))).toArray());
+      for (int i = 0; i < ranges.size(); i++) {
+        final Chunk chunk = ranges.get(i);
+        final ChunkResult result = results.get(i);
+        final Stream<Object> values = Stream.of(chunk.number(), chunk.warmUpStart(), chunk.start(), chunk.end(), result.ticks(), result.milliseconds());
+        csvPrinter.printRecord((exact ? values : Stream.concat(values, Arrays.stream(result.summary()).skip(1L))).toArray());
+      }
+    }
+  }
+
+  private record Chunk(int number, @NotNull LocalDateTime warmUpStart, @NotNull LocalDateTime start, @NotNull LocalDateTime end) {
+
+  }
+
+  private record ChunkResult(int ticks, long milliseconds, SignalTape signalTape, Object[] summary) {
+
+  }
+}
@@ -0,0 +1,80 @@
+package br.eti.allandemiranda.forex;
+
+import br.eti.allandemiranda.forex.utils.TickDataset;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Properties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Replay client of the tick gateway. The lines of the input file are sent to the gateway with the time between the ticks divided by the speed, so a day of
+ * ticks is sent in a minute and half at 1000x. The speed zero sends the ticks as fast as the gateway receives them.
+ */
+@Slf4j
+public class ForexReplayApplication {
+
+  private static final String GATEWAY_HOST = "config.gateway.host";
+  private static final String GATEWAY_PORT = "config.gateway.port";
+  private static final String REPLAY_SPEED = "config.replay.speed";
+  private static final String HEADER_PREFIX = "<";
+  private static final String COLUMN_SEPARATOR = "\t";
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    final Properties defaults = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+    final Map<String, String> arguments = ForexSweepApplication.getArguments(args);
+    final String host = arguments.getOrDefault(GATEWAY_HOST, defaults.getProperty(GATEWAY_HOST, "127.0.0.1"));
+    final int port = Integer.parseInt(arguments.getOrDefault(GATEWAY_PORT, defaults.getProperty(GATEWAY_PORT, "7070")));
+    final double speed = Double.parseDouble(arguments.getOrDefault(REPLAY_SPEED, defaults.getProperty(REPLAY_SPEED, "1")));
+    if (speed < 0d) {
+      throw new IllegalArgumentException("The " + REPLAY_SPEED + " can't be negative");
+    }
+
+    final long start = System.nanoTime();
+    long sent = 0L;
+    LocalDateTime firstDateTime = null;
+    try (final BufferedReader reader = new BufferedReader(new FileReader(ResourceUtils.getFile(
+        arguments.getOrDefault(ForexSweepApplication.TICKET_INPUT, defaults.getProperty(ForexSweepApplication.TICKET_INPUT)))));
+        final SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress(host, port)); final BufferedWriter writer = new BufferedWriter(
+        new OutputStreamWriter(Channels.newOutputStream(socketChannel), StandardCharsets.US_ASCII))) {
+      log.info("=REPLAY=CONNECTED={}=SPEED={}=", socketChannel.getRemoteAddress(), speed);
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank() || line.startsWith(HEADER_PREFIX)) {
+          continue;
+        }
+        if (speed > 0d) {
+          final String[] columns = line.split(COLUMN_SEPARATOR, 3);
+          final LocalDateTime dateTime = TickDataset.toDateTime(columns[0], columns[1]);
+          if (firstDateTime == null) {
+            firstDateTime = dateTime;
+          }
+          // The time of the tick on the replay clock, the ticks on time are sent together
+          final long due = (long) (Duration.between(firstDateTime, dateTime).toNanos() / speed);
+          final long wait = due - (System.nanoTime() - start);
+          if (wait > 0L) {
+            writer.flush();
+            Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+          }
+        }
+        writer.write(line);
+        writer.newLine();
+        sent++;
+      }
+    }
+    final double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+    log.info("=REPLAY=SENT={}=SECONDS={}=RATE={}=", sent, seconds, seconds > 0d ? (long) (sent / seconds) : sent);
+  }
+}
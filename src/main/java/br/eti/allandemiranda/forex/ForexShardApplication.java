@@ -0,0 +1,150 @@
+package br.eti.allandemiranda.forex;
+
+import br.eti.allandemiranda.forex.headers.StatisticHeader;
+import br.eti.allandemiranda.forex.repositories.StatisticRepository;
+import br.eti.allandemiranda.forex.utils.PortfolioLedger;
+import br.eti.allandemiranda.forex.utils.TickDataset;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVPrinter;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Backtest of many symbols in one JVM on a {@link ShardedEngine}. The ticks of all symbols are merged by date time and routed to the shard of each symbol, like
+ * a live feed of many pairs, and the accounts of the symbols are summed on one portfolio.
+ * <p>
+ * The symbols file is a properties file with the values of each symbol over the arguments, with the symbol before the key, like
+ * {@code USDJPY.ticket.digits=3} and {@code USDJPY.config.mock.ticket.input=file:USDJPY.csv}. The value of one point of each symbol in the account currency is
+ * the {@code config.shard.point-value}, like {@code USDJPY.config.shard.point-value=0.0068}, so the portfolio sums the symbols in the account currency.
+ */
+@Slf4j
+public class ForexShardApplication {
+
+  private static final String SHARD_PREFIX = "config.shard.";
+  private static final String SHARD_SYMBOLS = "config.shard.symbols";
+  private static final String SHARD_FILE = "config.shard.file";
+  private static final String SHARD_QUEUE = "config.shard.queue";
+  private static final String SHARD_SCALE = "config.shard.scale";
+  private static final String SHARD_POINT_VALUE = "config.shard.point-value";
+  private static final String OUTPUT_FILE_NAME = "shard.csv";
+  private static final String RUN_FOLDER_NAME = "shard";
+  private static final String SYMBOL = "SYMBOL";
+  private static final String POINT_VALUE = "POINT_VALUE";
+  private static final String PORTFOLIO_BALANCE = "PORTFOLIO_BALANCE";
+  private static final String PORTFOLIO_FLOATING = "PORTFOLIO_FLOATING";
+  private static final String MAX_OPEN_POSITIONS = "MAX_OPEN_POSITIONS";
+  private static final String SYMBOL_SEPARATOR = ",";
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    final Properties defaults = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+    final Map<String, String> arguments = ForexSweepApplication.getArguments(args);
+    final File rootFolder = ResourceUtils.getFile(arguments.getOrDefault(ForexSweepApplication.ROOT_FOLDER, defaults.getProperty(ForexSweepApplication.ROOT_FOLDER)));
+    final List<String> symbols = Arrays.stream(arguments.getOrDefault(SHARD_SYMBOLS, defaults.getProperty(SHARD_SYMBOLS, "")).split(SYMBOL_SEPARATOR))
+        .map(String::trim).filter(symbol -> !symbol.isEmpty()).distinct().toList();
+    if (symbols.isEmpty()) {
+      throw new IllegalArgumentException("The shards need the " + SHARD_SYMBOLS + " with the symbols separated by comma");
+    }
+    final String shardFile = arguments.getOrDefault(SHARD_FILE, defaults.getProperty(SHARD_FILE, ""));
+    final Properties symbolValues = shardFile.isEmpty() ? new Properties() : PropertiesLoaderUtils.loadProperties(
+        new FileSystemResource(ResourceUtils.getFile(shardFile)));
+    final int queueSize = Integer.parseInt(arguments.getOrDefault(SHARD_QUEUE, defaults.getProperty(SHARD_QUEUE, "4096")));
+    final int scale = Integer.parseInt(arguments.getOrDefault(SHARD_SCALE, defaults.getProperty(SHARD_SCALE, "2")));
+    final String pointValue = arguments.getOrDefault(SHARD_POINT_VALUE, defaults.getProperty(SHARD_POINT_VALUE, "1"));
+
+    final long start = System.nanoTime();
+    final PortfolioLedger portfolioLedger = new PortfolioLedger(scale);
+    final Map<String, Map<String, String>> symbolProperties = new LinkedHashMap<>();
+    final Map<String, TickDataset> datasets = new LinkedHashMap<>();
+    for (final String symbol : symbols) {
+      final Map<String, String> properties = getProperties(symbol, arguments, symbolValues, new File(new File(rootFolder, RUN_FOLDER_NAME), symbol));
+      portfolioLedger.addSymbol(symbol, new BigDecimal(Objects.requireNonNullElse(properties.remove(SHARD_POINT_VALUE), pointValue)));
+      symbolProperties.put(symbol, properties);
+      datasets.put(symbol, ForexSweepApplication.loadDataset(ResourceUtils.getFile(
+          properties.getOrDefault(ForexSweepApplication.TICKET_INPUT, defaults.getProperty(ForexSweepApplication.TICKET_INPUT))), arguments, defaults));
+    }
+    log.info("Shards of {} symbols over {} ticks (decoded in {} ms)", symbols.size(), datasets.values().stream().mapToLong(TickDataset::size).sum(),
+        (System.nanoTime() - start) / 1_000_000L);
+
+    try (final ShardedEngine engine = ShardedEngine.start(symbolProperties, portfolioLedger, queueSize)) {
+      route(engine, datasets);
+      engine.finish();
+      try (final FileWriter fileWriter = new FileWriter(new File(rootFolder, OUTPUT_FILE_NAME)); final CSVPrinter csvPrinter = ForexSweepApplication.CSV_FORMAT.print(
+          fileWriter)) {
+        csvPrinter.printRecord(Stream.of(Stream.of(SYMBOL, POINT_VALUE), Arrays.stream(StatisticHeader.values()).map(Enum::toString),
+            Stream.of(PORTFOLIO_BALANCE, PORTFOLIO_FLOATING, MAX_OPEN_POSITIONS)).flatMap(stream -> stream).toArray());
+        for (final PortfolioLedger.SymbolLedger symbolLedger : portfolioLedger.getSymbols()) {
+          csvPrinter.printRecord(Stream.of(Stream.of(symbolLedger.getSymbol(), symbolLedger.getPointValue()),
+              Arrays.stream(engine.getKernel(symbolLedger.getSymbol()).getBean(StatisticRepository.class).getSummary()),
+              Stream.of(symbolLedger.getBalance(), symbolLedger.getFloatingProfit(), symbolLedger.getMaxOpenPositions())).flatMap(stream -> stream).toArray());
+        }
+      }
+    }
+    portfolioLedger.getSymbols().forEach(symbolLedger -> log.info("=PORTFOLIO=SYMBOL={}=POINT_VALUE={}=BALANCE={}=FLOATING={}=OPEN={}=MAX_OPEN={}=",
+        symbolLedger.getSymbol(), symbolLedger.getPointValue(), symbolLedger.getBalance(), symbolLedger.getFloatingProfit(), symbolLedger.getOpenPositions(),
+        symbolLedger.getMaxOpenPositions()));
+    log.info("=PORTFOLIO=BALANCE={}=EQUITY={}=MAX_DRAWDOWN={}=MAX_OPEN={}=", portfolioLedger.getBalance(), portfolioLedger.getEquity(),
+        portfolioLedger.getMaxDrawdown(), portfolioLedger.getMaxOpenPositions());
+    log.info("Shards finished in {} ms", (System.nanoTime() - start) / 1_000_000L);
+  }
+
+  private static @NotNull Map<String, String> getProperties(final @NotNull String symbol, final @NotNull Map<String, String> arguments,
+      final @NotNull Properties symbolValues, final @NotNull File runFolder) {
+    if (!runFolder.isDirectory() && !runFolder.mkdirs()) {
+      throw new IllegalStateException("Can't create the folder " + runFolder);
+    }
+    final Map<String, String> properties = new LinkedHashMap<>(arguments);
+    properties.keySet().removeIf(key -> key.startsWith(SHARD_PREFIX));
+    final String prefix = symbol + ".";
+    symbolValues.stringPropertyNames().stream().filter(key -> key.startsWith(prefix)).sorted()
+        .forEachOrdered(key -> properties.put(key.substring(prefix.length()), symbolValues.getProperty(key)));
+    properties.put(ForexSweepApplication.ROOT_FOLDER, runFolder.getPath() + File.separator);
+    return properties;
+  }
+
+  /**
+   * Route the ticks of all symbols in the date time order, the ticks of the same date time in the symbol order
+   *
+   * @param engine   The engine of the symbols
+   * @param datasets The ticks of each symbol
+   * @throws InterruptedException If the routing is interrupted
+   */
+  private static void route(final @NotNull ShardedEngine engine, final @NotNull Map<String, TickDataset> datasets) throws InterruptedException {
+    final List<Map.Entry<String, TickDataset>> entries = List.copyOf(datasets.entrySet());
+    final int[] next = new int[entries.size()];
+    final PriorityQueue<Integer> heads = new PriorityQueue<>(
+        Comparator.<Integer, LocalDateTime>comparing(i -> entries.get(i).getValue().getDateTime(next[i])).thenComparing(i -> i));
+    for (int i = 0; i < entries.size(); i++) {
+      if (entries.get(i).getValue().size() > 0) {
+        heads.add(i);
+      }
+    }
+    while (!heads.isEmpty()) {
+      final int i = heads.poll();
+      final TickDataset dataset = entries.get(i).getValue();
+      final int index = next[i];
+      engine.route(entries.get(i).getKey(), dataset.getDateTime(index), dataset.getBid(index) == 0d ? null : dataset.getBid(index),
+          dataset.getAsk(index) == 0d ? null : dataset.getAsk(index));
+      next[i]++;
+      if (next[i] < dataset.size()) {
+        heads.add(i);
+      }
+    }
+  }
+}
@@ -0,0 +1,252 @@
+package br.eti.allandemiranda.forex;
+
+import br.eti.allandemiranda.forex.headers.StatisticHeader;
+import br.eti.allandemiranda.forex.repositories.StatisticRepository;
+import br.eti.allandemiranda.forex.utils.SignalTape;
+import br.eti.allandemiranda.forex.utils.TickDataset;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Parameter sweep in one JVM. The ticks are decoded once and shared read-only by all runs, each combination of the sweep file runs on its own backtest
+ * kernel (own order book and statistics) in parallel, and the summary of each run is written on one results table.
+ * <p>
+ * The sweep file is a properties file where each key has the values to be combined separated by comma, like {@code order.safe.take-profit=100,150,200}. The other
+ * arguments are used by all runs.
+ * <p>
+ * The runs with the same indicator parameters (all parameters except the {@code order.*} and {@code config.*}) have the same signals, so the indicators are only
+ * processed by the first run of each group, the signals are recorded on a {@link SignalTape} and replayed by the other runs of the group.
+ */
+@Slf4j
+public class ForexSweepApplication {
+
+  private static final String ARGUMENT_PREFIX = "--";
+  static final String SWEEP_FILE = "config.sweep.file";
+  static final String SWEEP_THREADS = "config.sweep.threads";
+  static final String SWEEP_SHARE_INDICATORS = "config.sweep.share-indicators";
+  // The arguments of the drivers (sweep, walk-forward, optimizer, shards and partitions) are not given to the runs
+  private static final List<String> DRIVER_PREFIXES = List.of("config.sweep.", "config.walk-forward.", "config.optimizer.", "config.shard.",
+      "config.partition.");
+  private static final List<String> ORDER_PARAMETERS_PREFIXES = List.of("order.", "config.");
+  static final String TICKET_INPUT = "config.mock.ticket.input";
+  static final String ROOT_FOLDER = "config.root.folder";
+  private static final String TICK_CACHE_FOLDER = "config.tick-cache.folder";
+  private static final String OUTPUT_FILE_NAME = "sweep.csv";
+  private static final String RUN_FOLDER_NAME = "sweep";
+  static final String RUN = "RUN";
+  private static final String VALUE_SEPARATOR = ",";
+  static final CSVFormat CSV_FORMAT = CSVFormat.TDF.builder().build();
+
+  public static void main(String[] args) throws IOException {
+    final Properties defaults = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+    final Map<String, String> arguments = getArguments(args);
+    final File rootFolder = ResourceUtils.getFile(arguments.getOrDefault(ROOT_FOLDER, defaults.getProperty(ROOT_FOLDER)));
+    final String sweepFile = arguments.getOrDefault(SWEEP_FILE, defaults.getProperty(SWEEP_FILE, ""));
+    if (sweepFile.isEmpty()) {
+      throw new IllegalArgumentException("The sweep needs the " + SWEEP_FILE + " with the values of the parameters");
+    }
+    final int threads = Integer.parseInt(arguments.getOrDefault(SWEEP_THREADS, defaults.getProperty(SWEEP_THREADS, "0")));
+    final boolean shareIndicators = Boolean.parseBoolean(arguments.getOrDefault(SWEEP_SHARE_INDICATORS, defaults.getProperty(SWEEP_SHARE_INDICATORS, "true")));
+    final TreeMap<String, String[]> parameters = getParameters(ResourceUtils.getFile(sweepFile));
+    final List<Map<String, String>> variants = getVariants(parameters);
+
+    final long start = System.nanoTime();
+    final TickDataset dataset = loadDataset(ResourceUtils.getFile(arguments.getOrDefault(TICKET_INPUT, defaults.getProperty(TICKET_INPUT))), arguments, defaults);
+    final Map<Map<String, String>, List<Integer>> groups = getGroups(variants, shareIndicators);
+    log.info("Sweep of {} runs ({} indicator groups) over {} ticks (decoded in {} ms)", variants.size(), groups.size(), dataset.size(),
+        (System.nanoTime() - start) / 1_000_000L);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    try {
+      final List<CompletableFuture<Object[]>> results = submit(variants, groups, arguments, dataset, new File(rootFolder, RUN_FOLDER_NAME),
+          StatisticRepository::getSummary, executor);
+      try (final FileWriter fileWriter = new FileWriter(new File(rootFolder, OUTPUT_FILE_NAME)); final CSVPrinter csvPrinter = CSV_FORMAT.print(fileWriter)) {
+        csvPrinter.printRecord(Stream.of(Stream.of(RUN), parameters.keySet().stream(), Arrays.stream(StatisticHeader.values()).map(Enum::toString))
+            .flatMap(stream -> stream).toArray());
+        for (int i = 0; i < variants.size(); i++) {
+          csvPrinter.printRecord(Stream.of(Stream.of(i), variants.get(i).values().stream(), Arrays.stream(results.get(i).join())).flatMap(stream -> stream).toArray());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    log.info("Sweep finished in {} ms", (System.nanoTime() - start) / 1_000_000L);
+  }
+
+  /**
+   * Submit the runs of the combinations to the executor, the first run of each indicator group records the signals and the other runs of the group replay them
+   * after it
+   *
+   * @param variants  The combinations
+   * @param groups    The run numbers of each indicator group
+   * @param arguments The arguments of all runs
+   * @param dataset   The shared ticks
+   * @param folder    The folder of the runs (one sub folder by run number)
+   * @param result    The result taken from the statistics of each run
+   * @param executor  The executor of the runs
+   * @param <T>       The result type
+   * @return The result of each run, in the combination order
+   */
+  static <T> @NotNull List<CompletableFuture<T>> submit(final @NotNull List<Map<String, String>> variants, final @NotNull Map<Map<String, String>, List<Integer>> groups,
+      final @NotNull Map<String, String> arguments, final @NotNull TickDataset dataset, final @NotNull File folder,
+      final @NotNull Function<StatisticRepository, T> result, final @NotNull Executor executor) {
+    final List<CompletableFuture<T>> results = new ArrayList<>(Collections.nCopies(variants.size(), null));
+    for (final List<Integer> group : groups.values()) {
+      final int first = group.get(0);
+      if (group.size() == 1) {
+        results.set(first,
+            CompletableFuture.supplyAsync(() -> run(new File(folder, String.valueOf(first)), variants.get(first), arguments, dataset, null, result), executor));
+      } else {
+        final SignalTape signalTape = new SignalTape();
+        final CompletableFuture<T> recorder = CompletableFuture.supplyAsync(() -> {
+          final T value = run(new File(folder, String.valueOf(first)), variants.get(first), arguments, dataset, signalTape, result);
+          signalTape.finish();
+          return value;
+        }, executor);
+        results.set(first, recorder);
+        group.stream().skip(1).forEachOrdered(index -> results.set(index, recorder.thenApplyAsync(
+            ignored -> run(new File(folder, String.valueOf(index)), variants.get(index), arguments, dataset, signalTape, result), executor)));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Run one combination on a new backtest kernel
+   *
+   * @param runFolder  The output folder of the run
+   * @param variant    The parameters of the combination
+   * @param arguments  The arguments of all runs
+   * @param dataset    The ticks of the run
+   * @param signalTape The signal tape of the indicator group to record or to replay (null to process the indicators without a record)
+   * @param result     The result taken from the statistics of the run
+   * @param <T>        The result type
+   * @return The result of the run
+   */
+  static <T> T run(final @NotNull File runFolder, final @NotNull Map<String, String> variant, final @NotNull Map<String, String> arguments,
+      final @NotNull TickDataset dataset, final SignalTape signalTape, final @NotNull Function<StatisticRepository, T> result) {
+    if (!runFolder.isDirectory() && !runFolder.mkdirs()) {
+      throw new IllegalStateException("Can't create the folder " + runFolder);
+    }
+    final Map<String, String> runArguments = new LinkedHashMap<>(arguments);
+    runArguments.keySet().removeIf(key -> DRIVER_PREFIXES.stream().anyMatch(key::startsWith));
+    runArguments.putAll(variant);
+    runArguments.put(ROOT_FOLDER, runFolder.getPath() + File.separator);
+    final BacktestKernel.Builder builder = BacktestKernel.builder().properties(runArguments).tickDataset(dataset);
+    if (Objects.nonNull(signalTape)) {
+      builder.signalTape(signalTape);
+    }
+    try (final BacktestKernel kernel = builder.build()) {
+      kernel.run();
+      return result.apply(kernel.getBean(StatisticRepository.class));
+    }
+  }
+
+  /**
+   * Group the runs by the indicator parameters, the parameters of the orders and of the configuration not change the signals
+   *
+   * @param variants        The combinations
+   * @param shareIndicators If the runs with the same indicator parameters share the signals (if not, each run is one group)
+   * @return The run numbers of each group, in order
+   */
+  static @NotNull Map<Map<String, String>, List<Integer>> getGroups(final @NotNull List<Map<String, String>> variants, final boolean shareIndicators) {
+    final Map<Map<String, String>, List<Integer>> groups = new LinkedHashMap<>();
+    for (int i = 0; i < variants.size(); i++) {
+      final Map<String, String> key = shareIndicators ? variants.get(i).entrySet().stream()
+          .filter(entry -> ORDER_PARAMETERS_PREFIXES.stream().noneMatch(prefix -> entry.getKey().startsWith(prefix)))
+          .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new)) : Map.of(RUN, String.valueOf(i));
+      groups.computeIfAbsent(key, ignored -> new ArrayList<>()).add(i);
+    }
+    return groups;
+  }
+
+  /**
+   * Format a fitness value to the result files, the fitness of a stopped run is infinite
+   *
+   * @param fitness The fitness value
+   * @return The text fitness value
+   */
+  static @NotNull String getFitnessNumber(final double fitness) {
+    return Double.isInfinite(fitness) ? String.valueOf(fitness) : new DecimalFormat("#0.00##").format(fitness).replace(".", ",");
+  }
+
+  /**
+   * Decode the ticks of a file, or map them from the cache folder if it is defined
+   *
+   * @param file      The input file
+   * @param arguments The arguments
+   * @param defaults  The default values
+   * @return The ticks
+   * @throws IOException If the input can't be read or the cache can't be written
+   */
+  static @NotNull TickDataset loadDataset(final @NotNull File file, final @NotNull Map<String, String> arguments, final @NotNull Properties defaults)
+      throws IOException {
+    final String cacheFolder = arguments.getOrDefault(TICK_CACHE_FOLDER, defaults.getProperty(TICK_CACHE_FOLDER, ""));
+    return cacheFolder.isEmpty() ? TickDataset.load(file) : TickDataset.load(file, ResourceUtils.getFile(cacheFolder));
+  }
+
+  static @NotNull Map<String, String> getArguments(final String @NotNull [] args) {
+    final Map<String, String> arguments = new LinkedHashMap<>();
+    Arrays.stream(args).filter(arg -> arg.startsWith(ARGUMENT_PREFIX) && arg.contains("=")).forEachOrdered(arg -> {
+      final int index = arg.indexOf('=');
+      arguments.put(arg.substring(ARGUMENT_PREFIX.length(), index), arg.substring(index + 1));
+    });
+    return arguments;
+  }
+
+  static @NotNull TreeMap<String, String[]> getParameters(final @NotNull File sweepFile) throws IOException {
+    final Properties properties = PropertiesLoaderUtils.loadProperties(new FileSystemResource(sweepFile));
+    final TreeMap<String, String[]> parameters = new TreeMap<>();
+    properties.stringPropertyNames().forEach(key -> parameters.put(key,
+        Arrays.stream(properties.getProperty(key).split(VALUE_SEPARATOR)).map(String::trim).filter(value -> !value.isEmpty()).toArray(String[]::new)));
+    return parameters;
+  }
+
+  /**
+   * Get all combinations of the parameter values, the last parameter changes first
+   *
+   * @param parameters The values of each parameter
+   * @return The combinations
+   */
+  static @NotNull List<Map<String, String>> getVariants(final @NotNull TreeMap<String, String[]> parameters) {
+    List<Map<String, String>> variants = List.of(new LinkedHashMap<>());
+    for (final Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+      final List<Map<String, String>> next = new ArrayList<>(variants.size() * parameter.getValue().length);
+      for (final Map<String, String> variant : variants) {
+        for (final String value : parameter.getValue()) {
+          final Map<String, String> combination = new LinkedHashMap<>(variant);
+          combination.put(parameter.getKey(), value);
+          next.add(combination);
+        }
+      }
+      variants = next;
+    }
+    return variants;
+  }
+}
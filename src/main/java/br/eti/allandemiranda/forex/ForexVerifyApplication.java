@@ -0,0 +1,136 @@
+package br.eti.allandemiranda.forex;
+
+import br.eti.allandemiranda.forex.controllers.GeneratorProcessor;
+import br.eti.allandemiranda.forex.dtos.DigestEvent;
+import br.eti.allandemiranda.forex.services.DigestService;
+import br.eti.allandemiranda.forex.utils.TickDataset;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVPrinter;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Verification of an engine configuration against the reference one. Both runs receive the same ticks side by side with the state digest active, and after each
+ * tick the digests are compared, so the first divergence is found on the tick it happens. The events before it (from both runs) are written to show the context.
+ * <p>
+ * The reference run has the arguments, the candidate run has the arguments with the values of the {@code config.verify.file} over them.
+ */
+@Slf4j
+public class ForexVerifyApplication {
+
+  private static final String VERIFY_FILE = "config.verify.file";
+  private static final String DIGEST_ACTIVE = "config.digest.active";
+  private static final String OUTPUT_FILE_NAME = "verify.csv";
+  private static final String RUN_FOLDER_NAME = "verify";
+  private static final String REFERENCE = "REFERENCE";
+  private static final String CANDIDATE = "CANDIDATE";
+
+  public static void main(String[] args) throws IOException {
+    final Properties defaults = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+    final Map<String, String> arguments = ForexSweepApplication.getArguments(args);
+    final File rootFolder = ResourceUtils.getFile(arguments.getOrDefault(ForexSweepApplication.ROOT_FOLDER, defaults.getProperty(ForexSweepApplication.ROOT_FOLDER)));
+    final String verifyFile = arguments.getOrDefault(VERIFY_FILE, defaults.getProperty(VERIFY_FILE, ""));
+    if (verifyFile.isEmpty()) {
+      throw new IllegalArgumentException("The verification needs the " + VERIFY_FILE + " with the values of the candidate configuration");
+    }
+    final Map<String, String> candidate = getCandidate(ResourceUtils.getFile(verifyFile));
+
+    final long start = System.nanoTime();
+    final TickDataset dataset = ForexSweepApplication.loadDataset(
+        ResourceUtils.getFile(arguments.getOrDefault(ForexSweepApplication.TICKET_INPUT, defaults.getProperty(ForexSweepApplication.TICKET_INPUT))), arguments,
+        defaults);
+    log.info("Verification of {} over {} ticks (decoded in {} ms)", candidate, dataset.size(), (System.nanoTime() - start) / 1_000_000L);
+
+    final File runFolder = new File(rootFolder, RUN_FOLDER_NAME);
+    try (final BacktestKernel reference = build(new File(runFolder, REFERENCE.toLowerCase()), arguments, Map.of());
+        final BacktestKernel candidateKernel = build(new File(runFolder, CANDIDATE.toLowerCase()), arguments, candidate)) {
+      final GeneratorProcessor referenceProcessor = reference.getBean(GeneratorProcessor.class);
+      final GeneratorProcessor candidateProcessor = candidateKernel.getBean(GeneratorProcessor.class);
+      final DigestService referenceDigest = reference.getBean(DigestService.class);
+      final DigestService candidateDigest = candidateKernel.getBean(DigestService.class);
+      for (int i = 0; i < dataset.size(); i++) {
+        final Double bid = dataset.getBid(i) == 0d ? null : dataset.getBid(i);
+        final Double ask = dataset.getAsk(i) == 0d ? null : dataset.getAsk(i);
+        referenceProcessor.webSocket(dataset.getDateTime(i), bid, ask);
+        candidateProcessor.webSocket(dataset.getDateTime(i), bid, ask);
+        if (referenceDigest.getDigest() != candidateDigest.getDigest() || referenceDigest.getNumberOfEvents() != candidateDigest.getNumberOfEvents()) {
+          printDivergence(rootFolder, i, referenceDigest.getContext(), candidateDigest.getContext());
+          log.info("=VERIFY=DIVERGENCE=TICK={}={}=", i, dataset.getDateTime(i));
+          return;
+        }
+      }
+      printDivergence(rootFolder, -1, List.of(), List.of());
+      log.info("=VERIFY=SAME=DIGEST={}=EVENTS={}=", String.format("%016x", referenceDigest.getDigest()), referenceDigest.getNumberOfEvents());
+    } finally {
+      log.info("Verification finished in {} ms", (System.nanoTime() - start) / 1_000_000L);
+    }
+  }
+
+  private static @NotNull Map<String, String> getCandidate(final @NotNull File verifyFile) throws IOException {
+    final Properties properties = new Properties();
+    try (final FileReader fileReader = new FileReader(verifyFile)) {
+      properties.load(fileReader);
+    }
+    final Map<String, String> candidate = new LinkedHashMap<>();
+    properties.stringPropertyNames().stream().sorted().forEach(key -> candidate.put(key, properties.getProperty(key)));
+    return candidate;
+  }
+
+  private static @NotNull BacktestKernel build(final @NotNull File runFolder, final @NotNull Map<String, String> arguments,
+      final @NotNull Map<String, String> values) {
+    if (!runFolder.isDirectory() && !runFolder.mkdirs()) {
+      throw new IllegalStateException("Can't create the folder " + runFolder);
+    }
+    final Map<String, String> runArguments = new LinkedHashMap<>(arguments);
+    runArguments.remove(VERIFY_FILE);
+    runArguments.putAll(values);
+    runArguments.put(DIGEST_ACTIVE, Boolean.TRUE.toString());
+    runArguments.put(ForexSweepApplication.ROOT_FOLDER, runFolder.getPath() + File.separator);
+    return BacktestKernel.builder().properties(runArguments).build();
+  }
+
+  /**
+   * Write the context of both runs (the last events kept by each digest), each event with a flag if the event of the same number on the other run has the
+   * same digest. The first divergent event and the events after it on the same tick are on the end of the contexts
+   *
+   * @param rootFolder The output folder
+   * @param tick       The index of the tick of the divergence (-1 if the runs are the same)
+   * @param reference  The last events of the reference run
+   * @param candidate  The last events of the candidate run
+   */
+  private static void printDivergence(final @NotNull File rootFolder, final int tick, final @NotNull List<DigestEvent> reference,
+      final @NotNull List<DigestEvent> candidate) throws IOException {
+    try (final FileWriter fileWriter = new FileWriter(new File(rootFolder, OUTPUT_FILE_NAME)); final CSVPrinter csvPrinter = ForexSweepApplication.CSV_FORMAT.print(
+        fileWriter)) {
+      csvPrinter.printRecord("TICK", "RUN", "EVENT", "DATE_TIME", "TYPE", "VALUES", "DIGEST", "SAME");
+      final Map<Long, Long> candidateDigests = new LinkedHashMap<>();
+      candidate.forEach(event -> candidateDigests.put(event.number(), event.digest()));
+      final Map<Long, Long> referenceDigests = new LinkedHashMap<>();
+      reference.forEach(event -> referenceDigests.put(event.number(), event.digest()));
+      for (final DigestEvent event : reference) {
+        printEvent(csvPrinter, tick, REFERENCE, event, candidateDigests);
+      }
+      for (final DigestEvent event : candidate) {
+        printEvent(csvPrinter, tick, CANDIDATE, event, referenceDigests);
+      }
+    }
+  }
+
+  private static void printEvent(final @NotNull CSVPrinter csvPrinter, final int tick, final @NotNull String run, final @NotNull DigestEvent event,
+      final @NotNull Map<Long, Long> otherDigests) throws IOException {
+    final Long other = otherDigests.get(event.number());
+    // The other run can have no event with this number on its context
+    csvPrinter.printRecord(tick, run, event.number(), event.dateTime(), event.type(), event.values(), String.format("%016x", event.digest()),
+        other == null ? "" : other == event.digest());
+  }
+}
@@ -0,0 +1,180 @@
+package br.eti.allandemiranda.forex;
+
+import br.eti.allandemiranda.forex.enums.FitnessMetric;
+import br.eti.allandemiranda.forex.headers.StatisticHeader;
+import br.eti.allandemiranda.forex.utils.TickDataset;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.lang3.tuple.Pair;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Walk-forward optimization in one JVM. The ticks are split in rolling windows, each window runs the combinations of the sweep file on its in-sample days and
+ * replays the best one (by the fitness metric) on the out-of-sample days after them. The next window starts after the out-of-sample days of the previous one,
+ * all windows run in parallel over views of the same decoded ticks, and the out-of-sample equity curves are stitched in one curve.
+ * <p>
+ * Each run replays the warm-up days before its window only to warm up the indicators ({@code order.open.start}), so it starts trading with the indicators of
+ * a continuous run.
+ */
+@Slf4j
+public class ForexWalkForwardApplication {
+
+  private static final String IN_SAMPLE_DAYS = "config.walk-forward.in-sample-days";
+  private static final String OUT_OF_SAMPLE_DAYS = "config.walk-forward.out-of-sample-days";
+  private static final String WARM_UP_DAYS = "config.walk-forward.warm-up-days";
+  private static final String FITNESS = "config.walk-forward.fitness";
+  private static final String OPEN_START = "order.open.start";
+  private static final String OUTPUT_FILE_NAME = "walk-forward.csv";
+  private static final String EQUITY_FILE_NAME = "walk-forward_equity.csv";
+  private static final String RUN_FOLDER_NAME = "walk-forward";
+  private static final String IN_SAMPLE_FOLDER_NAME = "in-sample";
+  private static final String OUT_OF_SAMPLE_FOLDER_NAME = "out-of-sample";
+
+  public static void main(String[] args) throws IOException {
+    final Properties defaults = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+    final Map<String, String> arguments = ForexSweepApplication.getArguments(args);
+    final File rootFolder = ResourceUtils.getFile(arguments.getOrDefault(ForexSweepApplication.ROOT_FOLDER, defaults.getProperty(ForexSweepApplication.ROOT_FOLDER)));
+    final String sweepFile = arguments.getOrDefault(ForexSweepApplication.SWEEP_FILE, defaults.getProperty(ForexSweepApplication.SWEEP_FILE, ""));
+    if (sweepFile.isEmpty()) {
+      throw new IllegalArgumentException("The walk-forward needs the " + ForexSweepApplication.SWEEP_FILE + " with the values of the parameters");
+    }
+    final int threads = Integer.parseInt(arguments.getOrDefault(ForexSweepApplication.SWEEP_THREADS, defaults.getProperty(ForexSweepApplication.SWEEP_THREADS, "0")));
+    final boolean shareIndicators = Boolean.parseBoolean(
+        arguments.getOrDefault(ForexSweepApplication.SWEEP_SHARE_INDICATORS, defaults.getProperty(ForexSweepApplication.SWEEP_SHARE_INDICATORS, "true")));
+    final int inSampleDays = Integer.parseInt(arguments.getOrDefault(IN_SAMPLE_DAYS, defaults.getProperty(IN_SAMPLE_DAYS, "7")));
+    final int outOfSampleDays = Integer.parseInt(arguments.getOrDefault(OUT_OF_SAMPLE_DAYS, defaults.getProperty(OUT_OF_SAMPLE_DAYS, "3")));
+    final int warmUpDays = Integer.parseInt(arguments.getOrDefault(WARM_UP_DAYS, defaults.getProperty(WARM_UP_DAYS, "1")));
+    final FitnessMetric fitness = FitnessMetric.valueOf(arguments.getOrDefault(FITNESS, defaults.getProperty(FITNESS, FitnessMetric.BALANCE.toString())));
+    if (inSampleDays < 1 || outOfSampleDays < 1 || warmUpDays < 0) {
+      throw new IllegalArgumentException("The walk-forward needs positive in-sample and out-of-sample days");
+    }
+    final TreeMap<String, String[]> parameters = ForexSweepApplication.getParameters(ResourceUtils.getFile(sweepFile));
+    final List<Map<String, String>> variants = ForexSweepApplication.getVariants(parameters);
+    final Map<Map<String, String>, List<Integer>> groups = ForexSweepApplication.getGroups(variants, shareIndicators);
+
+    final long start = System.nanoTime();
+    final TickDataset dataset = ForexSweepApplication.loadDataset(
+        ResourceUtils.getFile(arguments.getOrDefault(ForexSweepApplication.TICKET_INPUT, defaults.getProperty(ForexSweepApplication.TICKET_INPUT))), arguments,
+        defaults);
+    if (dataset.size() == 0) {
+      throw new IllegalArgumentException("The walk-forward needs ticks");
+    }
+    final List<Window> windows = getWindows(dataset, inSampleDays, outOfSampleDays, warmUpDays);
+    if (windows.isEmpty()) {
+      throw new IllegalArgumentException("The ticks are shorter than the warm-up and in-sample days of one window");
+    }
+    log.info("Walk-forward of {} windows with {} runs each over {} ticks (decoded in {} ms)", windows.size(), variants.size(), dataset.size(),
+        (System.nanoTime() - start) / 1_000_000L);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    try {
+      final List<CompletableFuture<WindowResult>> results = new ArrayList<>(windows.size());
+      for (final Window window : windows) {
+        final File windowFolder = new File(new File(rootFolder, RUN_FOLDER_NAME), String.valueOf(window.number()));
+        final Map<String, String> inSampleArguments = new LinkedHashMap<>(arguments);
+        inSampleArguments.put(OPEN_START, window.inSampleStart().toString());
+        final List<CompletableFuture<Double>> inSample = ForexSweepApplication.submit(variants, groups, inSampleArguments,
+            dataset.window(window.inSampleStart().minusDays(warmUpDays), window.outOfSampleStart()), new File(windowFolder, IN_SAMPLE_FOLDER_NAME),
+            statistics -> statistics.getFitness(fitness), executor);
+        results.add(CompletableFuture.allOf(inSample.toArray(CompletableFuture[]::new)).thenApplyAsync(ignored -> {
+          // The first combination wins a tie, like the order of the sweep file
+          final int best = IntStream.range(0, inSample.size()).boxed().reduce((a, b) -> inSample.get(b).join() > inSample.get(a).join() ? b : a).orElseThrow();
+          final Map<String, String> outOfSampleArguments = new LinkedHashMap<>(arguments);
+          outOfSampleArguments.put(OPEN_START, window.outOfSampleStart().toString());
+          return ForexSweepApplication.run(new File(windowFolder, OUT_OF_SAMPLE_FOLDER_NAME), variants.get(best), outOfSampleArguments,
+              dataset.window(window.outOfSampleStart().minusDays(warmUpDays), window.outOfSampleEnd()), null,
+              statistics -> new WindowResult(best, inSample.get(best).join(), statistics.getSummary(), statistics.getEquityCurve()));
+        }, executor));
+      }
+      printResults(rootFolder, windows, results, parameters, variants);
+    } finally {
+      executor.shutdownNow();
+    }
+    log.info("Walk-forward finished in {} ms", (System.nanoTime() - start) / 1_000_000L);
+  }
+
+  /**
+   * Split the ticks in rolling windows, the out-of-sample days of a window are the in-sample days of the next windows (the last out-of-sample can be shorter)
+   *
+   * @param dataset         The ticks
+   * @param inSampleDays    The days to optimize
+   * @param outOfSampleDays The days to replay the best combination
+   * @param warmUpDays      The days before each window to warm up the indicators
+   * @return The windows in order
+   */
+  private static @NotNull List<Window> getWindows(final @NotNull TickDataset dataset, final int inSampleDays, final int outOfSampleDays, final int warmUpDays) {
+    final LocalDateTime last = dataset.getDateTime(dataset.size() - 1);
+    final List<Window> windows = new ArrayList<>();
+    LocalDateTime inSampleStart = dataset.getDateTime(0).toLocalDate().plusDays(warmUpDays).atStartOfDay();
+    while (!inSampleStart.plusDays(inSampleDays).isAfter(last)) {
+      final LocalDateTime outOfSampleStart = inSampleStart.plusDays(inSampleDays);
+      windows.add(new Window(windows.size(), inSampleStart, outOfSampleStart, outOfSampleStart.plusDays(outOfSampleDays)));
+      inSampleStart = inSampleStart.plusDays(outOfSampleDays);
+    }
+    return windows;
+  }
+
+  private static void printResults(final @NotNull File rootFolder, final @NotNull List<Window> windows, final @NotNull List<CompletableFuture<WindowResult>> results,
+      final @NotNull TreeMap<String, String[]> parameters, final @NotNull List<Map<String, String>> variants) throws IOException {
+    try (final FileWriter fileWriter = new FileWriter(new File(rootFolder, OUTPUT_FILE_NAME)); final CSVPrinter csvPrinter = ForexSweepApplication.CSV_FORMAT.print(
+        fileWriter)) {
+      csvPrinter.printRecord(Stream.of(Stream.of("WINDOW", "IN_SAMPLE_START", "OUT_OF_SAMPLE_START", "OUT_OF_SAMPLE_END", ForexSweepApplication.RUN),
+          parameters.keySet().stream(), Stream.of("IN_SAMPLE_FITNESS"), Arrays.stream(StatisticHeader.values()).map(Enum::toString)).flatMap(stream -> stream).toArray());
+      for (final Window window : windows) {
+        final WindowResult result = results.get(window.number()).join();
+        csvPrinter.printRecord(Stream.of(Stream.of(window.number(), window.inSampleStart(), window.outOfSampleStart(), window.outOfSampleEnd(), result.run()),
+                variants.get(result.run()).values().stream(), Stream.of(ForexSweepApplication.getFitnessNumber(result.fitness())), Arrays.stream(result.summary()))
+            .flatMap(stream -> stream).toArray());
+      }
+    }
+    // Each out-of-sample run starts with a zero balance, so its curve continues from the final equity of the previous windows
+    BigDecimal offset = BigDecimal.ZERO;
+    try (final FileWriter fileWriter = new FileWriter(new File(rootFolder, EQUITY_FILE_NAME)); final CSVPrinter csvPrinter = ForexSweepApplication.CSV_FORMAT.print(
+        fileWriter)) {
+      csvPrinter.printRecord("DATE_TIME", "WINDOW", "EQUITY");
+      for (final Window window : windows) {
+        final List<Pair<LocalDateTime, BigDecimal>> equityCurve = results.get(window.number()).join().equityCurve();
+        for (final Pair<LocalDateTime, BigDecimal> point : equityCurve) {
+          csvPrinter.printRecord(point.getKey(), window.number(), getNumber(offset.add(point.getValue())));
+        }
+        if (!equityCurve.isEmpty()) {
+          offset = offset.add(equityCurve.get(equityCurve.size() - 1).getValue());
+        }
+      }
+    }
+    log.info("=WALK-FORWARD=BALANCE={}=", offset);
+  }
+
+  private static @NotNull String getNumber(final @NotNull BigDecimal value) {
+    return new DecimalFormat("#0.00#").format(value.doubleValue()).replace(".", ",");
+  }
+
+  private record Window(int number, LocalDateTime inSampleStart, LocalDateTime outOfSampleStart, LocalDateTime outOfSampleEnd) {
+
+  }
+
+  private record WindowResult(int run, double fitness, Object[] summary, List<Pair<LocalDateTime, BigDecimal>> equityCurve) {
+
+  }
+}
@@ -0,0 +1,67 @@
+package br.eti.allandemiranda.forex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.PropertyPlaceholderHelper;
+
+/**
+ * Immutable properties of one {@link BacktestKernel}, the values of {@code application.properties} with the values of the run over them. The placeholders of
+ * the {@code @Value} fields are resolved like the Spring environment ({@code ${key:default}}).
+ *
+ * @param properties The property values
+ */
+public record KernelConfig(@NotNull Map<String, String> properties) {
+
+  private static final PropertyPlaceholderHelper PLACEHOLDER_HELPER = new PropertyPlaceholderHelper("${", "}", ":", false);
+  private static final Map<String, String> DEFAULTS = loadDefaults();
+
+  public KernelConfig {
+    properties = Map.copyOf(properties);
+  }
+
+  /**
+   * @return The values of {@code application.properties}
+   */
+  public static @NotNull KernelConfig defaults() {
+    return new KernelConfig(DEFAULTS);
+  }
+
+  private static @NotNull Map<String, String> loadDefaults() {
+    try {
+      final Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+      final Map<String, String> values = new LinkedHashMap<>();
+      properties.stringPropertyNames().forEach(key -> values.put(key, properties.getProperty(key)));
+      return values;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Get a new config with other values over these
+   *
+   * @param values The new values
+   * @return The new config
+   */
+  public @NotNull KernelConfig with(final @NotNull Map<String, String> values) {
+    final Map<String, String> merged = new LinkedHashMap<>(this.properties());
+    merged.putAll(values);
+    return new KernelConfig(merged);
+  }
+
+  /**
+   * Resolve the placeholders of a text
+   *
+   * @param text The text, like {@code ${order.safe.take-profit:150}}
+   * @return The text with the values
+   */
+  public @NotNull String resolve(final @NotNull String text) {
+    return PLACEHOLDER_HELPER.replacePlaceholders(text, this.properties()::get);
+  }
+}
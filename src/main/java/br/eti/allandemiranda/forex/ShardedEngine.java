@@ -0,0 +1,207 @@
+package br.eti.allandemiranda.forex;
+
+import br.eti.allandemiranda.forex.controllers.GeneratorProcessor;
+import br.eti.allandemiranda.forex.utils.PortfolioLedger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Engine of many symbols. Each symbol is one shard: a {@link BacktestKernel} with the properties of the symbol (digits, swaps, spread, ...) pinned to its own
+ * worker thread, so the state of a symbol is only changed by one thread. The ticks are routed by symbol to the bounded queue of the shard (the caller waits
+ * when the queue is full) and the accounts of the shards are summed on one {@link PortfolioLedger}.
+ */
+public final class ShardedEngine implements AutoCloseable {
+
+  // Tick that ends the worker of a shard
+  private static final ShardTick END = new ShardTick(LocalDateTime.MIN, null, null);
+  // Time to wait for space on the queue of a shard before to check its worker again
+  private static final long POLL_MILLISECONDS = 100L;
+
+  private final Map<String, Shard> shards;
+  private final PortfolioLedger portfolioLedger;
+  private boolean finished = false;
+
+  private ShardedEngine(final @NotNull Map<String, Shard> shards, final @NotNull PortfolioLedger portfolioLedger) {
+    this.shards = shards;
+    this.portfolioLedger = portfolioLedger;
+  }
+
+  /**
+   * Create the kernels of the symbols and start their workers
+   *
+   * @param symbolProperties The properties of the kernel of each symbol
+   * @param portfolioLedger  The account shared by the symbols, with the symbols already added
+   * @param queueSize        The number of ticks each shard can have waiting
+   * @return The running engine
+   */
+  public static @NotNull ShardedEngine start(final @NotNull Map<String, Map<String, String>> symbolProperties, final @NotNull PortfolioLedger portfolioLedger,
+      final int queueSize) {
+    final Map<String, Shard> shards = new LinkedHashMap<>();
+    try {
+      symbolProperties.forEach((symbol, properties) -> shards.put(symbol, new Shard(symbol,
+          BacktestKernel.builder().properties(properties).symbolLedger(portfolioLedger.getSymbol(symbol)).build(), Math.max(1, queueSize))));
+    } catch (RuntimeException e) {
+      shards.values().forEach(shard -> shard.getKernel().close());
+      throw e;
+    }
+    shards.values().forEach(Shard::start);
+    return new ShardedEngine(Collections.unmodifiableMap(shards), portfolioLedger);
+  }
+
+  public @NotNull Set<String> getSymbols() {
+    return this.shards.keySet();
+  }
+
+  public @NotNull PortfolioLedger getPortfolioLedger() {
+    return this.portfolioLedger;
+  }
+
+  /**
+   * Get the kernel of a symbol, its beans can only be read after {@link #finish()}
+   *
+   * @param symbol The symbol
+   * @return The kernel of the symbol
+   */
+  public @NotNull BacktestKernel getKernel(final @NotNull String symbol) {
+    return this.getShard(symbol).getKernel();
+  }
+
+  /**
+   * Send a tick to the shard of the symbol
+   *
+   * @param symbol   The symbol of the tick
+   * @param dateTime The tick date time
+   * @param bid      The BID price (null if not have a price)
+   * @param ask      The ASK price (null if not have a price)
+   * @throws InterruptedException If the caller is interrupted while the queue is full
+   */
+  public void route(final @NotNull String symbol, final @NotNull LocalDateTime dateTime, final Double bid, final Double ask) throws InterruptedException {
+    if (this.finished) {
+      throw new IllegalStateException("The engine is finished");
+    }
+    this.getShard(symbol).put(new ShardTick(dateTime, bid, ask));
+  }
+
+  /**
+   * Wait for the shards to process the ticks already routed and end the workers
+   *
+   * @throws InterruptedException If the caller is interrupted while waiting
+   */
+  public void finish() throws InterruptedException {
+    if (this.finished) {
+      return;
+    }
+    this.finished = true;
+    for (final Shard shard : this.shards.values()) {
+      shard.end();
+    }
+    final List<RuntimeException> failures = new ArrayList<>();
+    for (final Shard shard : this.shards.values()) {
+      shard.getWorker().join();
+      if (Objects.nonNull(shard.getFailure())) {
+        failures.add(shard.getFailure());
+      }
+    }
+    if (!failures.isEmpty()) {
+      final IllegalStateException exception = new IllegalStateException("Failure on " + failures.size() + " shards", failures.get(0));
+      failures.stream().skip(1).forEach(exception::addSuppressed);
+      throw exception;
+    }
+  }
+
+  /**
+   * End the workers and close the kernels of the symbols, an interrupted caller stops the workers without waiting them
+   */
+  @Override
+  public void close() {
+    try {
+      this.finish();
+    } catch (InterruptedException e) {
+      this.shards.values().forEach(shard -> shard.getWorker().interrupt());
+      Thread.currentThread().interrupt();
+    } finally {
+      this.shards.values().forEach(shard -> shard.getKernel().close());
+    }
+  }
+
+  private @NotNull Shard getShard(final @NotNull String symbol) {
+    final Shard shard = this.shards.get(symbol);
+    if (Objects.isNull(shard)) {
+      throw new IllegalArgumentException("Unknown symbol " + symbol);
+    }
+    return shard;
+  }
+
+  /**
+   * Kernel of one symbol with its queue of ticks and its worker
+   */
+  @Getter(AccessLevel.PRIVATE)
+  private static final class Shard {
+
+    private final BacktestKernel kernel;
+    private final BlockingQueue<ShardTick> queue;
+    private final Thread worker;
+    private volatile RuntimeException failure;
+
+    private Shard(final @NotNull String symbol, final @NotNull BacktestKernel kernel, final int queueSize) {
+      this.kernel = kernel;
+      this.queue = new ArrayBlockingQueue<>(queueSize);
+      this.worker = new Thread(this::work, "shard-" + symbol);
+    }
+
+    private void start() {
+      this.getWorker().start();
+    }
+
+    private void put(final @NotNull ShardTick tick) throws InterruptedException {
+      do {
+        if (Objects.nonNull(this.getFailure()) || !this.getWorker().isAlive()) {
+          throw new IllegalStateException("The shard " + this.getWorker().getName() + " stopped", this.getFailure());
+        }
+      } while (!this.getQueue().offer(tick, POLL_MILLISECONDS, TimeUnit.MILLISECONDS));
+    }
+
+    private void end() throws InterruptedException {
+      // A stopped worker never takes the end, so its queue can stay full
+      while (!this.getQueue().offer(END, POLL_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+        if (!this.getWorker().isAlive()) {
+          return;
+        }
+      }
+    }
+
+    private void work() {
+      final GeneratorProcessor generatorProcessor = this.getKernel().getBean(GeneratorProcessor.class);
+      try {
+        ShardTick tick;
+        while ((tick = this.getQueue().take()) != END) {
+          generatorProcessor.webSocket(tick.dateTime(), tick.bid(), tick.ask());
+        }
+      } catch (InterruptedException e) {
+        this.failure = new IllegalStateException("The shard " + this.getWorker().getName() + " was interrupted", e);
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException e) {
+        this.failure = e;
+      } finally {
+        // The producer can be waiting for space
+        this.getQueue().clear();
+      }
+    }
+  }
+
+  private record ShardTick(@NotNull LocalDateTime dateTime, Double bid, Double ask) {
+
+  }
+}
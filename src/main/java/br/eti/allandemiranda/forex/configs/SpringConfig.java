@@ -1,21 +1,19 @@
 package br.eti.allandemiranda.forex.configs;
 
 import br.eti.allandemiranda.forex.controllers.GeneratorProcessor;
+import br.eti.allandemiranda.forex.controllers.TickGateway;
+import br.eti.allandemiranda.forex.utils.TickDataset;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.stream.StreamSupport;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ResourceUtils;
 
 @Configuration
 @Getter(AccessLevel.PRIVATE)
@@ -23,8 +21,14 @@ import org.springframework.context.annotation.Configuration;
 public class SpringConfig {
 
   private final GeneratorProcessor generatorProcessor;
+  private final TickGateway tickGateway;
+  // Ticks already decoded and shared by the runs of a sweep
+  private final ObjectProvider<TickDataset> tickDataset;
   @Value("${config.mock.ticket.input}")
   private File inputFile;
+  // Folder of the mapped tick files shared by the processes (empty to read the input file)
+  @Value("${config.tick-cache.folder:}")
+  private String tickCacheFolder;
 
   @Value("${config.statistic.fileName}")
   private String fileName;
@@ -62,23 +66,33 @@ public class SpringConfig {
   private int minTradingDiff;
 
   @Autowired
-  public SpringConfig(GeneratorProcessor generatorProcessor) {
+  public SpringConfig(GeneratorProcessor generatorProcessor, TickGateway tickGateway, ObjectProvider<TickDataset> tickDataset) {
     this.generatorProcessor = generatorProcessor;
+    this.tickGateway = tickGateway;
+    this.tickDataset = tickDataset;
   }
 
   @Bean
   void processor() {
+    // LIVE (served by the gateway after the start)
+    if (this.getTickGateway().isActive()) {
+      return;
+    }
+    // A run restored from a snapshot continues after the ticks already processed
+    final long from = this.getGeneratorProcessor().getNumberOfTicks();
+    final TickDataset dataset = this.getTickDataset().getIfAvailable();
+    if (dataset != null) {
+      dataset.forEach((int) Math.min(from, Integer.MAX_VALUE), this.getGeneratorProcessor()::webSocket);
+      return;
+    }
     // MOCKED
-    try (final FileReader fileReader = new FileReader(this.getInputFile()); final CSVParser csvParser = CSVFormat.TDF.builder().build().parse(fileReader)) {
-      StreamSupport.stream(csvParser.spliterator(), false).skip(1).forEachOrdered(csvRecord -> {
-        String date = csvRecord.get(0);
-        String time = csvRecord.get(1);
-        String dataTime = date.replace(".", "-").concat("T").concat(time);
-        LocalDateTime localDateTime = LocalDateTime.parse(dataTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        Double bid = csvRecord.get(2).isEmpty() ? null : Double.parseDouble(csvRecord.get(2));
-        Double ask = csvRecord.get(3).isEmpty() ? null : Double.parseDouble(csvRecord.get(3));
-        this.getGeneratorProcessor().webSocket(localDateTime, bid, ask);
-      });
+    try {
+      if (!this.getTickCacheFolder().isEmpty()) {
+        TickDataset.load(this.getInputFile(), ResourceUtils.getFile(this.getTickCacheFolder()))
+            .forEach((int) Math.min(from, Integer.MAX_VALUE), this.getGeneratorProcessor()::webSocket);
+        return;
+      }
+      TickDataset.read(this.getInputFile(), from, this.getGeneratorProcessor()::webSocket);
     } catch (IOException e) {
       throw new IllegalStateException(e);
     }
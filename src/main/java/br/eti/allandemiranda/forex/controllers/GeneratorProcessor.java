@@ -3,12 +3,20 @@ package br.eti.allandemiranda.forex.controllers;
 import br.eti.allandemiranda.forex.controllers.chart.ChartProcessor;
 import br.eti.allandemiranda.forex.controllers.indicators.IndicatorsProcessor;
 import br.eti.allandemiranda.forex.controllers.order.OrderProcessor;
+import br.eti.allandemiranda.forex.events.TickReceivedEvent;
+import br.eti.allandemiranda.forex.services.MetricsService;
+import br.eti.allandemiranda.forex.services.OrderService;
+import br.eti.allandemiranda.forex.services.SnapshotService;
 import br.eti.allandemiranda.forex.services.TicketService;
+import br.eti.allandemiranda.forex.utils.SignalTape;
+import jakarta.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.util.Objects;
 import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.Synchronized;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 
@@ -20,14 +28,45 @@ public class GeneratorProcessor {
   private final ChartProcessor chartProcessor;
   private final IndicatorsProcessor indicatorsProcessor;
   private final OrderProcessor orderProcessor;
+  private final MetricsService metricsService;
+  private final OrderService orderService;
+  private final SnapshotService snapshotService;
+  private final ObjectProvider<SignalTape> signalTapeProvider;
+
+  @Setter(AccessLevel.PRIVATE)
+  private boolean indicatorsActive = true;
+  @Setter(AccessLevel.PRIVATE)
+  private boolean signalRecorder = false;
 
   @Autowired
   protected GeneratorProcessor(final TicketService ticketService, final ChartProcessor chartProcessor, final IndicatorsProcessor indicatorsProcessor,
-      final OrderProcessor orderProcessor) {
+      final OrderProcessor orderProcessor, final MetricsService metricsService, final OrderService orderService, final SnapshotService snapshotService,
+      final ObjectProvider<SignalTape> signalTapeProvider) {
     this.ticketService = ticketService;
     this.chartProcessor = chartProcessor;
     this.indicatorsProcessor = indicatorsProcessor;
     this.orderProcessor = orderProcessor;
+    this.metricsService = metricsService;
+    this.orderService = orderService;
+    this.snapshotService = snapshotService;
+    this.signalTapeProvider = signalTapeProvider;
+  }
+
+  @PostConstruct
+  private void init() {
+    // A recorded signal tape already have the result of the indicators for this ticks
+    final SignalTape signalTape = this.getSignalTapeProvider().getIfAvailable();
+    this.setIndicatorsActive(Objects.isNull(signalTape) || !signalTape.isRecorded());
+    this.setSignalRecorder(Objects.nonNull(signalTape) && !signalTape.isRecorded());
+  }
+
+  /**
+   * Number of ticks of the input already processed, a run restored from a snapshot continues the input after them
+   *
+   * @return The offset of the next tick on the input
+   */
+  public long getNumberOfTicks() {
+    return this.getTicketService().getNumberOfTicks();
   }
 
   /**
@@ -39,14 +78,33 @@ public class GeneratorProcessor {
    */
   @Synchronized
   public void webSocket(final LocalDateTime time, final Double bid, final Double ask) {
+    // A stopped run skips the rest of the ticks, unless it records the signals to other runs
+    if (this.getOrderService().isStopped() && !this.isSignalRecorder()) {
+      return;
+    }
     final LocalDateTime dateTime = Objects.isNull(time) ? LocalDateTime.MIN : time;
     final double bidFixed = Objects.isNull(bid) ? 0d : bid;
     final double askFixed = Objects.isNull(ask) ? 0d : ask;
+    final long ticketStart = this.getMetricsService().start();
     final boolean updatedData = this.getTicketService().updateData(dateTime, bidFixed, askFixed);
+    this.getMetricsService().record(MetricsService.TICKET, ticketStart);
     if (updatedData) {
+      this.getMetricsService().addTick();
+      if (TickReceivedEvent.isRecording()) {
+        TickReceivedEvent.commit(this.getTicketService().getTicket());
+      }
+      final long chartStart = this.getMetricsService().start();
       this.getChartProcessor().run();
-      this.getIndicatorsProcessor().run();
+      this.getMetricsService().record(MetricsService.CHART, chartStart);
+      if (this.isIndicatorsActive()) {
+        final long indicatorsStart = this.getMetricsService().start();
+        this.getIndicatorsProcessor().run();
+        this.getMetricsService().record(MetricsService.INDICATORS, indicatorsStart);
+      }
+      final long orderStart = this.getMetricsService().start();
       this.getOrderProcessor().run();
+      this.getMetricsService().record(MetricsService.ORDER, orderStart);
+      this.getSnapshotService().checkpoint();
     }
   }
 }
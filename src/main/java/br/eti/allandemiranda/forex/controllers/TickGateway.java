@@ -0,0 +1,290 @@
+package br.eti.allandemiranda.forex.controllers;
+
+import br.eti.allandemiranda.forex.enums.Backpressure;
+import br.eti.allandemiranda.forex.exceptions.ServiceException;
+import br.eti.allandemiranda.forex.utils.TickDataset;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.Channel;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Local TCP gateway of live ticks. The feed bridge sends one tick by line on the format of the MetaTrader export ({@code DATE TIME BID ASK} separated by tab,
+ * the header line is ignored), each connection is read on its own virtual thread and the ticks are put on one bounded queue, consumed by one thread that sends
+ * them to the {@link GeneratorProcessor}.
+ * <p>
+ * When the queue is full the connection waits for space ({@code BLOCK}, the sender is slowed down by TCP) or the oldest tick of the queue is dropped
+ * ({@code DROP_OLDEST}, the last prices are kept). The statistics of each connection are written on the log when it ends.
+ * <p>
+ * The gateway is served after the application is started, so the shutdown can close the server and the connections. A failure of the consumer also closes
+ * them and ends the serve with the failure.
+ */
+@Controller
+@Getter(AccessLevel.PRIVATE)
+@Slf4j
+public class TickGateway implements ApplicationRunner {
+
+  private static final String HEADER_PREFIX = "<";
+  private static final String COLUMN_SEPARATOR = "\t";
+  private static final long POLL_MILLISECONDS = 100L;
+
+  private final GeneratorProcessor generatorProcessor;
+
+  @Getter(AccessLevel.PUBLIC)
+  @Value("${config.gateway.active:false}")
+  private boolean active;
+  @Value("${config.gateway.host:127.0.0.1}")
+  private String host;
+  @Value("${config.gateway.port:7070}")
+  private int port;
+  @Value("${config.gateway.queue:65536}")
+  private int queueSize;
+  @Value("${config.gateway.backpressure:BLOCK}")
+  private Backpressure backpressure;
+  // Number of connections to serve before the gateway stops (zero to serve until the shutdown)
+  @Value("${config.gateway.sessions:0}")
+  private int sessions;
+
+  // The open connections, closed on the stop
+  private final Set<SocketChannel> socketChannels = ConcurrentHashMap.newKeySet();
+  @Setter(AccessLevel.PRIVATE)
+  private volatile ServerSocketChannel serverSocketChannel;
+  @Setter(AccessLevel.PRIVATE)
+  private volatile boolean running = false;
+  @Setter(AccessLevel.PRIVATE)
+  private volatile RuntimeException failure;
+  // Count down when the serve ends, the shutdown waits the ticks of the queue
+  @Setter(AccessLevel.PRIVATE)
+  private volatile CountDownLatch served;
+
+  @Autowired
+  protected TickGateway(final GeneratorProcessor generatorProcessor) {
+    this.generatorProcessor = generatorProcessor;
+  }
+
+  @Override
+  public void run(final ApplicationArguments args) {
+    if (this.isActive()) {
+      this.serve();
+    }
+  }
+
+  /**
+   * Receive the ticks of the connections until the number of sessions or the {@link #stop()}, the ticks already on the queue are processed before the return
+   *
+   * @throws RuntimeException The failure of the processing of a tick
+   */
+  public void serve() {
+    final BlockingQueue<GatewayTick> queue = new ArrayBlockingQueue<>(Math.max(1, this.getQueueSize()));
+    final List<Connection> connections = new ArrayList<>();
+    this.setServed(new CountDownLatch(1));
+    this.setFailure(null);
+    this.setRunning(true);
+    final Thread consumer = new Thread(() -> this.consume(queue), "tick-gateway");
+    consumer.start();
+    try (final ServerSocketChannel server = ServerSocketChannel.open(); final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      server.bind(new InetSocketAddress(this.getHost(), this.getPort()));
+      this.setServerSocketChannel(server);
+      log.info("=GATEWAY=LISTEN={}={}=", server.getLocalAddress(), this.getBackpressure());
+      while (this.getSessions() <= 0 || connections.size() < this.getSessions()) {
+        final SocketChannel socketChannel = server.accept();
+        final Connection connection = new Connection(connections.size() + 1, socketChannel.getRemoteAddress());
+        connections.add(connection);
+        this.getSocketChannels().add(socketChannel);
+        // A connection accepted during the stop is closed by it or here
+        if (!server.isOpen()) {
+          close(socketChannel);
+        }
+        executor.execute(() -> this.receive(socketChannel, connection, queue));
+      }
+      // The executor waits for the connections before it is closed
+    } catch (ClosedChannelException e) {
+      log.info("=GATEWAY=CLOSED=");
+    } catch (IOException e) {
+      throw new ServiceException("Can't listen on " + this.getHost() + ":" + this.getPort(), e);
+    } finally {
+      this.setRunning(false);
+      try {
+        consumer.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      log.info("=GATEWAY=END=CONNECTIONS={}=RECEIVED={}=DROPPED={}=REJECTED={}=", connections.size(),
+          connections.stream().mapToLong(connection -> connection.getReceived().sum()).sum(),
+          connections.stream().mapToLong(connection -> connection.getDropped().sum()).sum(),
+          connections.stream().mapToLong(connection -> connection.getRejected().sum()).sum());
+      this.getServed().countDown();
+    }
+    if (Objects.nonNull(this.getFailure())) {
+      throw this.getFailure();
+    }
+  }
+
+  /**
+   * Close the server and the open connections, the {@link #serve()} ends after the ticks already on the queue
+   */
+  public void stop() {
+    final ServerSocketChannel server = this.getServerSocketChannel();
+    if (Objects.nonNull(server)) {
+      close(server);
+    }
+    this.getSocketChannels().forEach(TickGateway::close);
+  }
+
+  private static void close(final @NotNull Channel channel) {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      log.warn("Can't close the gateway channel: {}", e.getMessage());
+    }
+  }
+
+  private void receive(final @NotNull SocketChannel socketChannel, final @NotNull Connection connection, final @NotNull BlockingQueue<GatewayTick> queue) {
+    log.info("=GATEWAY=CONNECTION={}=OPEN={}=", connection.getId(), connection.getRemoteAddress());
+    try (socketChannel; final BufferedReader reader = new BufferedReader(
+        new InputStreamReader(Channels.newInputStream(socketChannel), StandardCharsets.US_ASCII))) {
+      String line;
+      while (Objects.isNull(this.getFailure()) && (line = reader.readLine()) != null) {
+        final GatewayTick tick = toTick(line, connection);
+        if (Objects.nonNull(tick)) {
+          connection.getReceived().increment();
+          this.offer(queue, tick);
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Connection {} ended with error: {}", connection.getId(), e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      this.getSocketChannels().remove(socketChannel);
+      log.info("=GATEWAY=CONNECTION={}=CLOSE=RECEIVED={}=DROPPED={}=REJECTED={}=BLOCKED_MS={}=SECONDS={}=", connection.getId(), connection.getReceived().sum(),
+          connection.getDropped().sum(), connection.getRejected().sum(), connection.getBlockedNanos().get() / 1_000_000L,
+          (System.nanoTime() - connection.getStart()) / 1_000_000_000d);
+    }
+  }
+
+  private void offer(final @NotNull BlockingQueue<GatewayTick> queue, final @NotNull GatewayTick tick) throws InterruptedException {
+    if (queue.offer(tick)) {
+      return;
+    }
+    if (Backpressure.BLOCK.equals(this.getBackpressure())) {
+      final long start = System.nanoTime();
+      while (!queue.offer(tick, POLL_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+        // The consumer stopped, the tick is lost with the connection
+        if (Objects.nonNull(this.getFailure())) {
+          return;
+        }
+      }
+      tick.connection().getBlockedNanos().addAndGet(System.nanoTime() - start);
+      return;
+    }
+    while (!queue.offer(tick)) {
+      final GatewayTick dropped = queue.poll();
+      if (Objects.nonNull(dropped)) {
+        dropped.connection().getDropped().increment();
+      }
+    }
+  }
+
+  private void consume(final @NotNull BlockingQueue<GatewayTick> queue) {
+    try {
+      while (this.isRunning() || !queue.isEmpty()) {
+        final GatewayTick tick = queue.poll(POLL_MILLISECONDS, TimeUnit.MILLISECONDS);
+        if (Objects.nonNull(tick)) {
+          this.getGeneratorProcessor().webSocket(tick.dateTime(), tick.bid(), tick.ask());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.error("The gateway stopped on the failure of a tick: {}", e.getMessage());
+      this.setFailure(e);
+      this.stop();
+    }
+  }
+
+  private static GatewayTick toTick(final @NotNull String line, final @NotNull Connection connection) {
+    if (line.isBlank() || line.startsWith(HEADER_PREFIX)) {
+      return null;
+    }
+    final String[] columns = line.split(COLUMN_SEPARATOR, -1);
+    try {
+      if (columns.length < 4) {
+        throw new IllegalArgumentException("Expected the date, time, BID and ASK");
+      }
+      final LocalDateTime dateTime = TickDataset.toDateTime(columns[0], columns[1]);
+      final Double bid = columns[2].isEmpty() ? null : Double.parseDouble(columns[2]);
+      final Double ask = columns[3].isEmpty() ? null : Double.parseDouble(columns[3]);
+      return new GatewayTick(dateTime, bid, ask, connection);
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      connection.getRejected().increment();
+      return null;
+    }
+  }
+
+  @PreDestroy
+  private void preDestroy() throws InterruptedException {
+    this.stop();
+    final CountDownLatch latch = this.getServed();
+    if (Objects.nonNull(latch)) {
+      latch.await();
+    }
+  }
+
+  /**
+   * Statistics of one connection, updated by its thread and by the threads that drop its ticks
+   */
+  @Getter(AccessLevel.PRIVATE)
+  private static final class Connection {
+
+    private final int id;
+    private final SocketAddress remoteAddress;
+    private final long start = System.nanoTime();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong blockedNanos = new AtomicLong();
+
+    private Connection(final int id, final SocketAddress remoteAddress) {
+      this.id = id;
+      this.remoteAddress = remoteAddress;
+    }
+  }
+
+  private record GatewayTick(@NotNull LocalDateTime dateTime, Double bid, Double ask, @NotNull Connection connection) {
+
+  }
+}
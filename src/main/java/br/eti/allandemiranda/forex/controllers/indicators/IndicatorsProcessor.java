@@ -4,11 +4,16 @@ import br.eti.allandemiranda.forex.controllers.indicators.trend.AceleradorOscila
 import br.eti.allandemiranda.forex.controllers.indicators.trend.AverageDirectionalMovementIndex;
 import br.eti.allandemiranda.forex.controllers.indicators.trend.MovingAverageConvergenceDivergence;
 import br.eti.allandemiranda.forex.controllers.indicators.trend.TradingPerformance;
+import br.eti.allandemiranda.forex.enums.IndicatorTrend;
 import br.eti.allandemiranda.forex.enums.SignalTrend;
-import br.eti.allandemiranda.forex.exceptions.IndicatorsException;
+import br.eti.allandemiranda.forex.events.IndicatorComputedEvent;
+import br.eti.allandemiranda.forex.events.SignalGeneratedEvent;
 import br.eti.allandemiranda.forex.services.CandlestickService;
+import br.eti.allandemiranda.forex.services.DigestService;
 import br.eti.allandemiranda.forex.services.IndicatorService;
+import br.eti.allandemiranda.forex.services.MetricsService;
 import br.eti.allandemiranda.forex.services.SignalService;
+import br.eti.allandemiranda.forex.utils.Tools;
 import jakarta.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import lombok.AccessLevel;
@@ -33,11 +38,14 @@ public class IndicatorsProcessor {
   private final SignalService signalService;
   private final CandlestickService candlestickService;
   private final TradingPerformance tradingPerformance;
+  private final MetricsService metricsService;
+  private final DigestService digestService;
 
   @Autowired
   protected IndicatorsProcessor(final AverageDirectionalMovementIndex averageDirectionalMovementIndex, final AceleradorOscilador aceleradorOscilador,
       final MovingAverageConvergenceDivergence movingAverageConvergenceDivergence, final IndicatorService indicatorService, final SignalService signalService,
-      final CandlestickService candlestickService, final TradingPerformance tradingPerformance) {
+      final CandlestickService candlestickService, final TradingPerformance tradingPerformance, final MetricsService metricsService,
+      final DigestService digestService) {
     this.averageDirectionalMovementIndex = averageDirectionalMovementIndex;
     this.aceleradorOscilador = aceleradorOscilador;
     this.movingAverageConvergenceDivergence = movingAverageConvergenceDivergence;
@@ -45,6 +53,8 @@ public class IndicatorsProcessor {
     this.signalService = signalService;
     this.candlestickService = candlestickService;
     this.tradingPerformance = tradingPerformance;
+    this.metricsService = metricsService;
+    this.digestService = digestService;
   }
 
   /**
@@ -65,7 +75,12 @@ public class IndicatorsProcessor {
     if (this.getCandlestickService().isReady()) {
       final LocalDateTime lastCandleDataTime = this.getCandlestickService().getLastCloseCandlestick().dateTime();
       if (this.getSignalService().getLastSignal().dataTime().isBefore(lastCandleDataTime)) {
+        this.getMetricsService().addBarClosed();
         indicatorCalculation(lastCandleDataTime);
+        if (SignalGeneratedEvent.isRecording()) {
+          SignalGeneratedEvent.commit(this.getSignalService().getLastSignal());
+        }
+        this.getDigestService().addBar();
       }
     }
   }
@@ -100,7 +115,12 @@ public class IndicatorsProcessor {
    * @return The power trend values
    */
   private int getPowerIndicatorValue() {
-    return this.getIndicatorService().getIndicators().values().stream().map(Indicator::getSignal).mapToInt(indicatorTrend -> switch (indicatorTrend) {
+    return this.getIndicatorService().getIndicators().entrySet().stream().map(entry -> {
+      final long start = this.getMetricsService().start();
+      final IndicatorTrend trend = entry.getValue().getSignal();
+      this.getMetricsService().recordIndicatorSignal(entry.getKey(), start);
+      return trend;
+    }).mapToInt(indicatorTrend -> switch (indicatorTrend) {
       case SELL -> -1;
       case BUY -> 1;
       case NEUTRAL -> 0;
@@ -108,21 +128,18 @@ public class IndicatorsProcessor {
   }
 
   /**
-   * Function to run the Indicators calculation
+   * Function to run the Indicators calculation. The threads are joined by the caller thread, joining inside a parallel stream blocks the common pool workers that the
+   * indicators need for their own parallel streams.
    */
   private void mathCalculationIndicators() {
-    this.getIndicatorService().getIndicators().entrySet().parallelStream().map(entry -> {
-      Thread thread = new Thread(entry.getValue(), entry.getKey());
-      thread.start();
-      return thread;
-    }).forEachOrdered(thread -> {
-      try {
-        thread.join();
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        throw new IndicatorsException(e);
-      }
-    });
+    Tools.startThreadsUnstated(this.getIndicatorService().getIndicators().entrySet().stream().map(entry -> new Thread(() -> {
+      final IndicatorComputedEvent event = new IndicatorComputedEvent(entry.getKey());
+      event.begin();
+      final long start = this.getMetricsService().start();
+      entry.getValue().run();
+      this.getMetricsService().recordIndicatorRun(entry.getKey(), start);
+      event.commit();
+    }, entry.getKey())).toArray(Thread[]::new));
   }
 }
 
@@ -1,12 +1,19 @@
 package br.eti.allandemiranda.forex.controllers.order;
 
+import br.eti.allandemiranda.forex.dtos.Signal;
+import br.eti.allandemiranda.forex.dtos.Ticket;
 import br.eti.allandemiranda.forex.services.OrderService;
 import br.eti.allandemiranda.forex.services.SignalService;
 import br.eti.allandemiranda.forex.services.TicketService;
 import br.eti.allandemiranda.forex.services.TradingPerformanceService;
+import br.eti.allandemiranda.forex.utils.SignalTape;
+import jakarta.annotation.PostConstruct;
+import java.util.Objects;
 import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.Synchronized;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 
@@ -18,18 +25,49 @@ public class OrderProcessor {
   private final TicketService ticketService;
   private final OrderService orderService;
   private final TradingPerformanceService tradingPerformanceService;
+  private final ObjectProvider<SignalTape> signalTapeProvider;
+
+  @Setter(AccessLevel.PRIVATE)
+  private SignalTape signalTape;
+  @Setter(AccessLevel.PRIVATE)
+  private int signalTapeIndex = 0;
 
   @Autowired
   protected OrderProcessor(final SignalService signalService, final TicketService ticketService, final OrderService orderService,
-      final TradingPerformanceService tradingPerformanceService) {
+      final TradingPerformanceService tradingPerformanceService, final ObjectProvider<SignalTape> signalTapeProvider) {
     this.signalService = signalService;
     this.ticketService = ticketService;
     this.orderService = orderService;
     this.tradingPerformanceService = tradingPerformanceService;
+    this.signalTapeProvider = signalTapeProvider;
+  }
+
+  @PostConstruct
+  private void init() {
+    this.setSignalTape(this.getSignalTapeProvider().getIfAvailable());
   }
 
   @Synchronized
   public void run() {
-    this.getOrderService().insertTicketAndSignal(this.getTicketService().getTicket(), this.getSignalService().getLastSignal(), this.getTradingPerformanceService().getDiff(this.getTicketService().getTicket().digits()));
+    // The book can have orders restored from the journal, so they are only valued with a complete ticket
+    if (this.getTicketService().isReady()) {
+      final Ticket ticket = this.getTicketService().getTicket();
+      if (Objects.nonNull(this.getSignalTape()) && this.getSignalTape().isRecorded()) {
+        // The indicators were not processed on this run, the signals came from the run with the same indicator parameters
+        final int index = this.getSignalTapeIndex();
+        this.setSignalTapeIndex(index + 1);
+        this.getOrderService().insertTicketAndSignal(ticket, this.getSignalTape().getSignal(index), this.getSignalTape().getTradingDiff(index));
+      } else {
+        final Signal signal = this.getSignalService().getLastSignal();
+        final int tradingDiff = this.getTradingPerformanceService().getDiff(ticket.digits());
+        if (Objects.nonNull(this.getSignalTape())) {
+          this.getSignalTape().add(ticket.dateTime(), signal, tradingDiff);
+        }
+        // A stopped run only records the signals to the other runs
+        if (!this.getOrderService().isStopped()) {
+          this.getOrderService().insertTicketAndSignal(ticket, signal, tradingDiff);
+        }
+      }
+    }
   }
 }
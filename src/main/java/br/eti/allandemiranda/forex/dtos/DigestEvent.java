@@ -0,0 +1,19 @@
+package br.eti.allandemiranda.forex.dtos;
+
+import java.time.LocalDateTime;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * One event of the state digest
+ *
+ * @param number   The event number since the start of the run
+ * @param dateTime The ticket date time of the event
+ * @param type     The event type (bar, open, close, ...)
+ * @param values   The values added to the digest
+ * @param digest   The digest after the event
+ */
+@Accessors(fluent = true)
+public record DigestEvent(long number, @NotNull LocalDateTime dateTime, @NotNull String type, @NotNull String values, long digest) {
+
+}
@@ -0,0 +1,27 @@
+package br.eti.allandemiranda.forex.dtos;
+
+import lombok.experimental.Accessors;
+
+/**
+ * Exit rules of an order, all values in points (zero disables the trailing stop and the break-even)
+ *
+ * @param takeProfit          Distance of the take profit from the open price
+ * @param stopLoss            Distance of the initial stop loss from the open price
+ * @param trailingDistance    Distance of the trailing stop from the close price
+ * @param trailingActivation  Profit to start the trailing stop
+ * @param trailingStep        Minimal move of the trailing stop
+ * @param breakEvenActivation Profit to move the stop loss to the open price
+ * @param breakEvenOffset     Profit locked by the break-even stop loss
+ */
+@Accessors(fluent = true)
+public record OrderSafe(int takeProfit, int stopLoss, int trailingDistance, int trailingActivation, int trailingStep, int breakEvenActivation,
+                        int breakEvenOffset) {
+
+  public boolean isTrailing() {
+    return this.trailingDistance() > 0;
+  }
+
+  public boolean isBreakEven() {
+    return this.breakEvenActivation() > 0;
+  }
+}
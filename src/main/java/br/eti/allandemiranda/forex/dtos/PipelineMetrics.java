@@ -0,0 +1,11 @@
+package br.eti.allandemiranda.forex.dtos;
+
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+import lombok.experimental.Accessors;
+
+@Accessors(fluent = true)
+public record PipelineMetrics(long elapsedNanos, long ticks, double ticksPerSecond, long barsClosed, long ordersOpened, long ordersClosed,
+                              @NotNull List<StageLatency> stages) {
+
+}
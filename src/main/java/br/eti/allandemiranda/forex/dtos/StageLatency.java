@@ -0,0 +1,9 @@
+package br.eti.allandemiranda.forex.dtos;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.experimental.Accessors;
+
+@Accessors(fluent = true)
+public record StageLatency(@NotNull String stage, long count, long mean, long p50, long p90, long p99, long p999, long max) {
+
+}
@@ -0,0 +1,5 @@
+package br.eti.allandemiranda.forex.enums;
+
+public enum Backpressure {
+  BLOCK, DROP_OLDEST
+}
@@ -0,0 +1,5 @@
+package br.eti.allandemiranda.forex.enums;
+
+public enum FitnessMetric {
+  BALANCE, PROFIT_FACTOR, EXPECTANCY, SHARPE, SORTINO, RECOVERY_FACTOR
+}
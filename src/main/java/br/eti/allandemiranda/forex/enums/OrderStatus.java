@@ -1,5 +1,5 @@
 package br.eti.allandemiranda.forex.enums;
 
 public enum OrderStatus {
-  OPEN, CLOSE_SL, CLOSE_TP
+  OPEN, CLOSE_SL, CLOSE_TP, PENDING, EXPIRED
 }
@@ -1,11 +1,13 @@
 package br.eti.allandemiranda.forex.enums;
 
 public enum TimeFrame {
-  M1("M1"), M5("M5"), M15("M15"), M30("M30"), H1("H1"), H2("H2"), D1("D1");
+  M1("M1", 1), M5("M5", 5), M15("M15", 15), M30("M30", 30), H1("H1", 60), H2("H2", 120), D1("D1", 1440);
 
   public final String label;
+  public final int minutes;
 
-  TimeFrame(String label) {
+  TimeFrame(String label, int minutes) {
     this.label = label;
+    this.minutes = minutes;
   }
 }
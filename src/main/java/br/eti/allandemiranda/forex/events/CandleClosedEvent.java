@@ -0,0 +1,60 @@
+package br.eti.allandemiranda.forex.events;
+
+import br.eti.allandemiranda.forex.entities.CandlestickEntity;
+import java.time.ZoneOffset;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timestamp;
+import org.jetbrains.annotations.NotNull;
+
+@Name("br.eti.allandemiranda.forex.CandleClosed")
+@Label("Candle Closed")
+@Category({"Forex", "Pipeline"})
+@StackTrace(false)
+public class CandleClosedEvent extends Event {
+
+  @Label("Candle Time")
+  @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+  private long candleDateTime;
+  @Label("Open")
+  private double open;
+  @Label("High")
+  private double high;
+  @Label("Low")
+  private double low;
+  @Label("Close")
+  private double close;
+  @Label("Bar Number")
+  private long numberOfBar;
+
+  /**
+   * Check before building the values of the event, so a run without recording pays nothing more
+   *
+   * @return If the recording is enabled to this event type
+   */
+  public static boolean isRecording() {
+    return new CandleClosedEvent().isEnabled();
+  }
+
+  /**
+   * Commit the event if the recording is enabled to this event type
+   *
+   * @param entity      The candlestick closed
+   * @param numberOfBar The number of bars opened on the chart
+   */
+  public static void commit(final @NotNull CandlestickEntity entity, final long numberOfBar) {
+    final CandleClosedEvent event = new CandleClosedEvent();
+    if (event.isEnabled()) {
+      event.candleDateTime = entity.getDateTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+      event.open = entity.getOpen().doubleValue();
+      event.high = entity.getHigh().doubleValue();
+      event.low = entity.getLow().doubleValue();
+      event.close = entity.getClose().doubleValue();
+      event.numberOfBar = numberOfBar;
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package br.eti.allandemiranda.forex.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Duration of an indicator calculation, use {@link #begin()} before the calculation and {@link #commit()} after
+ */
+@Name("br.eti.allandemiranda.forex.IndicatorComputed")
+@Label("Indicator Computed")
+@Category({"Forex", "Pipeline"})
+@StackTrace(false)
+public class IndicatorComputedEvent extends Event {
+
+  @Label("Indicator")
+  private final String indicator;
+
+  public IndicatorComputedEvent(final String indicator) {
+    this.indicator = indicator;
+  }
+}
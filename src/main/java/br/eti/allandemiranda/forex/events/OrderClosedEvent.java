@@ -0,0 +1,66 @@
+package br.eti.allandemiranda.forex.events;
+
+import br.eti.allandemiranda.forex.dtos.Order;
+import java.time.ZoneOffset;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timestamp;
+import org.jetbrains.annotations.NotNull;
+
+@Name("br.eti.allandemiranda.forex.OrderClosed")
+@Label("Order Closed")
+@Category({"Forex", "Order"})
+@StackTrace(false)
+public class OrderClosedEvent extends Event {
+
+  @Label("Order Id")
+  private long orderId;
+  @Label("Open Time")
+  @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+  private long openDateTime;
+  @Label("Close Time")
+  @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+  private long closeDateTime;
+  @Label("Position")
+  private String orderPosition;
+  @Label("Status")
+  private String orderStatus;
+  @Label("Close Price")
+  private double closePrice;
+  @Label("Profit")
+  private int currentProfit;
+  @Label("Swap")
+  private double swapProfit;
+
+  /**
+   * Check before building the values of the event, so a run without recording pays nothing more
+   *
+   * @return If the recording is enabled to this event type
+   */
+  public static boolean isRecording() {
+    return new OrderClosedEvent().isEnabled();
+  }
+
+  /**
+   * Commit the event if the recording is enabled to this event type
+   *
+   * @param order The order closed
+   */
+  public static void commit(final @NotNull Order order) {
+    final OrderClosedEvent event = new OrderClosedEvent();
+    if (event.isEnabled()) {
+      event.orderId = order.orderId();
+      event.openDateTime = order.openDateTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+      event.closeDateTime = order.lastUpdateDateTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+      event.orderPosition = order.orderPosition().toString();
+      event.orderStatus = order.orderStatus().toString();
+      event.closePrice = order.closePrice().doubleValue();
+      event.currentProfit = order.currentProfit();
+      event.swapProfit = order.swapProfit().doubleValue();
+      event.commit();
+    }
+  }
+}
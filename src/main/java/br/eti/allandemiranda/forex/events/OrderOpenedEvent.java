@@ -0,0 +1,56 @@
+package br.eti.allandemiranda.forex.events;
+
+import br.eti.allandemiranda.forex.dtos.Order;
+import java.time.ZoneOffset;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timestamp;
+import org.jetbrains.annotations.NotNull;
+
+@Name("br.eti.allandemiranda.forex.OrderOpened")
+@Label("Order Opened")
+@Category({"Forex", "Order"})
+@StackTrace(false)
+public class OrderOpenedEvent extends Event {
+
+  @Label("Order Id")
+  private long orderId;
+  @Label("Open Time")
+  @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+  private long openDateTime;
+  @Label("Position")
+  private String orderPosition;
+  @Label("Signal Trend")
+  private String signalTrend;
+  @Label("Open Price")
+  private double openPrice;
+
+  /**
+   * Check before building the values of the event, so a run without recording pays nothing more
+   *
+   * @return If the recording is enabled to this event type
+   */
+  public static boolean isRecording() {
+    return new OrderOpenedEvent().isEnabled();
+  }
+
+  /**
+   * Commit the event if the recording is enabled to this event type
+   *
+   * @param order The order opened
+   */
+  public static void commit(final @NotNull Order order) {
+    final OrderOpenedEvent event = new OrderOpenedEvent();
+    if (event.isEnabled()) {
+      event.orderId = order.orderId();
+      event.openDateTime = order.openDateTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+      event.orderPosition = order.orderPosition().toString();
+      event.signalTrend = order.signalTrend().toString();
+      event.openPrice = order.openPrice().doubleValue();
+      event.commit();
+    }
+  }
+}
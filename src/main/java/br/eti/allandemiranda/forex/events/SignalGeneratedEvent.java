@@ -0,0 +1,47 @@
+package br.eti.allandemiranda.forex.events;
+
+import br.eti.allandemiranda.forex.dtos.Signal;
+import java.time.ZoneOffset;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timestamp;
+import org.jetbrains.annotations.NotNull;
+
+@Name("br.eti.allandemiranda.forex.SignalGenerated")
+@Label("Signal Generated")
+@Category({"Forex", "Pipeline"})
+@StackTrace(false)
+public class SignalGeneratedEvent extends Event {
+
+  @Label("Candle Time")
+  @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+  private long candleDateTime;
+  @Label("Trend")
+  private String trend;
+
+  /**
+   * Check before building the values of the event, so a run without recording pays nothing more
+   *
+   * @return If the recording is enabled to this event type
+   */
+  public static boolean isRecording() {
+    return new SignalGeneratedEvent().isEnabled();
+  }
+
+  /**
+   * Commit the event if the recording is enabled to this event type
+   *
+   * @param signal The signal generated
+   */
+  public static void commit(final @NotNull Signal signal) {
+    final SignalGeneratedEvent event = new SignalGeneratedEvent();
+    if (event.isEnabled()) {
+      event.candleDateTime = signal.dataTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+      event.trend = signal.trend().toString();
+      event.commit();
+    }
+  }
+}
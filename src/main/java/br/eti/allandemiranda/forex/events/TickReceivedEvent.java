@@ -0,0 +1,53 @@
+package br.eti.allandemiranda.forex.events;
+
+import br.eti.allandemiranda.forex.dtos.Ticket;
+import java.time.ZoneOffset;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timestamp;
+import org.jetbrains.annotations.NotNull;
+
+@Name("br.eti.allandemiranda.forex.TickReceived")
+@Label("Tick Received")
+@Category({"Forex", "Pipeline"})
+@StackTrace(false)
+public class TickReceivedEvent extends Event {
+
+  @Label("Ticket Time")
+  @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+  private long ticketDateTime;
+  @Label("Bid")
+  private double bid;
+  @Label("Ask")
+  private double ask;
+  @Label("Spread")
+  private int spread;
+
+  /**
+   * Check before building the values of the event, so a run without recording pays nothing more
+   *
+   * @return If the recording is enabled to this event type
+   */
+  public static boolean isRecording() {
+    return new TickReceivedEvent().isEnabled();
+  }
+
+  /**
+   * Commit the event if the recording is enabled to this event type
+   *
+   * @param ticket The ticket received
+   */
+  public static void commit(final @NotNull Ticket ticket) {
+    final TickReceivedEvent event = new TickReceivedEvent();
+    if (event.isEnabled()) {
+      event.ticketDateTime = ticket.dateTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+      event.bid = ticket.bid().doubleValue();
+      event.ask = ticket.ask().doubleValue();
+      event.spread = ticket.spread();
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,5 @@
+package br.eti.allandemiranda.forex.headers;
+
+public enum MetricsHeader {
+  STAGE, COUNT, MEAN_NS, P50_NS, P90_NS, P99_NS, P999_NS, MAX_NS
+}
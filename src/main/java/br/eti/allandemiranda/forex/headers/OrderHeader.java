@@ -1,5 +1,5 @@
 package br.eti.allandemiranda.forex.headers;
 
 public enum OrderHeader {
-  OPEN_DATE_TIME, SIGNAL_DATE_TIME, SIGNAL_TREND, LAST_UPDATE_DATE_TIME, OPEN_TIME, ORDER_STATUS, ORDER_POSITION, TP_DIFF, OPEN_PRICE, CLOSE_PRICE, HIGH_PROFIT, LOW_PROFIT, CURRENT_PROFIT, SWAP_PROFIT, CURRENT_BALANCE
+  OPEN_DATE_TIME, SIGNAL_DATE_TIME, SIGNAL_TREND, LAST_UPDATE_DATE_TIME, OPEN_TIME, ORDER_STATUS, ORDER_POSITION, TP_DIFF, OPEN_PRICE, CLOSE_PRICE, HIGH_PROFIT, LOW_PROFIT, CURRENT_PROFIT, SWAP_PROFIT, CURRENT_BALANCE, ORDER_ID
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package br.eti.allandemiranda.forex.headers;
+
+public enum StatisticHeader {
+  TIME_FRAME, SLOT_OPEN_DAY, SLOT_OPEN_TIME, TP, SL, MAX_SPREAD, MIN_TRADING, ONLY_STRONG, WIN_PERCENT, WIN, LOSE, TOTAL_POSITION, CONSISTENCE_PERCENT,
+  NUMBER_OF_BAR, LOW_POINT, HIGH_POINT, FINAL_BALANCE, PROFIT_FACTOR, EXPECTANCY, MAX_CONSECUTIVE_LOSSES, MAX_DRAWDOWN, SHARPE, SORTINO
+}
@@ -2,6 +2,10 @@ package br.eti.allandemiranda.forex.repositories;
 
 import br.eti.allandemiranda.forex.dtos.AC;
 import br.eti.allandemiranda.forex.entities.AcEntity;
+import br.eti.allandemiranda.forex.utils.BinaryTools;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.TreeSet;
@@ -14,7 +18,7 @@ import org.springframework.stereotype.Repository;
 @Repository
 @Getter(AccessLevel.PRIVATE)
 @Setter(AccessLevel.PRIVATE)
-public class AcRepository {
+public class AcRepository implements StateSnapshot {
 
   private static final int MEMORY_SIZE = 2;
   private final TreeSet<AcEntity> dataBase = new TreeSet<>();
@@ -51,6 +55,30 @@ public class AcRepository {
     return this.getDataBase().stream().map(this::toModel).toArray(AC[]::new);
   }
 
+  @Override
+  public void writeSnapshot(final @NotNull DataOutput output) throws IOException {
+    output.writeInt(this.getDataBase().size());
+    for (final AcEntity entity : this.getDataBase()) {
+      BinaryTools.writeDateTime(output, entity.getDateTime());
+      BinaryTools.writeBigDecimal(output, entity.getValue());
+    }
+  }
+
+  @Override
+  public void readSnapshot(final @NotNull DataInput input) throws IOException {
+    this.getDataBase().clear();
+    final int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      final AcEntity entity = new AcEntity();
+      entity.setDateTime(BinaryTools.readDateTime(input));
+      entity.setValue(BinaryTools.readBigDecimal(input));
+      this.getDataBase().add(entity);
+    }
+    while (this.getDataBase().size() > MEMORY_SIZE) {
+      this.getDataBase().pollLast();
+    }
+  }
+
   /**
    * Convert an entity in a model
    *
@@ -0,0 +1,178 @@
+package br.eti.allandemiranda.forex.repositories;
+
+import br.eti.allandemiranda.forex.utils.PortfolioLedger;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Objects;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Synchronized;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Account ledger in fixed point units (points scaled by the decimals of the swap values), so every update is a primitive sum and the balances are exact. The
+ * realized balance changes when an order is closed and the floating profit when the open orders are valued, the equity (realized and floating) is the balance
+ * reported by the orders and statistics.
+ * <p>
+ * On an engine of many symbols the changes are added to the account of the symbol on the shared {@link PortfolioLedger} too.
+ */
+@Repository
+@Getter
+public class AccountRepository implements StateSnapshot {
+
+  @Getter(AccessLevel.NONE)
+  private long unit = 1L;
+  private int scale = 0;
+  private long realizedBalance = 0L;
+  private long floatingProfit = 0L;
+  private long highEquity = 0L;
+  private long lowEquity = 0L;
+  private long peakEquity = 0L;
+  private long maxDrawdown = 0L;
+  private int openPositions = 0;
+  @Getter(AccessLevel.NONE)
+  private final PortfolioLedger.SymbolLedger symbolLedger;
+
+  @Autowired
+  protected AccountRepository(final @NotNull ObjectProvider<PortfolioLedger.SymbolLedger> symbolLedgerProvider) {
+    this.symbolLedger = symbolLedgerProvider.getIfAvailable();
+  }
+
+  /**
+   * Define the number of decimals of the units, it can only be done before the first value
+   *
+   * @param scale The number of decimals
+   */
+  @Synchronized
+  public void setScale(final int scale) {
+    if (scale < 0) {
+      throw new IllegalArgumentException("Scale must be positive");
+    }
+    this.scale = scale;
+    this.unit = BigDecimal.ONE.scaleByPowerOfTen(scale).longValueExact();
+  }
+
+  /**
+   * Convert points and swap units to the account units
+   *
+   * @param points The points
+   * @param swap   The swap in account units
+   * @return The value in account units
+   */
+  public long toUnits(final long points, final long swap) {
+    return points * this.unit + swap;
+  }
+
+  /**
+   * Convert a decimal value to account units
+   *
+   * @param value The value (without more decimals than the scale)
+   * @return The value in account units
+   */
+  public long toUnits(final @NotNull BigDecimal value) {
+    return value.setScale(this.getScale()).unscaledValue().longValueExact();
+  }
+
+  /**
+   * Convert account units to a decimal value
+   *
+   * @param units The value in account units
+   * @return The decimal value
+   */
+  public @NotNull BigDecimal toDecimal(final long units) {
+    return BigDecimal.valueOf(units, this.getScale());
+  }
+
+  /**
+   * Add the result of a closed order
+   *
+   * @param points The profit in points
+   * @param swap   The swap in account units
+   */
+  @Synchronized
+  public void addRealized(final long points, final long swap) {
+    final long units = this.toUnits(points, swap);
+    this.realizedBalance += units;
+    if (Objects.nonNull(this.symbolLedger)) {
+      this.symbolLedger.addRealized(units, this.scale);
+    }
+  }
+
+  /**
+   * Update the value of the open orders and the equity extremes
+   *
+   * @param points        The profit in points of all open orders
+   * @param swap          The swap in account units of all open orders
+   * @param openPositions The number of open orders
+   */
+  @Synchronized
+  public void setFloating(final long points, final long swap, final int openPositions) {
+    final long floating = this.toUnits(points, swap);
+    if (Objects.nonNull(this.symbolLedger)) {
+      this.symbolLedger.addFloating(floating - this.floatingProfit, this.scale, openPositions - this.openPositions);
+    }
+    this.floatingProfit = floating;
+    this.openPositions = openPositions;
+    final long equity = this.getEquity();
+    if (equity > this.highEquity) {
+      this.highEquity = equity;
+    } else if (equity < this.lowEquity) {
+      this.lowEquity = equity;
+    }
+    if (equity > this.peakEquity) {
+      this.peakEquity = equity;
+    } else if (this.peakEquity - equity > this.maxDrawdown) {
+      this.maxDrawdown = this.peakEquity - equity;
+    }
+  }
+
+  /**
+   * Realized balance with the floating profit
+   *
+   * @return The equity in account units
+   */
+  public long getEquity() {
+    return this.realizedBalance + this.floatingProfit;
+  }
+
+  @Override
+  @Synchronized
+  public void writeSnapshot(final @NotNull DataOutput output) throws IOException {
+    output.writeInt(this.scale);
+    output.writeLong(this.realizedBalance);
+    output.writeLong(this.floatingProfit);
+    output.writeLong(this.highEquity);
+    output.writeLong(this.lowEquity);
+    output.writeLong(this.peakEquity);
+    output.writeLong(this.maxDrawdown);
+    output.writeInt(this.openPositions);
+  }
+
+  @Override
+  @Synchronized
+  public void readSnapshot(final @NotNull DataInput input) throws IOException {
+    final int snapshotScale = input.readInt();
+    if (snapshotScale != this.scale) {
+      throw new IOException("The account units of the snapshot have " + snapshotScale + " decimals and the swap values " + this.scale);
+    }
+    final long realized = input.readLong();
+    final long floating = input.readLong();
+    this.highEquity = input.readLong();
+    this.lowEquity = input.readLong();
+    this.peakEquity = input.readLong();
+    this.maxDrawdown = input.readLong();
+    final int open = input.readInt();
+    if (Objects.nonNull(this.symbolLedger)) {
+      this.symbolLedger.addRealized(realized - this.realizedBalance, this.scale);
+      this.symbolLedger.addFloating(floating - this.floatingProfit, this.scale, open - this.openPositions);
+    }
+    this.realizedBalance = realized;
+    this.floatingProfit = floating;
+    this.openPositions = open;
+  }
+}
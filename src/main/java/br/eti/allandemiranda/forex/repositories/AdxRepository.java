@@ -1,7 +1,11 @@
 package br.eti.allandemiranda.forex.repositories;
 
 import br.eti.allandemiranda.forex.dtos.ADX;
+import br.eti.allandemiranda.forex.utils.BinaryTools;
 import jakarta.annotation.PostConstruct;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import lombok.AccessLevel;
@@ -13,7 +17,7 @@ import org.springframework.stereotype.Repository;
 @Repository
 @Getter(AccessLevel.PRIVATE)
 @Setter(AccessLevel.PRIVATE)
-public class AdxRepository {
+public class AdxRepository implements StateSnapshot {
 
   private LocalDateTime dateTime;
   private BigDecimal value;
@@ -48,4 +52,20 @@ public class AdxRepository {
   public @NotNull ADX get() {
     return new ADX(this.getDateTime(), this.getValue(), this.getDiPlus(), this.getDiMinus());
   }
+
+  @Override
+  public void writeSnapshot(final @NotNull DataOutput output) throws IOException {
+    BinaryTools.writeDateTime(output, this.getDateTime());
+    BinaryTools.writeBigDecimal(output, this.getValue());
+    BinaryTools.writeBigDecimal(output, this.getDiPlus());
+    BinaryTools.writeBigDecimal(output, this.getDiMinus());
+  }
+
+  @Override
+  public void readSnapshot(final @NotNull DataInput input) throws IOException {
+    this.setDateTime(BinaryTools.readDateTime(input));
+    this.setValue(BinaryTools.readBigDecimal(input));
+    this.setDiPlus(BinaryTools.readBigDecimal(input));
+    this.setDiMinus(BinaryTools.readBigDecimal(input));
+  }
 }
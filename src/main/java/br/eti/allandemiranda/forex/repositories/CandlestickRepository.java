@@ -2,6 +2,11 @@ package br.eti.allandemiranda.forex.repositories;
 
 import br.eti.allandemiranda.forex.dtos.Candlestick;
 import br.eti.allandemiranda.forex.entities.CandlestickEntity;
+import br.eti.allandemiranda.forex.events.CandleClosedEvent;
+import br.eti.allandemiranda.forex.utils.BinaryTools;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.TreeSet;
@@ -15,7 +20,7 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 @Getter(AccessLevel.PRIVATE)
-public class CandlestickRepository {
+public class CandlestickRepository implements StateSnapshot {
 
   private final TreeSet<CandlestickEntity> dataBase = new TreeSet<>();
   @Getter(AccessLevel.PUBLIC)
@@ -58,6 +63,9 @@ public class CandlestickRepository {
         older.setLow(price);
       }
     } else {
+      if (!this.getDataBase().isEmpty() && candlestickDateTime.isAfter(this.getDataBase().first().getDateTime()) && CandleClosedEvent.isRecording()) {
+        CandleClosedEvent.commit(this.getDataBase().first(), this.getNumberOfBar());
+      }
       entity.setHigh(price);
       entity.setLow(price);
       entity.setOpen(price);
@@ -107,4 +115,38 @@ public class CandlestickRepository {
   public @NotNull Candlestick getLastUpdate() {
     return this.toModel(this.getDataBase().first());
   }
+
+  @Override
+  @Synchronized
+  public void writeSnapshot(final @NotNull DataOutput output) throws IOException {
+    output.writeLong(this.getNumberOfBar());
+    output.writeInt(this.getDataBase().size());
+    for (final CandlestickEntity entity : this.getDataBase()) {
+      BinaryTools.writeDateTime(output, entity.getDateTime());
+      BinaryTools.writeBigDecimal(output, entity.getOpen());
+      BinaryTools.writeBigDecimal(output, entity.getHigh());
+      BinaryTools.writeBigDecimal(output, entity.getLow());
+      BinaryTools.writeBigDecimal(output, entity.getClose());
+    }
+  }
+
+  @Override
+  @Synchronized
+  public void readSnapshot(final @NotNull DataInput input) throws IOException {
+    this.getDataBase().clear();
+    this.numberOfBar = input.readLong();
+    final int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      final CandlestickEntity entity = new CandlestickEntity();
+      entity.setDateTime(BinaryTools.readDateTime(input));
+      entity.setOpen(BinaryTools.readBigDecimal(input));
+      entity.setHigh(BinaryTools.readBigDecimal(input));
+      entity.setLow(BinaryTools.readBigDecimal(input));
+      entity.setClose(BinaryTools.readBigDecimal(input));
+      this.getDataBase().add(entity);
+    }
+    while (this.getDataBase().size() > this.getMemorySize()) {
+      this.getDataBase().pollLast();
+    }
+  }
 }
@@ -2,6 +2,10 @@ package br.eti.allandemiranda.forex.repositories;
 
 import br.eti.allandemiranda.forex.dtos.MACD;
 import br.eti.allandemiranda.forex.entities.MacdEntity;
+import br.eti.allandemiranda.forex.utils.BinaryTools;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.TreeSet;
@@ -12,7 +16,7 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 @Getter(AccessLevel.PRIVATE)
-public class MacdRepository {
+public class MacdRepository implements StateSnapshot {
 
   private static final int MEMORY_SIZE = 3;
   private final TreeSet<MacdEntity> dataBase = new TreeSet<>();
@@ -52,6 +56,32 @@ public class MacdRepository {
     return this.getDataBase().stream().map(this::toModel).toArray(MACD[]::new);
   }
 
+  @Override
+  public void writeSnapshot(final @NotNull DataOutput output) throws IOException {
+    output.writeInt(this.getDataBase().size());
+    for (final MacdEntity entity : this.getDataBase()) {
+      BinaryTools.writeDateTime(output, entity.getDateTime());
+      BinaryTools.writeBigDecimal(output, entity.getMain());
+      BinaryTools.writeBigDecimal(output, entity.getSignal());
+    }
+  }
+
+  @Override
+  public void readSnapshot(final @NotNull DataInput input) throws IOException {
+    this.getDataBase().clear();
+    final int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      final MacdEntity entity = new MacdEntity();
+      entity.setDateTime(BinaryTools.readDateTime(input));
+      entity.setMain(BinaryTools.readBigDecimal(input));
+      entity.setSignal(BinaryTools.readBigDecimal(input));
+      this.getDataBase().add(entity);
+    }
+    while (this.getDataBase().size() > MEMORY_SIZE) {
+      this.getDataBase().pollLast();
+    }
+  }
+
   private @NotNull MACD toModel(final @NotNull MacdEntity entity) {
     return new MACD(entity.getDateTime(), entity.getMain(), entity.getSignal());
   }
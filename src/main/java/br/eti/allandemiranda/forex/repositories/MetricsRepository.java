@@ -0,0 +1,67 @@
+package br.eti.allandemiranda.forex.repositories;
+
+import br.eti.allandemiranda.forex.dtos.PipelineMetrics;
+import br.eti.allandemiranda.forex.dtos.StageLatency;
+import br.eti.allandemiranda.forex.utils.LatencyHistogram;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@Getter(AccessLevel.PRIVATE)
+public class MetricsRepository {
+
+  private final ConcurrentSkipListMap<String, LatencyHistogram> dataBase = new ConcurrentSkipListMap<>();
+  private final LongAdder ticks = new LongAdder();
+  private final LongAdder barsClosed = new LongAdder();
+  private final LongAdder ordersOpened = new LongAdder();
+  private final LongAdder ordersClosed = new LongAdder();
+  private final long startNanos = System.nanoTime();
+
+  /**
+   * Add a duration to the histogram of the stage
+   *
+   * @param stage The stage name
+   * @param nanos The duration in nanoseconds
+   */
+  public void addLatency(final @NotNull String stage, final long nanos) {
+    this.getDataBase().computeIfAbsent(stage, key -> new LatencyHistogram()).record(nanos);
+  }
+
+  public void addTick() {
+    this.getTicks().increment();
+  }
+
+  public void addBarClosed() {
+    this.getBarsClosed().increment();
+  }
+
+  public void addOrdersOpened(final long orders) {
+    this.getOrdersOpened().add(orders);
+  }
+
+  public void addOrdersClosed(final long orders) {
+    this.getOrdersClosed().add(orders);
+  }
+
+  /**
+   * Get the current values of histograms and counters
+   *
+   * @return The pipeline metrics
+   */
+  public @NotNull PipelineMetrics get() {
+    final long elapsedNanos = System.nanoTime() - this.getStartNanos();
+    final long tickCount = this.getTicks().sum();
+    final double ticksPerSecond = elapsedNanos == 0L ? 0d : tickCount * 1_000_000_000d / elapsedNanos;
+    return new PipelineMetrics(elapsedNanos, tickCount, ticksPerSecond, this.getBarsClosed().sum(), this.getOrdersOpened().sum(), this.getOrdersClosed().sum(),
+        this.getDataBase().entrySet().stream().map(entry -> this.toModel(entry.getKey(), entry.getValue())).toList());
+  }
+
+  private @NotNull StageLatency toModel(final @NotNull String stage, final @NotNull LatencyHistogram histogram) {
+    return new StageLatency(stage, histogram.getCount(), histogram.getMean(), histogram.getValueAtPercentile(50d), histogram.getValueAtPercentile(90d),
+        histogram.getValueAtPercentile(99d), histogram.getValueAtPercentile(99.9d), histogram.getMax());
+  }
+}
@@ -1,27 +1,149 @@
 package br.eti.allandemiranda.forex.repositories;
 
 import br.eti.allandemiranda.forex.dtos.Order;
-import br.eti.allandemiranda.forex.entities.OrderEntity;
+import br.eti.allandemiranda.forex.dtos.OrderSafe;
+import br.eti.allandemiranda.forex.enums.OrderPosition;
 import br.eti.allandemiranda.forex.enums.OrderStatus;
-import java.util.TreeSet;
-import lombok.AccessLevel;
-import lombok.Getter;
-import lombok.Setter;
+import br.eti.allandemiranda.forex.enums.OrderType;
+import br.eti.allandemiranda.forex.enums.SignalTrend;
+import br.eti.allandemiranda.forex.utils.BinaryTools;
+import br.eti.allandemiranda.forex.utils.ExtremeWindow;
+import br.eti.allandemiranda.forex.utils.LongIntHashMap;
+import br.eti.allandemiranda.forex.utils.TriggerHeap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
 import lombok.Synchronized;
-import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.stereotype.Repository;
 
+/**
+ * Order book stored as parallel arrays (one position per slot). The slots of removed orders are reused and the {@link Order} model is only created to report.
+ * <p>
+ * The open orders are not valued on each ticket: the take profit and stop loss prices are indexed by the price that close them (BID to buy, ASK to sell), so a
+ * ticket only touches the orders with a trigger crossed. The profit of the open orders is aggregated by position and the high/low profit of an order came from
+ * the extreme prices since it was open.
+ */
 @Repository
-@Getter(AccessLevel.PRIVATE)
-@Setter(AccessLevel.PRIVATE)
-@Slf4j
-public class OrderRepository {
+public class OrderRepository implements StateSnapshot {
 
-  private final TreeSet<OrderEntity> dataBase = new TreeSet<>();
+  private static final int INITIAL_CAPACITY = 64;
+  private static final OrderStatus[] ORDER_STATUS = OrderStatus.values();
+  private static final OrderPosition[] ORDER_POSITION = OrderPosition.values();
+  private static final SignalTrend[] SIGNAL_TREND = SignalTrend.values();
+  private static final Comparator<Order> BOOK_ORDER = Comparator.comparing(Order::openDateTime).thenComparingLong(Order::orderId).reversed();
+  private static final byte OPEN = (byte) OrderStatus.OPEN.ordinal();
+  private static final byte PENDING = (byte) OrderStatus.PENDING.ordinal();
+  private static final byte BUY = (byte) OrderPosition.BUY.ordinal();
 
-  public Order @NotNull [] getOrders() {
-    return this.getDataBase().parallelStream().map(this::toModel).toArray(Order[]::new);
+  private long[] orderId = new long[INITIAL_CAPACITY];
+  private LocalDateTime[] openDateTime = new LocalDateTime[INITIAL_CAPACITY];
+  private LocalDateTime[] signalDateTime = new LocalDateTime[INITIAL_CAPACITY];
+  private long[] openSequence = new long[INITIAL_CAPACITY];
+  private byte[] signalTrend = new byte[INITIAL_CAPACITY];
+  private byte[] orderStatus = new byte[INITIAL_CAPACITY];
+  private byte[] orderPosition = new byte[INITIAL_CAPACITY];
+  private int[] tradingPerformanceDiff = new int[INITIAL_CAPACITY];
+  // Price to open (or pending to activate), the exit rules and the current stop loss price in points
+  private int[] openPrice = new int[INITIAL_CAPACITY];
+  private OrderSafe[] orderSafe = new OrderSafe[INITIAL_CAPACITY];
+  private int[] stopLossPrice = new int[INITIAL_CAPACITY];
+  private boolean[] breakEven = new boolean[INITIAL_CAPACITY];
+  private LocalDateTime[] expirationDateTime = new LocalDateTime[INITIAL_CAPACITY];
+  // Swap index of the position side when the order was open
+  private long[] swapBase = new long[INITIAL_CAPACITY];
+  // Values fixed when the order is closed
+  private long[] swapProfit = new long[INITIAL_CAPACITY];
+  private int[] closePrice = new int[INITIAL_CAPACITY];
+  private int[] highProfit = new int[INITIAL_CAPACITY];
+  private int[] lowProfit = new int[INITIAL_CAPACITY];
+  private int[] currentProfit = new int[INITIAL_CAPACITY];
+
+  // Slot of each order id, the ids are assigned in sequence
+  private final LongIntHashMap orderIdIndex = new LongIntHashMap();
+  private long nextOrderId = 1L;
+
+  // Dense list of slots on the book and the position of each slot on this list
+  private int[] slots = new int[INITIAL_CAPACITY];
+  private int[] slotIndex = new int[INITIAL_CAPACITY];
+  private int size = 0;
+  // Slots closed and not removed yet
+  private int[] closeSlots = new int[INITIAL_CAPACITY];
+  private int closeSize = 0;
+  // Slots free to be reused
+  private int[] freeSlots = new int[INITIAL_CAPACITY];
+  private int freeSize = 0;
+  private int highWater = 0;
+  // Slots by open sequence, the head is the oldest open order (closed slots are skipped)
+  private final SlotQueue openQueue = new SlotQueue();
+  // Pending slots with an expiration, the head expires first (the orders of a journal can have other expiration time than the new ones)
+  private final PriorityQueue<Integer> pendingExpiration = new PriorityQueue<>(
+      Comparator.comparing((Integer slot) -> this.expirationDateTime[slot]).thenComparingLong(slot -> this.orderId[slot]));
+
+  // Triggers of the open orders (descending prices are negative)
+  private final TriggerHeap buyTakeProfit = new TriggerHeap();
+  private final TriggerHeap buyStopLoss = new TriggerHeap();
+  private final TriggerHeap sellTakeProfit = new TriggerHeap();
+  private final TriggerHeap sellStopLoss = new TriggerHeap();
+  // Price to move the stop loss of the open orders by the trailing stop or break-even (descending prices are negative)
+  private final TriggerHeap buyAdjust = new TriggerHeap();
+  private final TriggerHeap sellAdjust = new TriggerHeap();
+
+  // Activation book of the pending orders (descending prices are negative)
+  private final TriggerHeap buyLimit = new TriggerHeap();
+  private final TriggerHeap buyStop = new TriggerHeap();
+  private final TriggerHeap sellLimit = new TriggerHeap();
+  private final TriggerHeap sellStop = new TriggerHeap();
+
+  // Extreme prices since each ticket (lowest prices are negative)
+  private final ExtremeWindow highBid = new ExtremeWindow();
+  private final ExtremeWindow lowBid = new ExtremeWindow();
+  private final ExtremeWindow highAsk = new ExtremeWindow();
+  private final ExtremeWindow lowAsk = new ExtremeWindow();
+
+  // Aggregated values of the open orders
+  private int buySize = 0;
+  private int sellSize = 0;
+  private int pendingSize = 0;
+  private long buyOpenPrice = 0L;
+  private long sellOpenPrice = 0L;
+  private long openSwapProfit = 0L;
+  // Accumulated swap of one order open since the start, the swap of an order is the index now less the index when it was open
+  private long buySwapIndex = 0L;
+  private long sellSwapIndex = 0L;
+
+  // Last ticket
+  private LocalDateTime lastUpdateDateTime = null;
+  private long sequence = 0L;
+  private int bid = 0;
+  private int ask = 0;
+  private int digits = 0;
+  // Decimals of the swap units
+  private int swapScale = 0;
+
+  /**
+   * Number of orders on the book (open and closed not removed yet)
+   *
+   * @return The number of slots in use
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Get the slot of the order on the book position
+   *
+   * @param index The position on the book (0 to size - 1)
+   * @return The slot of the order
+   */
+  public int getSlot(final int index) {
+    return this.slots[index];
   }
 
   /**
@@ -30,35 +152,427 @@ public class OrderRepository {
    * @return The number of orders open on the database
    */
   public long numberOfOrdersOpen() {
-    return this.getDataBase().stream().filter(orderEntity -> orderEntity.getOrderStatus().equals(OrderStatus.OPEN)).count();
+    return (long) this.buySize + this.sellSize;
+  }
+
+  /**
+   * Number of pending orders waiting the activation price
+   *
+   * @return The number of pending orders
+   */
+  public long numberOfOrdersPending() {
+    return this.pendingSize;
+  }
+
+  /**
+   * Date time of the last ticket on the book, it is the last update of all orders (null before the first ticket)
+   *
+   * @return The last update date time
+   */
+  public LocalDateTime getLastUpdateDateTime() {
+    return this.lastUpdateDateTime;
+  }
+
+  /**
+   * Find the slot of an order on the book
+   *
+   * @param orderId The order id
+   * @return The slot or -1 if the order is not on the book
+   */
+  public int findSlot(final long orderId) {
+    return this.orderIdIndex.get(orderId);
+  }
+
+  public long getOrderId(final int slot) {
+    return this.orderId[slot];
+  }
+
+  public @NotNull LocalDateTime getOpenDateTime(final int slot) {
+    return this.openDateTime[slot];
+  }
+
+  public int getStopLossPrice(final int slot) {
+    return this.stopLossPrice[slot];
+  }
+
+  public boolean isBreakEven(final int slot) {
+    return this.breakEven[slot];
+  }
+
+  public @NotNull OrderStatus getOrderStatus(final int slot) {
+    return ORDER_STATUS[this.orderStatus[slot]];
+  }
+
+  public @NotNull OrderPosition getOrderPosition(final int slot) {
+    return ORDER_POSITION[this.orderPosition[slot]];
+  }
+
+  /**
+   * Get the swap of an order
+   *
+   * @param slot The slot of the order
+   * @return The swap in account units
+   */
+  public long getSwapProfit(final int slot) {
+    if (this.orderStatus[slot] != OPEN) {
+      return this.swapProfit[slot];
+    }
+    return (this.orderPosition[slot] == BUY ? this.buySwapIndex : this.sellSwapIndex) - this.swapBase[slot];
+  }
+
+  /**
+   * Define the number of decimals of the swap units
+   *
+   * @param swapScale The number of decimals
+   */
+  public void setSwapScale(final int swapScale) {
+    this.swapScale = swapScale;
+  }
+
+  /**
+   * Get the current profit of an order, the open orders are valued with the last ticket
+   *
+   * @param slot The slot of the order
+   * @return The profit in points
+   */
+  public int getCurrentProfit(final int slot) {
+    if (this.orderStatus[slot] != OPEN) {
+      return this.currentProfit[slot];
+    }
+    return this.orderPosition[slot] == BUY ? this.bid - this.openPrice[slot] : this.openPrice[slot] - this.ask;
   }
 
   /**
-   * Update a existent order
+   * Get the high profit of an order since it was open
    *
-   * @param order The order updated
+   * @param slot The slot of the order
+   * @return The high profit in points
+   */
+  public int getHighProfit(final int slot) {
+    if (this.orderStatus[slot] != OPEN) {
+      return this.highProfit[slot];
+    }
+    final long since = this.openSequence[slot];
+    return this.orderPosition[slot] == BUY ? this.highBid.getSince(since) - this.openPrice[slot] : this.openPrice[slot] + this.lowAsk.getSince(since);
+  }
+
+  /**
+   * Get the low profit of an order since it was open
+   *
+   * @param slot The slot of the order
+   * @return The low profit in points
+   */
+  public int getLowProfit(final int slot) {
+    if (this.orderStatus[slot] != OPEN) {
+      return this.lowProfit[slot];
+    }
+    final long since = this.openSequence[slot];
+    return this.orderPosition[slot] == BUY ? -this.lowBid.getSince(since) - this.openPrice[slot] : this.openPrice[slot] - this.highAsk.getSince(since);
+  }
+
+  /**
+   * Update the book with a new ticket, the open orders are not touched
+   *
+   * @param dateTime The ticket date time
+   * @param bid      The BID in points
+   * @param ask      The ASK in points
+   * @param digits   The number of digits of the prices
+   */
+  @Synchronized
+  public void updateTicket(final @NotNull LocalDateTime dateTime, final int bid, final int ask, final int digits) {
+    this.lastUpdateDateTime = dateTime;
+    this.bid = bid;
+    this.ask = ask;
+    this.digits = digits;
+    this.sequence++;
+    this.highBid.add(this.sequence, bid);
+    this.lowBid.add(this.sequence, -bid);
+    this.highAsk.add(this.sequence, ask);
+    this.lowAsk.add(this.sequence, -ask);
+    final long oldest = this.getOldestOpenSequence();
+    this.highBid.trim(oldest);
+    this.lowBid.trim(oldest);
+    this.highAsk.trim(oldest);
+    this.lowAsk.trim(oldest);
+  }
+
+  /**
+   * Close an open order with the take profit or stop loss crossed by the last ticket
+   *
+   * @return The slot of the closed order or -1 if no trigger was crossed
    */
   @Synchronized
-  public void updateOrder(final @NotNull Order order) {
-    OrderEntity entity = this.toEntity(order);
-    if (!this.getDataBase().remove(entity)) {
-      log.warn("Trying to update a {} that not exist on database", order);
+  public int closeTriggeredOrder() {
+    if (!this.buyTakeProfit.isEmpty() && this.buyTakeProfit.peekPrice() <= this.bid) {
+      return this.closeOrder(this.buyTakeProfit.peekSlot(), OrderStatus.CLOSE_TP);
+    }
+    if (!this.buyStopLoss.isEmpty() && -this.buyStopLoss.peekPrice() >= this.bid) {
+      return this.closeOrder(this.buyStopLoss.peekSlot(), OrderStatus.CLOSE_SL);
     }
-    this.getDataBase().add(entity);
+    if (!this.sellTakeProfit.isEmpty() && -this.sellTakeProfit.peekPrice() >= this.ask) {
+      return this.closeOrder(this.sellTakeProfit.peekSlot(), OrderStatus.CLOSE_TP);
+    }
+    if (!this.sellStopLoss.isEmpty() && this.sellStopLoss.peekPrice() <= this.ask) {
+      return this.closeOrder(this.sellStopLoss.peekSlot(), OrderStatus.CLOSE_SL);
+    }
+    return -1;
   }
 
   /**
-   * Add a new order to the database
+   * Move the stop loss of an open order with the trailing stop or break-even price crossed by the last ticket. The new stop loss is used from the next ticket.
    *
-   * @param order The Order to add
+   * @return The slot of the adjusted order or -1 if no adjust price was crossed
    */
   @Synchronized
-  public void addOrder(final @NotNull Order order) {
-    OrderEntity entity = this.toEntity(order);
-    if (!this.getDataBase().add(entity)) {
-      log.warn("Trying to add a {} that exist on database", order);
-      this.updateOrder(order);
+  public int adjustTriggeredOrder() {
+    if (!this.buyAdjust.isEmpty() && this.buyAdjust.peekPrice() <= this.bid) {
+      final int slot = this.buyAdjust.peekSlot();
+      this.adjustStopLoss(slot);
+      return slot;
     }
+    if (!this.sellAdjust.isEmpty() && -this.sellAdjust.peekPrice() >= this.ask) {
+      final int slot = this.sellAdjust.peekSlot();
+      this.adjustStopLoss(slot);
+      return slot;
+    }
+    return -1;
+  }
+
+  /**
+   * Add a new open order to the book on the last ticket
+   *
+   * @param openDateTime           The open date time
+   * @param signalDateTime         The signal date time
+   * @param signalTrend            The signal trend
+   * @param orderPosition          The position
+   * @param tradingPerformanceDiff The trading performance diff when open
+   * @param openPrice              The open price in points
+   * @param orderSafe              The exit rules
+   * @return The slot of the new order
+   */
+  @Synchronized
+  public int addOrder(final @NotNull LocalDateTime openDateTime, final @NotNull LocalDateTime signalDateTime, final @NotNull SignalTrend signalTrend,
+      final @NotNull OrderPosition orderPosition, final int tradingPerformanceDiff, final int openPrice, final @NotNull OrderSafe orderSafe) {
+    final int slot = this.newSlot(openDateTime, signalDateTime, signalTrend, orderPosition, tradingPerformanceDiff, openPrice, orderSafe);
+    this.open(slot);
+    return slot;
+  }
+
+  /**
+   * Add a pending order to the book, it is open on the first ticket that crosses the price
+   *
+   * @param dateTime               The placement date time
+   * @param signalDateTime         The signal date time
+   * @param signalTrend            The signal trend
+   * @param orderPosition          The position
+   * @param orderType              The pending type (limit or stop)
+   * @param tradingPerformanceDiff The trading performance diff when placed
+   * @param price                  The activation price in points (ASK to buy, BID to sell)
+   * @param orderSafe              The exit rules
+   * @param expirationDateTime     The expiration date time (null to never expire)
+   * @return The slot of the new order
+   */
+  @Synchronized
+  public int addPendingOrder(final @NotNull LocalDateTime dateTime, final @NotNull LocalDateTime signalDateTime, final @NotNull SignalTrend signalTrend,
+      final @NotNull OrderPosition orderPosition, final @NotNull OrderType orderType, final int tradingPerformanceDiff, final int price,
+      final @NotNull OrderSafe orderSafe, final LocalDateTime expirationDateTime) {
+    final int slot = this.newSlot(dateTime, signalDateTime, signalTrend, orderPosition, tradingPerformanceDiff, price, orderSafe);
+    this.orderStatus[slot] = PENDING;
+    this.closePrice[slot] = price;
+    this.expirationDateTime[slot] = expirationDateTime;
+    this.pendingSize++;
+    final boolean buy = OrderPosition.BUY.equals(orderPosition);
+    switch (orderType) {
+      case LIMIT -> {
+        if (buy) {
+          this.buyLimit.add(slot, -price);
+        } else {
+          this.sellLimit.add(slot, price);
+        }
+      }
+      case STOP -> {
+        if (buy) {
+          this.buyStop.add(slot, price);
+        } else {
+          this.sellStop.add(slot, -price);
+        }
+      }
+      case MARKET -> throw new IllegalArgumentException("A market order can't be pending");
+    }
+    if (expirationDateTime != null) {
+      this.pendingExpiration.add(slot);
+    }
+    return slot;
+  }
+
+  /**
+   * Get a pending order with the price crossed by the last ticket (ASK to buy, BID to sell)
+   *
+   * @return The slot of the order or -1 if no pending order was crossed
+   */
+  public int getActivatedSlot() {
+    if (!this.buyLimit.isEmpty() && -this.buyLimit.peekPrice() >= this.ask) {
+      return this.buyLimit.peekSlot();
+    }
+    if (!this.buyStop.isEmpty() && this.buyStop.peekPrice() <= this.ask) {
+      return this.buyStop.peekSlot();
+    }
+    if (!this.sellLimit.isEmpty() && this.sellLimit.peekPrice() <= this.bid) {
+      return this.sellLimit.peekSlot();
+    }
+    if (!this.sellStop.isEmpty() && -this.sellStop.peekPrice() >= this.bid) {
+      return this.sellStop.peekSlot();
+    }
+    return -1;
+  }
+
+  /**
+   * Open a pending order on the last ticket price (ASK to buy, BID to sell)
+   *
+   * @param slot The slot of the pending order
+   */
+  @Synchronized
+  public void activateOrder(final int slot) {
+    this.removePending(slot);
+    this.openDateTime[slot] = this.lastUpdateDateTime;
+    this.openSequence[slot] = this.sequence;
+    this.openPrice[slot] = this.orderPosition[slot] == BUY ? this.ask : this.bid;
+    this.open(slot);
+  }
+
+  /**
+   * Expire the pending orders not activated until a date time, they are reported as closed orders
+   *
+   * @param dateTime The current date time
+   */
+  @Synchronized
+  public void expirePendingOrders(final @NotNull LocalDateTime dateTime) {
+    for (Integer slot = this.pendingExpiration.peek(); slot != null && !dateTime.isBefore(this.expirationDateTime[slot]);
+        slot = this.pendingExpiration.peek()) {
+      this.expireOrder(slot);
+    }
+  }
+
+  /**
+   * Expire a pending order, it is reported as a closed order
+   *
+   * @param slot The slot of the pending order
+   */
+  @Synchronized
+  public void expireOrder(final int slot) {
+    this.removePending(slot);
+    this.orderStatus[slot] = (byte) OrderStatus.EXPIRED.ordinal();
+    this.addCloseSlot(slot);
+  }
+
+  /**
+   * Restore the stop loss of an open order moved by the trailing stop or break-even
+   *
+   * @param slot          The slot of the order
+   * @param stopLossPrice The stop loss price (BID to buy, ASK to sell)
+   * @param breakEven     If the break-even was applied
+   */
+  @Synchronized
+  public void restoreStopLoss(final int slot, final int stopLossPrice, final boolean breakEven) {
+    this.breakEven[slot] = breakEven;
+    this.setStopLoss(slot, stopLossPrice);
+  }
+
+  /**
+   * Add the swap of a rollover to all open orders of a position side, without touching the orders
+   *
+   * @param orderPosition The position side
+   * @param swap          The swap of one order in account units
+   */
+  @Synchronized
+  public void addSwapProfit(final @NotNull OrderPosition orderPosition, final long swap) {
+    if (OrderPosition.BUY.equals(orderPosition)) {
+      this.buySwapIndex += swap;
+      this.openSwapProfit += this.buySize * swap;
+    } else {
+      this.sellSwapIndex += swap;
+      this.openSwapProfit += this.sellSize * swap;
+    }
+  }
+
+  /**
+   * Close an open order on the last ticket
+   *
+   * @param slot        The slot of the order
+   * @param orderStatus The close status
+   * @return The slot of the order
+   */
+  @Synchronized
+  public int closeOrder(final int slot, final @NotNull OrderStatus orderStatus) {
+    this.currentProfit[slot] = this.getCurrentProfit(slot);
+    this.swapProfit[slot] = this.getSwapProfit(slot);
+    this.highProfit[slot] = this.getHighProfit(slot);
+    this.lowProfit[slot] = this.getLowProfit(slot);
+    if (this.orderPosition[slot] == BUY) {
+      this.closePrice[slot] = this.bid;
+      this.buySize--;
+      this.buyOpenPrice -= this.openPrice[slot];
+      this.buyTakeProfit.remove(slot);
+      this.buyStopLoss.remove(slot);
+      this.buyAdjust.remove(slot);
+    } else {
+      this.closePrice[slot] = this.ask;
+      this.sellSize--;
+      this.sellOpenPrice -= this.openPrice[slot];
+      this.sellTakeProfit.remove(slot);
+      this.sellStopLoss.remove(slot);
+      this.sellAdjust.remove(slot);
+    }
+    this.openSwapProfit -= this.swapProfit[slot];
+    this.orderStatus[slot] = (byte) orderStatus.ordinal();
+    this.addCloseSlot(slot);
+    return slot;
+  }
+
+  /**
+   * Profit in points of all open orders on the last ticket
+   *
+   * @return The open profit in points
+   */
+  public long getOpenPoints() {
+    return (this.buySize * (long) this.bid - this.buyOpenPrice) + (this.sellOpenPrice - this.sellSize * (long) this.ask);
+  }
+
+  /**
+   * Swap of all open orders
+   *
+   * @return The open swap in account units
+   */
+  public long getOpenSwapProfit() {
+    return this.openSwapProfit;
+  }
+
+  /**
+   * Create the order model of a slot
+   *
+   * @param slot The slot of the order
+   * @return The order
+   */
+  public @NotNull Order getOrder(final int slot) {
+    return this.toModel(slot);
+  }
+
+  /**
+   * Get all orders of the book, from newer to older
+   *
+   * @return The orders
+   */
+  public Order @NotNull [] getOrders() {
+    return IntStream.range(0, this.size).map(this::getSlot).mapToObj(this::toModel).sorted(BOOK_ORDER).toArray(Order[]::new);
+  }
+
+  /**
+   * Get the closed orders not removed yet, from newer to older
+   *
+   * @return The closed orders
+   */
+  public Order @NotNull [] getCloseOrders() {
+    return IntStream.range(0, this.closeSize).map(i -> this.closeSlots[i]).mapToObj(this::toModel).sorted(BOOK_ORDER).toArray(Order[]::new);
   }
 
   /**
@@ -66,31 +580,433 @@ public class OrderRepository {
    */
   @Synchronized
   public void removeCloseOrders() {
-    this.getDataBase().removeIf(orderEntity -> orderEntity.getOrderStatus().equals(OrderStatus.CLOSE_SL) || orderEntity.getOrderStatus().equals(OrderStatus.CLOSE_TP));
-  }
-
-  private @NotNull Order toModel(final @NotNull OrderEntity entity) {
-    return new Order(entity.getOpenDateTime(), entity.getSignalDateTime(), entity.getSignalTrend(), entity.getLastUpdateDateTime(), entity.getTimeOpen(),
-        entity.getOrderStatus(), entity.getOrderPosition(), entity.getTradingPerformanceDiff(), entity.getOpenPrice(), entity.getClosePrice(), entity.getHighProfit(), entity.getLowProfit(),
-        entity.getCurrentProfit(), entity.getSwapProfit());
-  }
-
-  private @NotNull OrderEntity toEntity(final @NotNull Order order) {
-    OrderEntity entity = new OrderEntity();
-    entity.setOpenDateTime(order.openDateTime());
-    entity.setSignalDateTime(order.signalDateTime());
-    entity.setSignalTrend(order.signalTrend());
-    entity.setLastUpdateDateTime(order.lastUpdateDateTime());
-    entity.setTimeOpen(order.timeOpen());
-    entity.setOrderStatus(order.orderStatus());
-    entity.setOrderPosition(order.orderPosition());
-    entity.setTradingPerformanceDiff(order.tradingPerformanceDiff());
-    entity.setOpenPrice(order.openPrice());
-    entity.setClosePrice(order.closePrice());
-    entity.setHighProfit(order.highProfit());
-    entity.setLowProfit(order.lowProfit());
-    entity.setCurrentProfit(order.currentProfit());
-    entity.setSwapProfit(order.swapProfit());
-    return entity;
+    for (int i = 0; i < this.closeSize; i++) {
+      this.removeSlot(this.closeSlots[i]);
+    }
+    this.closeSize = 0;
+  }
+
+  private int newSlot(final @NotNull LocalDateTime openDateTime, final @NotNull LocalDateTime signalDateTime, final @NotNull SignalTrend signalTrend,
+      final @NotNull OrderPosition orderPosition, final int tradingPerformanceDiff, final int openPrice, final @NotNull OrderSafe orderSafe) {
+    final int slot = this.nextSlot();
+    this.orderId[slot] = this.nextOrderId++;
+    this.orderIdIndex.put(this.orderId[slot], slot);
+    this.openDateTime[slot] = openDateTime;
+    this.signalDateTime[slot] = signalDateTime;
+    this.openSequence[slot] = this.sequence;
+    this.signalTrend[slot] = (byte) signalTrend.ordinal();
+    this.orderPosition[slot] = (byte) orderPosition.ordinal();
+    this.tradingPerformanceDiff[slot] = tradingPerformanceDiff;
+    this.openPrice[slot] = openPrice;
+    this.orderSafe[slot] = orderSafe;
+    this.breakEven[slot] = false;
+    this.currentProfit[slot] = 0;
+    this.highProfit[slot] = 0;
+    this.lowProfit[slot] = 0;
+    this.swapProfit[slot] = 0L;
+    this.slots[this.size] = slot;
+    this.slotIndex[slot] = this.size;
+    this.size++;
+    return slot;
+  }
+
+  private void open(final int slot) {
+    final int price = this.openPrice[slot];
+    final OrderSafe safe = this.orderSafe[slot];
+    this.orderStatus[slot] = OPEN;
+    this.openQueue.add(slot, this.sequence);
+    if (this.orderPosition[slot] == BUY) {
+      this.swapBase[slot] = this.buySwapIndex;
+      this.buySize++;
+      this.buyOpenPrice += price;
+      this.buyTakeProfit.add(slot, price + safe.takeProfit());
+    } else {
+      this.swapBase[slot] = this.sellSwapIndex;
+      this.sellSize++;
+      this.sellOpenPrice += price;
+      this.sellTakeProfit.add(slot, -(price - safe.takeProfit()));
+    }
+    this.setStopLoss(slot, this.orderPosition[slot] == BUY ? price - safe.stopLoss() : price + safe.stopLoss());
+  }
+
+  /**
+   * Define the stop loss price of an open order and the next price to adjust it
+   *
+   * @param slot          The slot of the order
+   * @param stopLossPrice The stop loss price (BID to buy, ASK to sell)
+   */
+  private void setStopLoss(final int slot, final int stopLossPrice) {
+    final OrderSafe safe = this.orderSafe[slot];
+    final int price = this.openPrice[slot];
+    this.stopLossPrice[slot] = stopLossPrice;
+    if (this.orderPosition[slot] == BUY) {
+      this.buyStopLoss.add(slot, -stopLossPrice);
+      long next = Long.MAX_VALUE;
+      if (safe.isBreakEven() && !this.breakEven[slot]) {
+        next = (long) price + safe.breakEvenActivation();
+      }
+      if (safe.isTrailing()) {
+        next = Math.min(next, Math.max((long) price + safe.trailingActivation(), (long) stopLossPrice + safe.trailingDistance() + safe.trailingStep()));
+      }
+      if (next == Long.MAX_VALUE) {
+        this.buyAdjust.remove(slot);
+      } else {
+        this.buyAdjust.add(slot, (int) next);
+      }
+    } else {
+      this.sellStopLoss.add(slot, stopLossPrice);
+      long next = Long.MIN_VALUE;
+      if (safe.isBreakEven() && !this.breakEven[slot]) {
+        next = (long) price - safe.breakEvenActivation();
+      }
+      if (safe.isTrailing()) {
+        next = Math.max(next, Math.min((long) price - safe.trailingActivation(), (long) stopLossPrice - safe.trailingDistance() - safe.trailingStep()));
+      }
+      if (next == Long.MIN_VALUE) {
+        this.sellAdjust.remove(slot);
+      } else {
+        this.sellAdjust.add(slot, (int) -next);
+      }
+    }
+  }
+
+  /**
+   * Apply the break-even and trailing stop rules of an order on the last ticket
+   *
+   * @param slot The slot of the order
+   */
+  private void adjustStopLoss(final int slot) {
+    final OrderSafe safe = this.orderSafe[slot];
+    final int price = this.openPrice[slot];
+    int stopLossPrice = this.stopLossPrice[slot];
+    if (this.orderPosition[slot] == BUY) {
+      if (safe.isBreakEven() && !this.breakEven[slot] && this.bid >= price + safe.breakEvenActivation()) {
+        this.breakEven[slot] = true;
+        stopLossPrice = Math.max(stopLossPrice, price + safe.breakEvenOffset());
+      }
+      if (safe.isTrailing() && this.bid - price >= safe.trailingActivation() && this.bid - safe.trailingDistance() >= stopLossPrice + safe.trailingStep()) {
+        stopLossPrice = this.bid - safe.trailingDistance();
+      }
+    } else {
+      if (safe.isBreakEven() && !this.breakEven[slot] && this.ask <= price - safe.breakEvenActivation()) {
+        this.breakEven[slot] = true;
+        stopLossPrice = Math.min(stopLossPrice, price - safe.breakEvenOffset());
+      }
+      if (safe.isTrailing() && price - this.ask >= safe.trailingActivation() && this.ask + safe.trailingDistance() <= stopLossPrice - safe.trailingStep()) {
+        stopLossPrice = this.ask + safe.trailingDistance();
+      }
+    }
+    this.setStopLoss(slot, stopLossPrice);
+  }
+
+  private void removePending(final int slot) {
+    this.pendingSize--;
+    if (this.expirationDateTime[slot] != null) {
+      this.pendingExpiration.remove(slot);
+      this.expirationDateTime[slot] = null;
+    }
+    this.buyLimit.remove(slot);
+    this.buyStop.remove(slot);
+    this.sellLimit.remove(slot);
+    this.sellStop.remove(slot);
+  }
+
+  private void addCloseSlot(final int slot) {
+    if (this.closeSize == this.closeSlots.length) {
+      this.closeSlots = Arrays.copyOf(this.closeSlots, this.closeSize * 2);
+    }
+    this.closeSlots[this.closeSize++] = slot;
+  }
+
+  private long getOldestOpenSequence() {
+    for (int slot = this.openQueue.peek(); slot >= 0; slot = this.openQueue.peek()) {
+      if (this.orderStatus[slot] == OPEN && this.openSequence[slot] == this.openQueue.peekSequence()) {
+        return this.openSequence[slot];
+      }
+      this.openQueue.poll();
+    }
+    return this.sequence;
+  }
+
+  private void removeSlot(final int slot) {
+    final int index = this.slotIndex[slot];
+    final int last = this.slots[--this.size];
+    this.slots[index] = last;
+    this.slotIndex[last] = index;
+    this.orderIdIndex.remove(this.orderId[slot]);
+    this.openDateTime[slot] = null;
+    this.signalDateTime[slot] = null;
+    this.orderSafe[slot] = null;
+    this.freeSlots[this.freeSize++] = slot;
+  }
+
+  @Override
+  @Synchronized
+  public void writeSnapshot(final @NotNull DataOutput output) throws IOException {
+    output.writeLong(this.nextOrderId);
+    BinaryTools.writeNullableDateTime(output, this.lastUpdateDateTime);
+    output.writeLong(this.sequence);
+    output.writeInt(this.bid);
+    output.writeInt(this.ask);
+    output.writeInt(this.digits);
+    output.writeLong(this.buySwapIndex);
+    output.writeLong(this.sellSwapIndex);
+    // All slots ever used, the free slots keep their last values like the queues that still point to them
+    output.writeInt(this.highWater);
+    for (int slot = 0; slot < this.highWater; slot++) {
+      output.writeLong(this.orderId[slot]);
+      BinaryTools.writeNullableDateTime(output, this.openDateTime[slot]);
+      BinaryTools.writeNullableDateTime(output, this.signalDateTime[slot]);
+      output.writeLong(this.openSequence[slot]);
+      output.writeByte(this.signalTrend[slot]);
+      output.writeByte(this.orderStatus[slot]);
+      output.writeByte(this.orderPosition[slot]);
+      output.writeInt(this.tradingPerformanceDiff[slot]);
+      output.writeInt(this.openPrice[slot]);
+      final OrderSafe safe = this.orderSafe[slot];
+      output.writeBoolean(safe != null);
+      if (safe != null) {
+        output.writeInt(safe.takeProfit());
+        output.writeInt(safe.stopLoss());
+        output.writeInt(safe.trailingDistance());
+        output.writeInt(safe.trailingActivation());
+        output.writeInt(safe.trailingStep());
+        output.writeInt(safe.breakEvenActivation());
+        output.writeInt(safe.breakEvenOffset());
+      }
+      output.writeInt(this.stopLossPrice[slot]);
+      output.writeBoolean(this.breakEven[slot]);
+      BinaryTools.writeNullableDateTime(output, this.expirationDateTime[slot]);
+      output.writeLong(this.swapBase[slot]);
+      output.writeLong(this.swapProfit[slot]);
+      output.writeInt(this.closePrice[slot]);
+      output.writeInt(this.highProfit[slot]);
+      output.writeInt(this.lowProfit[slot]);
+      output.writeInt(this.currentProfit[slot]);
+    }
+    writeSlots(output, this.slots, this.size);
+    writeSlots(output, this.closeSlots, this.closeSize);
+    writeSlots(output, this.freeSlots, this.freeSize);
+    this.openQueue.writeTo(output);
+    for (final TriggerHeap heap : this.getHeaps()) {
+      heap.writeTo(output);
+    }
+    for (final ExtremeWindow window : this.getWindows()) {
+      window.writeTo(output);
+    }
+  }
+
+  @Override
+  @Synchronized
+  public void readSnapshot(final @NotNull DataInput input) throws IOException {
+    this.nextOrderId = input.readLong();
+    this.lastUpdateDateTime = BinaryTools.readNullableDateTime(input);
+    this.sequence = input.readLong();
+    this.bid = input.readInt();
+    this.ask = input.readInt();
+    this.digits = input.readInt();
+    this.buySwapIndex = input.readLong();
+    this.sellSwapIndex = input.readLong();
+    this.highWater = input.readInt();
+    if (this.highWater > this.orderId.length) {
+      this.grow(this.highWater);
+    }
+    for (int slot = 0; slot < this.highWater; slot++) {
+      this.orderId[slot] = input.readLong();
+      this.openDateTime[slot] = BinaryTools.readNullableDateTime(input);
+      this.signalDateTime[slot] = BinaryTools.readNullableDateTime(input);
+      this.openSequence[slot] = input.readLong();
+      this.signalTrend[slot] = input.readByte();
+      this.orderStatus[slot] = input.readByte();
+      this.orderPosition[slot] = input.readByte();
+      this.tradingPerformanceDiff[slot] = input.readInt();
+      this.openPrice[slot] = input.readInt();
+      this.orderSafe[slot] = input.readBoolean() ? new OrderSafe(input.readInt(), input.readInt(), input.readInt(), input.readInt(), input.readInt(),
+          input.readInt(), input.readInt()) : null;
+      this.stopLossPrice[slot] = input.readInt();
+      this.breakEven[slot] = input.readBoolean();
+      this.expirationDateTime[slot] = BinaryTools.readNullableDateTime(input);
+      this.swapBase[slot] = input.readLong();
+      this.swapProfit[slot] = input.readLong();
+      this.closePrice[slot] = input.readInt();
+      this.highProfit[slot] = input.readInt();
+      this.lowProfit[slot] = input.readInt();
+      this.currentProfit[slot] = input.readInt();
+    }
+    this.size = input.readInt();
+    readSlots(input, this.slots, this.size);
+    this.closeSize = input.readInt();
+    if (this.closeSize > this.closeSlots.length) {
+      this.closeSlots = new int[this.closeSize];
+    }
+    readSlots(input, this.closeSlots, this.closeSize);
+    this.freeSize = input.readInt();
+    readSlots(input, this.freeSlots, this.freeSize);
+    this.openQueue.readFrom(input);
+    for (final TriggerHeap heap : this.getHeaps()) {
+      heap.readFrom(input);
+    }
+    for (final ExtremeWindow window : this.getWindows()) {
+      window.readFrom(input);
+    }
+    // The index, the expirations and the aggregated values came from the orders on the book
+    this.orderIdIndex.clear();
+    this.buySize = 0;
+    this.sellSize = 0;
+    this.pendingSize = 0;
+    this.buyOpenPrice = 0L;
+    this.sellOpenPrice = 0L;
+    this.openSwapProfit = 0L;
+    this.pendingExpiration.clear();
+    for (int i = 0; i < this.size; i++) {
+      final int slot = this.slots[i];
+      this.slotIndex[slot] = i;
+      this.orderIdIndex.put(this.orderId[slot], slot);
+      if (this.orderStatus[slot] == OPEN) {
+        this.openSwapProfit += this.getSwapProfit(slot);
+      }
+      if (this.orderStatus[slot] == PENDING) {
+        this.pendingSize++;
+        if (this.expirationDateTime[slot] != null) {
+          this.pendingExpiration.add(slot);
+        }
+      } else if (this.orderStatus[slot] == OPEN && this.orderPosition[slot] == BUY) {
+        this.buySize++;
+        this.buyOpenPrice += this.openPrice[slot];
+      } else if (this.orderStatus[slot] == OPEN) {
+        this.sellSize++;
+        this.sellOpenPrice += this.openPrice[slot];
+      }
+    }
+  }
+
+  private @NotNull TriggerHeap @NotNull [] getHeaps() {
+    return new TriggerHeap[]{this.buyTakeProfit, this.buyStopLoss, this.sellTakeProfit, this.sellStopLoss, this.buyAdjust, this.sellAdjust, this.buyLimit,
+        this.buyStop, this.sellLimit, this.sellStop};
+  }
+
+  private @NotNull ExtremeWindow @NotNull [] getWindows() {
+    return new ExtremeWindow[]{this.highBid, this.lowBid, this.highAsk, this.lowAsk};
+  }
+
+  private static void writeSlots(final @NotNull DataOutput output, final int @NotNull [] slots, final int size) throws IOException {
+    output.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      output.writeInt(slots[i]);
+    }
+  }
+
+  private static void readSlots(final @NotNull DataInput input, final int @NotNull [] slots, final int size) throws IOException {
+    for (int i = 0; i < size; i++) {
+      slots[i] = input.readInt();
+    }
+  }
+
+  private int nextSlot() {
+    if (this.freeSize > 0) {
+      return this.freeSlots[--this.freeSize];
+    }
+    if (this.highWater == this.openDateTime.length) {
+      this.grow(this.highWater * 2);
+    }
+    return this.highWater++;
+  }
+
+  private void grow(final int capacity) {
+    this.orderId = Arrays.copyOf(this.orderId, capacity);
+    this.openDateTime = Arrays.copyOf(this.openDateTime, capacity);
+    this.signalDateTime = Arrays.copyOf(this.signalDateTime, capacity);
+    this.openSequence = Arrays.copyOf(this.openSequence, capacity);
+    this.signalTrend = Arrays.copyOf(this.signalTrend, capacity);
+    this.orderStatus = Arrays.copyOf(this.orderStatus, capacity);
+    this.orderPosition = Arrays.copyOf(this.orderPosition, capacity);
+    this.tradingPerformanceDiff = Arrays.copyOf(this.tradingPerformanceDiff, capacity);
+    this.openPrice = Arrays.copyOf(this.openPrice, capacity);
+    this.orderSafe = Arrays.copyOf(this.orderSafe, capacity);
+    this.stopLossPrice = Arrays.copyOf(this.stopLossPrice, capacity);
+    this.breakEven = Arrays.copyOf(this.breakEven, capacity);
+    this.expirationDateTime = Arrays.copyOf(this.expirationDateTime, capacity);
+    this.swapBase = Arrays.copyOf(this.swapBase, capacity);
+    this.swapProfit = Arrays.copyOf(this.swapProfit, capacity);
+    this.closePrice = Arrays.copyOf(this.closePrice, capacity);
+    this.highProfit = Arrays.copyOf(this.highProfit, capacity);
+    this.lowProfit = Arrays.copyOf(this.lowProfit, capacity);
+    this.currentProfit = Arrays.copyOf(this.currentProfit, capacity);
+    this.slots = Arrays.copyOf(this.slots, capacity);
+    this.slotIndex = Arrays.copyOf(this.slotIndex, capacity);
+    this.freeSlots = Arrays.copyOf(this.freeSlots, capacity);
+  }
+
+  private @NotNull BigDecimal toPrice(final int points) {
+    return BigDecimal.valueOf(points, this.digits);
+  }
+
+  private @NotNull Order toModel(final int slot) {
+    final int price;
+    if (this.orderStatus[slot] != OPEN) {
+      price = this.closePrice[slot];
+    } else {
+      price = this.orderPosition[slot] == BUY ? this.bid : this.ask;
+    }
+    return new Order(this.orderId[slot], this.openDateTime[slot], this.signalDateTime[slot], SIGNAL_TREND[this.signalTrend[slot]], this.lastUpdateDateTime,
+        ORDER_STATUS[this.orderStatus[slot]], ORDER_POSITION[this.orderPosition[slot]], this.tradingPerformanceDiff[slot], this.toPrice(this.openPrice[slot]),
+        this.toPrice(price), this.getHighProfit(slot), this.getLowProfit(slot), this.getCurrentProfit(slot), BigDecimal.valueOf(this.getSwapProfit(slot), this.swapScale));
+  }
+
+  /**
+   * FIFO of slots with the sequence of the insertion, used to find the oldest valid slot (invalid heads are dropped by the caller)
+   */
+  private static final class SlotQueue {
+
+    private int[] slots = new int[INITIAL_CAPACITY];
+    private long[] sequences = new long[INITIAL_CAPACITY];
+    private int head = 0;
+    private int tail = 0;
+
+    private void add(final int slot, final long sequence) {
+      if (this.tail == this.slots.length) {
+        final int length = this.tail - this.head;
+        if (length * 2 > this.slots.length) {
+          this.slots = Arrays.copyOf(this.slots, this.slots.length * 2);
+          this.sequences = Arrays.copyOf(this.sequences, this.sequences.length * 2);
+        }
+        System.arraycopy(this.slots, this.head, this.slots, 0, length);
+        System.arraycopy(this.sequences, this.head, this.sequences, 0, length);
+        this.head = 0;
+        this.tail = length;
+      }
+      this.slots[this.tail] = slot;
+      this.sequences[this.tail++] = sequence;
+    }
+
+    private int peek() {
+      return this.head < this.tail ? this.slots[this.head] : -1;
+    }
+
+    private long peekSequence() {
+      return this.sequences[this.head];
+    }
+
+    private void poll() {
+      this.head++;
+    }
+
+    private void writeTo(final @NotNull DataOutput output) throws IOException {
+      output.writeInt(this.tail - this.head);
+      for (int i = this.head; i < this.tail; i++) {
+        output.writeInt(this.slots[i]);
+        output.writeLong(this.sequences[i]);
+      }
+    }
+
+    private void readFrom(final @NotNull DataInput input) throws IOException {
+      this.head = 0;
+      this.tail = 0;
+      final int size = input.readInt();
+      for (int i = 0; i < size; i++) {
+        final int slot = input.readInt();
+        this.add(slot, input.readLong());
+      }
+    }
   }
 }
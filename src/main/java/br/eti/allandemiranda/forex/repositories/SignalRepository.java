@@ -2,6 +2,10 @@ package br.eti.allandemiranda.forex.repositories;
 
 import br.eti.allandemiranda.forex.dtos.Signal;
 import br.eti.allandemiranda.forex.enums.SignalTrend;
+import br.eti.allandemiranda.forex.utils.BinaryTools;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -13,7 +17,7 @@ import org.springframework.stereotype.Repository;
 @Repository
 @Getter(AccessLevel.PRIVATE)
 @Setter(AccessLevel.PRIVATE)
-public class SignalRepository {
+public class SignalRepository implements StateSnapshot {
 
   private LocalDateTime dataTime = LocalDateTime.MIN;
   private SignalTrend trend = SignalTrend.NEUTRAL;
@@ -38,4 +42,18 @@ public class SignalRepository {
   public Signal get() {
     return new Signal(this.getDataTime(), this.getTrend());
   }
+
+  @Override
+  @Synchronized
+  public void writeSnapshot(final @NotNull DataOutput output) throws IOException {
+    BinaryTools.writeDateTime(output, this.getDataTime());
+    output.writeByte(this.getTrend().ordinal());
+  }
+
+  @Override
+  @Synchronized
+  public void readSnapshot(final @NotNull DataInput input) throws IOException {
+    this.setDataTime(BinaryTools.readDateTime(input));
+    this.setTrend(SignalTrend.values()[input.readByte()]);
+  }
 }
@@ -0,0 +1,34 @@
+package br.eti.allandemiranda.forex.repositories;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import org.jetbrains.annotations.NotNull;
+
+public interface StateSnapshot {
+
+  /**
+   * The name of the section on the snapshot file
+   *
+   * @return The section name
+   */
+  default @NotNull String getSnapshotName() {
+    return this.getClass().getSimpleName();
+  }
+
+  /**
+   * Write the in-memory state to the snapshot
+   *
+   * @param output The binary output
+   * @throws IOException If the output fail
+   */
+  void writeSnapshot(@NotNull DataOutput output) throws IOException;
+
+  /**
+   * Replace the in-memory state by the snapshot values
+   *
+   * @param input The binary input
+   * @throws IOException If the input fail
+   */
+  void readSnapshot(@NotNull DataInput input) throws IOException;
+}
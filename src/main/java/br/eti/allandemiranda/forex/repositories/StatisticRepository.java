@@ -1,11 +1,19 @@
 package br.eti.allandemiranda.forex.repositories;
 
+import br.eti.allandemiranda.forex.dtos.Order;
+import br.eti.allandemiranda.forex.enums.FitnessMetric;
+import br.eti.allandemiranda.forex.enums.ResampleMode;
 import br.eti.allandemiranda.forex.enums.TimeFrame;
+import br.eti.allandemiranda.forex.headers.StatisticHeader;
 import br.eti.allandemiranda.forex.services.CandlestickService;
+import br.eti.allandemiranda.forex.utils.MonteCarlo;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
@@ -13,17 +21,14 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.AbstractMap.SimpleEntry;
 import java.util.Arrays;
 import java.util.List;
-import java.util.TreeMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
+import lombok.Synchronized;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
@@ -37,7 +42,7 @@ import org.springframework.stereotype.Repository;
 @Getter(AccessLevel.PRIVATE)
 @Setter(AccessLevel.PRIVATE)
 @Slf4j
-public class StatisticRepository {
+public class StatisticRepository implements StateSnapshot {
 
   //! This is a temporary class to generate temporary statistic values for performance of results
   //! This class needs to be removed at the end of this project
@@ -46,8 +51,58 @@ public class StatisticRepository {
   private static final String ERROR = "ERROR!";
   private static final String STR = " - ";
   private static final CSVFormat CSV_FORMAT = CSVFormat.TDF.builder().build();
+  private static final int DAYS_OF_WEEK = DayOfWeek.values().length;
+  private static final int MINUTES_OF_DAY = 1440;
+  private static final int MINUTES_OF_HOUR = 60;
+  private static final int EXCURSION_BUCKETS = 64;
+  private static final int INITIAL_CAPACITY = 256;
+  private static final double[] MONTE_CARLO_PERCENTILES = {1d, 5d, 10d, 25d, 50d, 75d, 90d, 95d, 99d};
   private final CandlestickService candlestickService;
-  private final TreeMap<DayOfWeek, TreeMap<LocalTime, Pair<AtomicInteger, AtomicInteger>>> dataBase = new TreeMap<>();
+  private final AccountRepository accountRepository;
+  // MAE (adverse) and MFE (favorable) excursion of the closed orders by buckets of points
+  private final int[] maeHistogram = new int[EXCURSION_BUCKETS];
+  private final int[] mfeHistogram = new int[EXCURSION_BUCKETS];
+  // Win and lose counters by open bar, indexed by the day of week and the bar of the day
+  private int[] wins = new int[0];
+  private int[] losses = new int[0];
+  private int barMinutes = MINUTES_OF_DAY;
+  private int barsOfDay = 1;
+  // Results of the closed orders in account units
+  private long grossProfit = 0L;
+  private long grossLoss = 0L;
+  private int consecutiveLosses = 0;
+  private int maxConsecutiveLosses = 0;
+  // Equity returns by bar (Welford mean and variance, downside sum of squares)
+  private long barKey = Long.MIN_VALUE;
+  private long barCloseEquity = 0L;
+  private long lastEquity = 0L;
+  private long numberOfReturns = 0L;
+  private double returnMean = 0d;
+  private double returnSquares = 0d;
+  private double downsideSquares = 0d;
+  // Equity at the close of each bar, the bar is kept by its key (day and bar of the day)
+  private long[] equityBarKeys = new long[INITIAL_CAPACITY];
+  private long[] equityValues = new long[INITIAL_CAPACITY];
+  private int equitySize = 0;
+  // Result (profit and swap) of each closed order in account units, in the close order
+  private long[] tradeResults = new long[INITIAL_CAPACITY];
+  private int tradeSize = 0;
+  // The run is stopped when the drawdown pass the limit, the limit is taken in account units on the first ticket (after the account scale is defined)
+  private long stopDrawdownUnits = -1L;
+  @Getter(AccessLevel.PUBLIC)
+  private boolean stopped = false;
+  @Value("${config.statistic.excursion.step:10}")
+  private int excursionStep;
+  // The max drawdown of a hopeless run, the rest of the ticks are not processed (zero to never stop)
+  @Value("${config.statistic.stop-drawdown:0}")
+  private double stopDrawdown;
+  // Number of resamples of the closed orders (zero to not run the Monte Carlo)
+  @Value("${config.statistic.monte-carlo.iterations:10000}")
+  private int monteCarloIterations;
+  @Value("${config.statistic.monte-carlo.mode:SHUFFLE}")
+  private ResampleMode monteCarloMode;
+  @Value("${config.statistic.monte-carlo.seed:1}")
+  private long monteCarloSeed;
   @Value("${config.statistic.fileName}")
   private String fileName;
   @Value("${chart.timeframe:M15}")
@@ -82,37 +137,22 @@ public class StatisticRepository {
   private int minTradingDiff;
   @Value("${order.open.onlyStrong:false}")
   private boolean isOpenOnlyStrong;
-  private BigDecimal highBalance = BigDecimal.ZERO;
-  private BigDecimal lowBalance = BigDecimal.ZERO;
-  private BigDecimal currentBalance = BigDecimal.ZERO;
 
   @Value("${config.root.folder}")
   private File outputFolder;
 
   @Autowired
-  protected StatisticRepository(final CandlestickService candlestickService) {
+  protected StatisticRepository(final CandlestickService candlestickService, final AccountRepository accountRepository) {
     this.candlestickService = candlestickService;
+    this.accountRepository = accountRepository;
   }
 
   @PostConstruct
   private void init() {
-    final List<LocalTime> localTimeList = IntStream.range(0, 1440).parallel().mapToObj(minut -> LocalTime.of(0, 0).plusMinutes(minut)).map(
-            localTime -> this.getCandlestickService()
-                .getCandleDateTime(LocalDateTime.of(LocalDate.now(), localTime), TimeFrame.valueOf(this.getCandlestickService().getTimeFrame())))
-        .map(LocalDateTime::toLocalTime).map(localTime -> localTime.withSecond(0)).map(localTime -> localTime.withNano(0)).toList();
-    Arrays.stream(DayOfWeek.values()).filter(dayOfWeek -> !dayOfWeek.equals(DayOfWeek.SATURDAY) && !dayOfWeek.equals(DayOfWeek.SUNDAY)).forEachOrdered(
-        dayOfWeek -> this.getDataBase().put(dayOfWeek,
-            localTimeList.parallelStream().map(localTime -> new SimpleEntry<>(localTime, Pair.of(new AtomicInteger(0), new AtomicInteger(0))))
-                .collect(Collectors.toMap(SimpleEntry::getKey, SimpleEntry::getValue, (a, b) -> a, TreeMap::new))));
-  }
-
-  public void setBalance(final @NotNull BigDecimal balance) {
-    if (balance.compareTo(this.getHighBalance()) > 0) {
-      this.setHighBalance(balance);
-    } else if (balance.compareTo(this.getLowBalance()) < 0) {
-      this.setLowBalance(balance);
-    }
-    this.setCurrentBalance(balance);
+    this.setBarMinutes(TimeFrame.valueOf(this.getTimeFrame()).minutes);
+    this.setBarsOfDay(MINUTES_OF_DAY / this.getBarMinutes());
+    this.setWins(new int[DAYS_OF_WEEK * this.getBarsOfDay()]);
+    this.setLosses(new int[DAYS_OF_WEEK * this.getBarsOfDay()]);
   }
 
 //  @SneakyThrows
@@ -123,14 +163,170 @@ public class StatisticRepository {
 //    }
 //  }
 
-  public void addResultWin(final @NotNull LocalDateTime localDateTime) {
-    final LocalDateTime candleDateTime = this.getCandlestickService().getCandleDateTime(localDateTime, TimeFrame.valueOf(this.getCandlestickService().getTimeFrame()));
-    this.getDataBase().get(candleDateTime.getDayOfWeek()).get(candleDateTime.toLocalTime()).getKey().incrementAndGet();
+  /**
+   * Add the result of a closed order on the counters of its open bar and on the performance metrics. A win is an order closed with positive points, so a stop
+   * loss moved by the trailing stop can be a win, and an order closed on zero points is not a win or a lose. The gross profit and loss take the result with
+   * the swap.
+   *
+   * @param order The closed order
+   */
+  @Synchronized
+  public void addResult(final @NotNull Order order) {
+    final AccountRepository account = this.getAccountRepository();
+    final long result = account.toUnits(order.currentProfit(), account.toUnits(order.swapProfit()));
+    final int index = this.getBarIndex(order.openDateTime());
+    if (this.tradeSize == this.tradeResults.length) {
+      this.tradeResults = Arrays.copyOf(this.tradeResults, this.tradeSize * 2);
+    }
+    this.tradeResults[this.tradeSize++] = result;
+    if (result > 0L) {
+      this.grossProfit += result;
+    } else {
+      this.grossLoss -= result;
+    }
+    if (order.currentProfit() > 0) {
+      this.getWins()[index]++;
+      this.consecutiveLosses = 0;
+    } else if (order.currentProfit() < 0) {
+      this.getLosses()[index]++;
+      this.consecutiveLosses++;
+      this.maxConsecutiveLosses = Math.max(this.maxConsecutiveLosses, this.consecutiveLosses);
+    }
+    this.getMaeHistogram()[this.getExcursionBucket(-order.lowProfit())]++;
+    this.getMfeHistogram()[this.getExcursionBucket(order.highProfit())]++;
+  }
+
+  /**
+   * Follow the equity of the account, the return of a bar is taken on the first ticket of the next bar
+   *
+   * @param dateTime The ticket date time
+   */
+  @Synchronized
+  public void updateEquity(final @NotNull LocalDateTime dateTime) {
+    final long key = dateTime.toLocalDate().toEpochDay() * this.getBarsOfDay() + (dateTime.getHour() * MINUTES_OF_HOUR + dateTime.getMinute()) / this.getBarMinutes();
+    if (key != this.barKey) {
+      if (this.barKey != Long.MIN_VALUE) {
+        this.addBarReturn();
+      }
+      this.barKey = key;
+    }
+    this.lastEquity = this.getAccountRepository().getEquity();
+    if (this.getStopDrawdownUnits() < 0L) {
+      this.setStopDrawdownUnits(this.getStopDrawdown() > 0d ? this.getAccountRepository().toUnits(BigDecimal.valueOf(this.getStopDrawdown())) : Long.MAX_VALUE);
+    }
+    if (!this.isStopped() && this.getAccountRepository().getMaxDrawdown() > this.getStopDrawdownUnits()) {
+      this.setStopped(true);
+      log.warn("Run stopped on {} with the drawdown over {}", dateTime, this.getStopDrawdown());
+    }
+  }
+
+  private void addBarReturn() {
+    if (this.equitySize == this.equityBarKeys.length) {
+      this.equityBarKeys = Arrays.copyOf(this.equityBarKeys, this.equitySize * 2);
+      this.equityValues = Arrays.copyOf(this.equityValues, this.equitySize * 2);
+    }
+    this.equityBarKeys[this.equitySize] = this.barKey;
+    this.equityValues[this.equitySize++] = this.lastEquity;
+    final double value = this.lastEquity - this.barCloseEquity;
+    this.barCloseEquity = this.lastEquity;
+    this.numberOfReturns++;
+    final double delta = value - this.returnMean;
+    this.returnMean += delta / this.numberOfReturns;
+    this.returnSquares += delta * (value - this.returnMean);
+    if (value < 0d) {
+      this.downsideSquares += value * value;
+    }
   }
 
-  public void addResultLose(final @NotNull LocalDateTime localDateTime) {
-    final LocalDateTime candleDateTime = this.getCandlestickService().getCandleDateTime(localDateTime, TimeFrame.valueOf(this.getCandlestickService().getTimeFrame()));
-    this.getDataBase().get(candleDateTime.getDayOfWeek()).get(candleDateTime.toLocalTime()).getValue().incrementAndGet();
+  private int getBarIndex(final @NotNull LocalDateTime dateTime) {
+    return dateTime.getDayOfWeek().ordinal() * this.getBarsOfDay() + (dateTime.getHour() * MINUTES_OF_HOUR + dateTime.getMinute()) / this.getBarMinutes();
+  }
+
+  private int getExcursionBucket(final int points) {
+    return Math.max(0, Math.min(EXCURSION_BUCKETS - 1, points / Math.max(1, this.getExcursionStep())));
+  }
+
+  @Override
+  @Synchronized
+  public void writeSnapshot(final @NotNull DataOutput output) throws IOException {
+    writeInts(output, this.getWins());
+    writeInts(output, this.getLosses());
+    writeInts(output, this.getMaeHistogram());
+    writeInts(output, this.getMfeHistogram());
+    output.writeLong(this.grossProfit);
+    output.writeLong(this.grossLoss);
+    output.writeInt(this.consecutiveLosses);
+    output.writeInt(this.maxConsecutiveLosses);
+    output.writeLong(this.barKey);
+    output.writeLong(this.barCloseEquity);
+    output.writeLong(this.lastEquity);
+    output.writeLong(this.numberOfReturns);
+    output.writeDouble(this.returnMean);
+    output.writeDouble(this.returnSquares);
+    output.writeDouble(this.downsideSquares);
+    output.writeInt(this.equitySize);
+    for (int i = 0; i < this.equitySize; i++) {
+      output.writeLong(this.equityBarKeys[i]);
+      output.writeLong(this.equityValues[i]);
+    }
+    output.writeInt(this.tradeSize);
+    for (int i = 0; i < this.tradeSize; i++) {
+      output.writeLong(this.tradeResults[i]);
+    }
+    output.writeBoolean(this.isStopped());
+  }
+
+  @Override
+  @Synchronized
+  public void readSnapshot(final @NotNull DataInput input) throws IOException {
+    readInts(input, this.getWins());
+    readInts(input, this.getLosses());
+    readInts(input, this.getMaeHistogram());
+    readInts(input, this.getMfeHistogram());
+    this.grossProfit = input.readLong();
+    this.grossLoss = input.readLong();
+    this.consecutiveLosses = input.readInt();
+    this.maxConsecutiveLosses = input.readInt();
+    this.barKey = input.readLong();
+    this.barCloseEquity = input.readLong();
+    this.lastEquity = input.readLong();
+    this.numberOfReturns = input.readLong();
+    this.returnMean = input.readDouble();
+    this.returnSquares = input.readDouble();
+    this.downsideSquares = input.readDouble();
+    this.equitySize = input.readInt();
+    this.equityBarKeys = new long[Math.max(INITIAL_CAPACITY, this.equitySize)];
+    this.equityValues = new long[this.equityBarKeys.length];
+    for (int i = 0; i < this.equitySize; i++) {
+      this.equityBarKeys[i] = input.readLong();
+      this.equityValues[i] = input.readLong();
+    }
+    this.tradeSize = input.readInt();
+    this.tradeResults = new long[Math.max(INITIAL_CAPACITY, this.tradeSize)];
+    for (int i = 0; i < this.tradeSize; i++) {
+      this.tradeResults[i] = input.readLong();
+    }
+    this.setStopped(input.readBoolean());
+  }
+
+  private static void writeInts(final @NotNull DataOutput output, final int @NotNull [] values) throws IOException {
+    output.writeInt(values.length);
+    for (final int value : values) {
+      output.writeInt(value);
+    }
+  }
+
+  /**
+   * Read the counters written by {@link #writeInts(DataOutput, int[])}, the bars of the counters need to be the same of this time frame
+   */
+  private static void readInts(final @NotNull DataInput input, final int @NotNull [] values) throws IOException {
+    final int size = input.readInt();
+    if (size != values.length) {
+      throw new IOException("The snapshot statistics have " + size + " counters and this time frame " + values.length);
+    }
+    for (int i = 0; i < size; i++) {
+      values[i] = input.readInt();
+    }
   }
 
   @PreDestroy
@@ -143,35 +339,163 @@ public class StatisticRepository {
     return new File(this.getOutputFolder(), fileName.concat(".csv"));
   }
 
+  private @NotNull File getExcursionFile() {
+    return new File(this.getOutputFolder(), fileName.concat("_excursion.csv"));
+  }
+
+  private @NotNull File getMonteCarloFile() {
+    return new File(this.getOutputFolder(), fileName.concat("_monte-carlo.csv"));
+  }
+
   private @NotNull String getNumber(final @NotNull BigDecimal value) {
     return new DecimalFormat("#0.0#").format(value.doubleValue()).replace(".", ",");
   }
 
+  /**
+   * Get the summary of the run, the values follow the {@link StatisticHeader} columns
+   *
+   * @return The summary values formatted to the statistic file
+   */
+  @Synchronized
+  public Object @NotNull [] getSummary() {
+    final int win = Arrays.stream(this.getWins()).sum();
+    final int lose = Arrays.stream(this.getLosses()).sum();
+    final int total = win + lose;
+
+    final BigDecimal winPorc =
+        win == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(win).divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
+
+    final long numberBar = this.getCandlestickService().getNumberBar();
+    final AccountRepository account = this.getAccountRepository();
+    final BigDecimal currentBalance = account.toDecimal(account.getEquity());
+
+    final BigDecimal consistence = total == 0 || numberBar == 0L ? BigDecimal.ZERO
+        : BigDecimal.valueOf(total).divide(BigDecimal.valueOf(numberBar), 2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
+
+    return new Object[]{this.getTimeFrame(), this.getSlotOpen().getKey(), this.getSlotOpen().getValue(), this.getTakeProfit(), this.getStopLoss(),
+        this.getMaxSpread(), this.getMinTradingDiff(), this.isOpenOnlyStrong(), this.getNumber(winPorc), win, lose, total, this.getNumber(consistence), numberBar,
+        this.getNumber(account.toDecimal(account.getLowEquity())), this.getNumber(account.toDecimal(account.getHighEquity())), this.getNumber(currentBalance),
+        this.getNumber(this.getProfitFactor()), this.getNumber(this.getExpectancy()), this.getMaxConsecutiveLosses(),
+        this.getNumber(account.toDecimal(account.getMaxDrawdown())), this.getSharpe().toPlainString().replace(".", ","),
+        this.getSortino().toPlainString().replace(".", ",")};
+  }
+
+  /**
+   * Get the equity at the close of each bar followed by the run, the last bar is the bar still open with the last equity
+   *
+   * @return The open date time of the bar and the equity
+   */
+  @Synchronized
+  public @NotNull List<Pair<LocalDateTime, BigDecimal>> getEquityCurve() {
+    final AccountRepository account = this.getAccountRepository();
+    final int size = this.getEquitySize();
+    return IntStream.range(0, this.getBarKey() == Long.MIN_VALUE ? size : size + 1).mapToObj(i -> {
+      final long key = i < size ? this.getEquityBarKeys()[i] : this.getBarKey();
+      final LocalDateTime dateTime = LocalDateTime.of(LocalDate.ofEpochDay(Math.floorDiv(key, this.getBarsOfDay())),
+          LocalTime.ofSecondOfDay((long) Math.floorMod(key, this.getBarsOfDay()) * this.getBarMinutes() * MINUTES_OF_HOUR));
+      return Pair.of(dateTime, account.toDecimal(i < size ? this.getEquityValues()[i] : this.getLastEquity()));
+    }).toList();
+  }
+
+  /**
+   * Get a metric of the run to compare it with other runs, bigger is better (a stopped run is the worst)
+   *
+   * @param metric The metric
+   * @return The metric value
+   */
+  @Synchronized
+  public double getFitness(final @NotNull FitnessMetric metric) {
+    if (this.isStopped()) {
+      return Double.NEGATIVE_INFINITY;
+    }
+    final AccountRepository account = this.getAccountRepository();
+    return switch (metric) {
+      case BALANCE -> account.toDecimal(account.getEquity()).doubleValue();
+      case PROFIT_FACTOR -> this.getProfitFactor().doubleValue();
+      case EXPECTANCY -> this.getExpectancy().doubleValue();
+      case SHARPE -> this.getSharpe().doubleValue();
+      case SORTINO -> this.getSortino().doubleValue();
+      // Without drawdown a profit is the best run and the others the same as no profit
+      case RECOVERY_FACTOR -> account.getMaxDrawdown() == 0L ? (account.getEquity() > 0L ? Double.POSITIVE_INFINITY : 0d)
+          : (double) account.getEquity() / account.getMaxDrawdown();
+    };
+  }
+
   @SneakyThrows
   private void updateDebugFile() {
     try (final FileWriter fileWriter = new FileWriter(this.getOutputFile()); final CSVPrinter csvPrinter = CSV_FORMAT.print(fileWriter)) {
-      final int win = this.getDataBase().entrySet().stream().flatMapToInt(entry -> entry.getValue().values().stream().mapToInt(integerPair -> integerPair.getKey().get()))
-          .sum();
-      final int lose = this.getDataBase().entrySet().stream()
-          .flatMapToInt(entry -> entry.getValue().values().stream().mapToInt(integerPair -> integerPair.getValue().get())).sum();
-      final int total = win + lose;
+      csvPrinter.printRecord(this.getSummary());
 
-      final BigDecimal winPorc =
-          win == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(win).divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
+      final AccountRepository account = this.getAccountRepository();
+      log.info("=BALANCE={}=BALANCE=", account.toDecimal(account.getEquity()));
+      log.info("=DRAWDOWN={}=PEAK={}=", account.toDecimal(account.getMaxDrawdown()), account.toDecimal(account.getPeakEquity()));
+      log.info("=WIN={}=WIN=", Arrays.stream(this.getWins()).sum());
+      log.info("=LOSE={}=LOSE=", Arrays.stream(this.getLosses()).sum());
+      log.info("=PROFIT-FACTOR={}=EXPECTANCY={}=SHARPE={}=SORTINO={}=", this.getProfitFactor(), this.getExpectancy(), this.getSharpe(), this.getSortino());
+    }
+    try (final FileWriter fileWriter = new FileWriter(this.getExcursionFile()); final CSVPrinter csvPrinter = CSV_FORMAT.print(fileWriter)) {
+      csvPrinter.printRecord("POINTS", "MAE", "MFE");
+      for (int i = 0; i < EXCURSION_BUCKETS; i++) {
+        csvPrinter.printRecord(i * Math.max(1, this.getExcursionStep()), this.getMaeHistogram()[i], this.getMfeHistogram()[i]);
+      }
+    }
+    if (this.getMonteCarloIterations() > 0) {
+      this.printMonteCarlo();
+    }
+  }
 
-      final long numberBar = this.getCandlestickService().getNumberBar();
+  @SneakyThrows
+  private void printMonteCarlo() {
+    final long start = System.nanoTime();
+    final MonteCarlo.Result result = MonteCarlo.simulate(this.getTradeResults(), this.getTradeSize(), this.getMonteCarloIterations(), this.getMonteCarloMode(),
+        this.getMonteCarloSeed());
+    final AccountRepository account = this.getAccountRepository();
+    try (final FileWriter fileWriter = new FileWriter(this.getMonteCarloFile()); final CSVPrinter csvPrinter = CSV_FORMAT.print(fileWriter)) {
+      csvPrinter.printRecord("PERCENTILE", "FINAL_BALANCE", "MAX_DRAWDOWN");
+      for (final double percentile : MONTE_CARLO_PERCENTILES) {
+        csvPrinter.printRecord(this.getNumber(BigDecimal.valueOf(percentile)), this.getNumber(account.toDecimal(result.getFinal(percentile))),
+            this.getNumber(account.toDecimal(result.getDrawdown(percentile))));
+      }
+    }
+    log.info("=MONTE-CARLO={}={}=TRADES={}=DRAWDOWN-95={}=IN={}ms=", this.getMonteCarloMode(), this.getMonteCarloIterations(), this.getTradeSize(),
+        account.toDecimal(result.getDrawdown(95d)), (System.nanoTime() - start) / 1_000_000L);
+  }
 
-      final BigDecimal consistence = total == 0 || numberBar == 0L ? BigDecimal.ZERO
-          : BigDecimal.valueOf(total).divide(BigDecimal.valueOf(numberBar), 2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
+  private @NotNull BigDecimal getProfitFactor() {
+    return this.getGrossLoss() == 0L ? BigDecimal.ZERO
+        : BigDecimal.valueOf(this.getGrossProfit()).divide(BigDecimal.valueOf(this.getGrossLoss()), 2, RoundingMode.HALF_UP);
+  }
 
-      csvPrinter.printRecord(this.getTimeFrame(), this.getSlotOpen().getKey(), this.getSlotOpen().getValue(), this.getTakeProfit(), this.getStopLoss(),
-          this.getMaxSpread(), this.getMinTradingDiff(), this.isOpenOnlyStrong(), this.getNumber(winPorc), win, lose, total, this.getNumber(consistence), numberBar,
-          this.getNumber(this.getLowBalance()), this.getNumber(this.getHighBalance()), this.getNumber(this.getCurrentBalance()));
+  private @NotNull BigDecimal getExpectancy() {
+    final int total = Arrays.stream(this.getWins()).sum() + Arrays.stream(this.getLosses()).sum();
+    return total == 0 ? BigDecimal.ZERO
+        : this.getAccountRepository().toDecimal(this.getGrossProfit() - this.getGrossLoss()).divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
+  }
+
+  // Sharpe and Sortino of the equity change by bar, without risk free and not annualized
+  private @NotNull BigDecimal getSharpe() {
+    final BarReturns returns = this.getBarReturns();
+    final double deviation = returns.number() < 2L ? 0d : Math.sqrt(returns.squares() / (returns.number() - 1L));
+    return deviation == 0d ? BigDecimal.ZERO : BigDecimal.valueOf(returns.mean() / deviation).setScale(4, RoundingMode.HALF_UP);
+  }
 
-      log.info("=BALANCE={}=BALANCE=", this.getCurrentBalance());
-      log.info("=WIN={}=WIN=", win);
-      log.info("=LOSE={}=LOSE=", lose);
+  private @NotNull BigDecimal getSortino() {
+    final BarReturns returns = this.getBarReturns();
+    final double downsideDeviation = returns.number() == 0L ? 0d : Math.sqrt(returns.downsideSquares() / returns.number());
+    return downsideDeviation == 0d ? BigDecimal.ZERO : BigDecimal.valueOf(returns.mean() / downsideDeviation).setScale(4, RoundingMode.HALF_UP);
+  }
+
+  // The returns of the closed bars with the return of the bar still open, the open bar is only added on the next bar
+  private @NotNull BarReturns getBarReturns() {
+    if (this.getBarKey() == Long.MIN_VALUE) {
+      return new BarReturns(this.getNumberOfReturns(), this.getReturnMean(), this.getReturnSquares(), this.getDownsideSquares());
     }
+    final double value = this.getLastEquity() - this.getBarCloseEquity();
+    final long number = this.getNumberOfReturns() + 1L;
+    final double delta = value - this.getReturnMean();
+    final double mean = this.getReturnMean() + delta / number;
+    return new BarReturns(number, mean, this.getReturnSquares() + delta * (value - mean),
+        value < 0d ? this.getDownsideSquares() + value * value : this.getDownsideSquares());
   }
 
   private @NotNull Pair<String, String> getSlotOpen() {
@@ -189,4 +513,7 @@ public class StatisticRepository {
     return Pair.of(ERROR, ERROR);
   }
 
+  private record BarReturns(long number, double mean, double squares, double downsideSquares) {
+
+  }
 }
@@ -1,11 +1,16 @@
 package br.eti.allandemiranda.forex.repositories;
 
 import br.eti.allandemiranda.forex.dtos.Ticket;
+import br.eti.allandemiranda.forex.utils.BinaryTools;
 import br.eti.allandemiranda.forex.utils.Tools;
 import jakarta.annotation.PostConstruct;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.Objects;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
@@ -17,12 +22,15 @@ import org.springframework.stereotype.Repository;
 @Repository
 @Getter(AccessLevel.PRIVATE)
 @Setter(AccessLevel.PRIVATE)
-public class TicketRepository {
+public class TicketRepository implements StateSnapshot {
 
   private LocalDateTime dateTime;
   private BigDecimal bid;
   private BigDecimal ask;
   private int spread;
+  // Number of ticks received (valid or not), it is the offset of the next tick on the input
+  @Getter(AccessLevel.PUBLIC)
+  private long numberOfTicks = 0L;
   /**
    * Number of digits of currency pairs
    */
@@ -61,6 +69,14 @@ public class TicketRepository {
     this.setSpread(points);
   }
 
+  /**
+   * Count a tick received from the input
+   */
+  @Synchronized
+  public void countTick() {
+    this.numberOfTicks++;
+  }
+
   /**
    * Get the current ticket
    *
@@ -69,4 +85,24 @@ public class TicketRepository {
   public @NotNull Ticket getCurrentTicket() {
     return new Ticket(this.getDateTime(), this.getBid(), this.getAsk(), this.getSpread(), this.getDigits());
   }
+
+  @Override
+  @Synchronized
+  public void writeSnapshot(final @NotNull DataOutput output) throws IOException {
+    output.writeLong(this.getNumberOfTicks());
+    BinaryTools.writeDateTime(output, this.getDateTime());
+    BinaryTools.writeBigDecimal(output, this.getBid());
+    BinaryTools.writeBigDecimal(output, this.getAsk());
+    output.writeInt(this.getSpread());
+  }
+
+  @Override
+  @Synchronized
+  public void readSnapshot(final @NotNull DataInput input) throws IOException {
+    this.setNumberOfTicks(input.readLong());
+    this.setDateTime(BinaryTools.readDateTime(input));
+    this.setBid(Objects.requireNonNullElse(BinaryTools.readBigDecimal(input), BigDecimal.ZERO));
+    this.setAsk(Objects.requireNonNullElse(BinaryTools.readBigDecimal(input), BigDecimal.ZERO));
+    this.setSpread(input.readInt());
+  }
 }
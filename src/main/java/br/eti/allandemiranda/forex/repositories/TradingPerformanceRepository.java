@@ -1,7 +1,12 @@
 package br.eti.allandemiranda.forex.repositories;
 
+import br.eti.allandemiranda.forex.utils.BinaryTools;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.Objects;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
@@ -11,7 +16,7 @@ import org.springframework.stereotype.Repository;
 @Repository
 @Getter(AccessLevel.PRIVATE)
 @Setter(AccessLevel.PRIVATE)
-public class TradingPerformanceRepository {
+public class TradingPerformanceRepository implements StateSnapshot {
 
   private BigDecimal simple = BigDecimal.ZERO;
   private BigDecimal exponential = BigDecimal.ZERO;
@@ -35,4 +40,16 @@ public class TradingPerformanceRepository {
   public SimpleEntry<BigDecimal, BigDecimal> getTradingPerformance() {
     return new SimpleEntry<>(this.getSimple(), this.getExponential());
   }
+
+  @Override
+  public void writeSnapshot(final @NotNull DataOutput output) throws IOException {
+    BinaryTools.writeBigDecimal(output, this.getSimple());
+    BinaryTools.writeBigDecimal(output, this.getExponential());
+  }
+
+  @Override
+  public void readSnapshot(final @NotNull DataInput input) throws IOException {
+    this.setSimple(Objects.requireNonNullElse(BinaryTools.readBigDecimal(input), BigDecimal.ZERO));
+    this.setExponential(Objects.requireNonNullElse(BinaryTools.readBigDecimal(input), BigDecimal.ZERO));
+  }
 }
@@ -0,0 +1,208 @@
+package br.eti.allandemiranda.forex.services;
+
+import br.eti.allandemiranda.forex.dtos.AC;
+import br.eti.allandemiranda.forex.dtos.ADX;
+import br.eti.allandemiranda.forex.dtos.Candlestick;
+import br.eti.allandemiranda.forex.dtos.DigestEvent;
+import br.eti.allandemiranda.forex.dtos.MACD;
+import br.eti.allandemiranda.forex.dtos.Order;
+import br.eti.allandemiranda.forex.dtos.Signal;
+import br.eti.allandemiranda.forex.repositories.StateSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rolling digest (64-bit FNV-1a) of the results of the run, updated on each bar close (candle, indicator outputs and signal) and on each order event. The
+ * values are written as text with the decimals without trailing zeros, so two engines with the same results have the same digest even if they keep the numbers
+ * on other scales or types. The last events are kept with their values to show the context of a divergence.
+ */
+@Service
+@Getter(AccessLevel.PRIVATE)
+@Slf4j
+public class DigestService implements StateSnapshot {
+
+  public static final String BAR = "BAR";
+  public static final String OPEN = "OPEN";
+  public static final String PENDING = "PENDING";
+  public static final String ACTIVATE = "ACTIVATE";
+  public static final String STOP_LOSS = "STOP_LOSS";
+  public static final String CLOSE = "CLOSE";
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final TicketService ticketService;
+  private final CandlestickService candlestickService;
+  private final AdxService adxService;
+  private final AcService acService;
+  private final MacdService macdService;
+  private final SignalService signalService;
+  private final TradingPerformanceService tradingPerformanceService;
+
+  @Getter(AccessLevel.PUBLIC)
+  @Value("${config.digest.active:false}")
+  private boolean active;
+  // Number of last events kept to show the context of a divergence
+  @Value("${config.digest.context:8}")
+  private int contextSize;
+  @Getter(AccessLevel.PUBLIC)
+  @Setter(AccessLevel.PRIVATE)
+  private long digest = FNV_OFFSET;
+  @Getter(AccessLevel.PUBLIC)
+  @Setter(AccessLevel.PRIVATE)
+  private long numberOfEvents = 0L;
+  // Ring of the last events, the oldest is on the position of the next event
+  @Setter(AccessLevel.PRIVATE)
+  private DigestEvent[] lastEvents;
+
+  @Autowired
+  protected DigestService(final TicketService ticketService, final CandlestickService candlestickService, final AdxService adxService, final AcService acService, final MacdService macdService,
+      final SignalService signalService, final TradingPerformanceService tradingPerformanceService) {
+    this.ticketService = ticketService;
+    this.candlestickService = candlestickService;
+    this.adxService = adxService;
+    this.acService = acService;
+    this.macdService = macdService;
+    this.signalService = signalService;
+    this.tradingPerformanceService = tradingPerformanceService;
+  }
+
+  @PostConstruct
+  private void init() {
+    this.setLastEvents(new DigestEvent[Math.max(0, this.getContextSize())]);
+  }
+
+  private static @NotNull String toText(final @NotNull BigDecimal value) {
+    return value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+  }
+
+  /**
+   * Add the bar closed with the outputs of the indicators and the signal of it
+   */
+  public void addBar() {
+    if (this.isActive()) {
+      final Candlestick candlestick = this.getCandlestickService().getLastCloseCandlestick();
+      final ADX adx = this.getAdxService().getAdx();
+      final SimpleEntry<BigDecimal, BigDecimal> tradingPerformance = this.getTradingPerformanceService().getTradingPerformance();
+      final Signal signal = this.getSignalService().getLastSignal();
+      final StringBuilder values = new StringBuilder().append(candlestick.dateTime()).append(" O=").append(toText(candlestick.open())).append(" H=")
+          .append(toText(candlestick.high())).append(" L=").append(toText(candlestick.low())).append(" C=").append(toText(candlestick.close())).append(" ADX=")
+          .append(toText(adx.value())).append('/').append(toText(adx.diPlus())).append('/').append(toText(adx.diMinus())).append(" AC=");
+      for (final AC ac : this.getAcService().getAc()) {
+        values.append(toText(ac.value())).append(',');
+      }
+      values.append(" MACD=");
+      for (final MACD macd : this.getMacdService().getMacd()) {
+        values.append(toText(macd.main())).append('/').append(toText(macd.signal())).append(',');
+      }
+      values.append(" TP=").append(toText(tradingPerformance.getKey())).append('/').append(toText(tradingPerformance.getValue())).append(" SIGNAL=")
+          .append(signal.dataTime()).append(' ').append(signal.trend());
+      this.add(this.getTicketService().getTicket().dateTime(), BAR, values.toString());
+    }
+  }
+
+  /**
+   * Add an order event
+   *
+   * @param type  The event type
+   * @param order The order after the event
+   */
+  public void addOrder(final @NotNull String type, final @NotNull Order order) {
+    if (this.isActive()) {
+      this.add(order.lastUpdateDateTime(), type,
+          "ID=" + order.orderId() + ' ' + order.orderStatus() + ' ' + order.orderPosition() + " SIGNAL=" + order.signalDateTime() + ' ' + order.signalTrend()
+              + " OPEN=" + order.openDateTime() + ' ' + toText(order.openPrice()) + " CLOSE=" + toText(order.closePrice()) + " TP_DIFF="
+              + order.tradingPerformanceDiff() + " PROFIT=" + order.currentProfit() + '/' + order.highProfit() + '/' + order.lowProfit() + " SWAP=" + toText(
+              order.swapProfit()));
+    }
+  }
+
+  /**
+   * Add a stop loss moved by the trailing stop or break-even
+   *
+   * @param dateTime      The ticket date time
+   * @param orderId       The order id
+   * @param stopLossPrice The new stop loss in points
+   * @param breakEven     If the break-even was applied
+   */
+  public void addStopLoss(final @NotNull LocalDateTime dateTime, final long orderId, final int stopLossPrice, final boolean breakEven) {
+    if (this.isActive()) {
+      this.add(dateTime, STOP_LOSS, "ID=" + orderId + " PRICE=" + stopLossPrice + " BREAK_EVEN=" + breakEven);
+    }
+  }
+
+  /**
+   * Get the last events, from the oldest
+   *
+   * @return The events kept on the context
+   */
+  public @NotNull List<DigestEvent> getContext() {
+    final DigestEvent[] ring = this.getLastEvents();
+    final List<DigestEvent> events = new ArrayList<>(ring.length);
+    for (int i = 0; i < ring.length; i++) {
+      final DigestEvent event = ring[(int) ((this.getNumberOfEvents() + i) % ring.length)];
+      if (Objects.nonNull(event)) {
+        events.add(event);
+      }
+    }
+    return events;
+  }
+
+  private void add(final @NotNull LocalDateTime dateTime, final @NotNull String type, final @NotNull String values) {
+    long hash = this.getDigest();
+    hash = hash(hash, dateTime.toString());
+    hash = hash(hash, type);
+    hash = hash(hash, values);
+    this.setDigest(hash);
+    final DigestEvent[] ring = this.getLastEvents();
+    if (ring.length > 0) {
+      ring[(int) (this.getNumberOfEvents() % ring.length)] = new DigestEvent(this.getNumberOfEvents(), dateTime, type, values, hash);
+    }
+    this.setNumberOfEvents(this.getNumberOfEvents() + 1L);
+  }
+
+  private static long hash(final long start, final @NotNull String text) {
+    long hash = start;
+    for (int i = 0; i < text.length(); i++) {
+      hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+    }
+    // Separator, so the fields can't be shifted between them
+    return (hash ^ 0xFFFFL) * FNV_PRIME;
+  }
+
+  @PreDestroy
+  private void preDestroy() {
+    if (this.isActive()) {
+      log.info("=DIGEST={}=EVENTS={}=", String.format("%016x", this.getDigest()), this.getNumberOfEvents());
+    }
+  }
+
+  // The digest continues on a resumed run, the context starts empty
+  @Override
+  public void writeSnapshot(final @NotNull DataOutput output) throws IOException {
+    output.writeLong(this.getDigest());
+    output.writeLong(this.getNumberOfEvents());
+  }
+
+  @Override
+  public void readSnapshot(final @NotNull DataInput input) throws IOException {
+    this.setDigest(input.readLong());
+    this.setNumberOfEvents(input.readLong());
+  }
+}
@@ -0,0 +1,452 @@
+package br.eti.allandemiranda.forex.services;
+
+import br.eti.allandemiranda.forex.dtos.OrderSafe;
+import br.eti.allandemiranda.forex.enums.OrderPosition;
+import br.eti.allandemiranda.forex.enums.OrderStatus;
+import br.eti.allandemiranda.forex.enums.OrderType;
+import br.eti.allandemiranda.forex.enums.SignalTrend;
+import br.eti.allandemiranda.forex.exceptions.ServiceException;
+import br.eti.allandemiranda.forex.repositories.AccountRepository;
+import br.eti.allandemiranda.forex.repositories.OrderRepository;
+import br.eti.allandemiranda.forex.utils.BinaryTools;
+import jakarta.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.zip.CRC32;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.Synchronized;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Append-only binary journal of the order book. Each record is written as the length, the record type with the values and the CRC32 of them, a torn record at
+ * the end (crash during a write) is dropped on the replay. Each record is written to the channel when it ends, so a crash of the process loses no record, and
+ * a fsync is done every batch of records against a crash of the system.
+ */
+@Service
+@Getter(AccessLevel.PRIVATE)
+@Slf4j
+public class JournalService {
+
+  private static final String OUTPUT_FILE_NAME = "order.journal";
+  private static final int MAGIC = 0x46584A4E;
+  private static final short VERSION = 2;
+  private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
+  // Upper size of one record (length, type, values and CRC)
+  private static final int BUFFER_SIZE = 128;
+  private static final byte OPEN = 1;
+  private static final byte PENDING = 2;
+  private static final byte ACTIVATE = 3;
+  private static final byte STOP_LOSS = 4;
+  private static final byte ROLLOVER = 5;
+  private static final byte CLOSE = 6;
+  private static final OrderStatus[] ORDER_STATUS = OrderStatus.values();
+  private static final OrderPosition[] ORDER_POSITION = OrderPosition.values();
+  private static final OrderType[] ORDER_TYPE = OrderType.values();
+  private static final SignalTrend[] SIGNAL_TREND = SignalTrend.values();
+
+  private final OrderRepository orderRepository;
+  private final AccountRepository accountRepository;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private final CRC32 crc = new CRC32();
+
+  @Value("${config.root.folder}")
+  private File outputFolder;
+  @Value("${order.journal.active:false}")
+  private boolean active;
+  // Number of records by fsync (0 to let the system sync the written records)
+  @Value("${order.journal.sync-batch:64}")
+  private int syncBatch;
+  @Setter(AccessLevel.PRIVATE)
+  private FileChannel channel;
+  @Setter(AccessLevel.PRIVATE)
+  private long unsyncedRecords = 0L;
+  // The next rollover of the last rollover record
+  @Setter(AccessLevel.PRIVATE)
+  private LocalDateTime replayedRolloverDateTime;
+
+  @Autowired
+  protected JournalService(final OrderRepository orderRepository, final AccountRepository accountRepository) {
+    this.orderRepository = orderRepository;
+    this.accountRepository = accountRepository;
+  }
+
+  private @NotNull File getOutputFile() {
+    return new File(this.getOutputFolder(), OUTPUT_FILE_NAME);
+  }
+
+  /**
+   * Rebuild the order book and the balance from the journal and open it to add the new records. It needs the account scale defined.
+   *
+   * @return The newest signal date time of the orders and the next rollover on the journal
+   */
+  @Synchronized
+  public @NotNull Replay replay() {
+    LocalDateTime lastSignalDateTime = LocalDateTime.MIN;
+    if (this.isActive()) {
+      try {
+        final FileChannel fileChannel = FileChannel.open(this.getOutputFile().toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        this.setChannel(fileChannel);
+        if (fileChannel.size() < HEADER_SIZE) {
+          fileChannel.truncate(0L);
+          this.buffer.clear().putInt(MAGIC).putShort(VERSION);
+          this.writeBuffer();
+        } else {
+          lastSignalDateTime = this.readRecords(fileChannel);
+        }
+      } catch (IOException e) {
+        throw new ServiceException("Can't open the order journal " + this.getOutputFile(), e);
+      }
+    }
+    return new Replay(lastSignalDateTime, this.getReplayedRolloverDateTime());
+  }
+
+  /**
+   * Add a market order
+   *
+   * @param orderId                The order id
+   * @param openDateTime           The open date time
+   * @param signalDateTime         The signal date time
+   * @param signalTrend            The signal trend
+   * @param orderPosition          The position
+   * @param tradingPerformanceDiff The trading performance diff when open
+   * @param openPrice              The open price in points
+   * @param orderSafe              The exit rules
+   */
+  @Synchronized
+  public void addOpen(final long orderId, final @NotNull LocalDateTime openDateTime, final @NotNull LocalDateTime signalDateTime,
+      final @NotNull SignalTrend signalTrend, final @NotNull OrderPosition orderPosition, final int tradingPerformanceDiff, final int openPrice,
+      final @NotNull OrderSafe orderSafe) {
+    if (this.isActive()) {
+      final ByteBuffer record = this.startRecord(OPEN);
+      record.putLong(orderId);
+      BinaryTools.putDateTime(record, openDateTime);
+      BinaryTools.putDateTime(record, signalDateTime);
+      record.put((byte) signalTrend.ordinal()).put((byte) orderPosition.ordinal()).putInt(tradingPerformanceDiff).putInt(openPrice);
+      putOrderSafe(record, orderSafe);
+      this.endRecord();
+    }
+  }
+
+  /**
+   * Add a pending order
+   *
+   * @param orderId                The order id
+   * @param dateTime               The placement date time
+   * @param signalDateTime         The signal date time
+   * @param signalTrend            The signal trend
+   * @param orderPosition          The position
+   * @param orderType              The pending type
+   * @param tradingPerformanceDiff The trading performance diff when placed
+   * @param price                  The activation price in points
+   * @param orderSafe              The exit rules
+   * @param expirationDateTime     The expiration date time (null to never expire)
+   */
+  @Synchronized
+  public void addPending(final long orderId, final @NotNull LocalDateTime dateTime, final @NotNull LocalDateTime signalDateTime,
+      final @NotNull SignalTrend signalTrend, final @NotNull OrderPosition orderPosition, final @NotNull OrderType orderType, final int tradingPerformanceDiff,
+      final int price, final @NotNull OrderSafe orderSafe, final @Nullable LocalDateTime expirationDateTime) {
+    if (this.isActive()) {
+      final ByteBuffer record = this.startRecord(PENDING);
+      record.putLong(orderId);
+      BinaryTools.putDateTime(record, dateTime);
+      BinaryTools.putDateTime(record, signalDateTime);
+      record.put((byte) signalTrend.ordinal()).put((byte) orderPosition.ordinal()).put((byte) orderType.ordinal()).putInt(tradingPerformanceDiff).putInt(price);
+      putOrderSafe(record, orderSafe);
+      record.put((byte) (expirationDateTime == null ? 0 : 1));
+      if (expirationDateTime != null) {
+        BinaryTools.putDateTime(record, expirationDateTime);
+      }
+      this.endRecord();
+    }
+  }
+
+  /**
+   * Add the activation of a pending order on a ticket
+   *
+   * @param orderId  The order id
+   * @param dateTime The ticket date time
+   * @param bid      The BID in points
+   * @param ask      The ASK in points
+   * @param digits   The number of digits of the prices
+   */
+  @Synchronized
+  public void addActivation(final long orderId, final @NotNull LocalDateTime dateTime, final int bid, final int ask, final int digits) {
+    if (this.isActive()) {
+      final ByteBuffer record = this.startRecord(ACTIVATE);
+      record.putLong(orderId);
+      putTicket(record, dateTime, bid, ask, digits);
+      this.endRecord();
+    }
+  }
+
+  /**
+   * Add the new stop loss of an order (trailing stop or break-even)
+   *
+   * @param orderId       The order id
+   * @param stopLossPrice The stop loss price in points
+   * @param breakEven     If the break-even was applied
+   */
+  @Synchronized
+  public void addStopLoss(final long orderId, final int stopLossPrice, final boolean breakEven) {
+    if (this.isActive()) {
+      this.startRecord(STOP_LOSS).putLong(orderId).putInt(stopLossPrice).put((byte) (breakEven ? 1 : 0));
+      this.endRecord();
+    }
+  }
+
+  /**
+   * Add a rollover, the swap added to each position side and the next rollover (the first ticket only defines the next rollover, with zero swaps)
+   *
+   * @param swapLong             The swap of one buy order in account units
+   * @param swapShort            The swap of one sell order in account units
+   * @param nextRolloverDateTime The next rollover date time
+   */
+  @Synchronized
+  public void addRollover(final long swapLong, final long swapShort, final @NotNull LocalDateTime nextRolloverDateTime) {
+    if (this.isActive()) {
+      final ByteBuffer record = this.startRecord(ROLLOVER).putLong(swapLong).putLong(swapShort);
+      BinaryTools.putDateTime(record, nextRolloverDateTime);
+      this.endRecord();
+    }
+  }
+
+  /**
+   * Add the close (or expiration) of an order on a ticket
+   *
+   * @param orderId     The order id
+   * @param orderStatus The close status
+   * @param dateTime    The ticket date time
+   * @param bid         The BID in points
+   * @param ask         The ASK in points
+   * @param digits      The number of digits of the prices
+   */
+  @Synchronized
+  public void addClose(final long orderId, final @NotNull OrderStatus orderStatus, final @NotNull LocalDateTime dateTime, final int bid, final int ask,
+      final int digits) {
+    if (this.isActive()) {
+      final ByteBuffer record = this.startRecord(CLOSE);
+      record.putLong(orderId).put((byte) orderStatus.ordinal());
+      putTicket(record, dateTime, bid, ask, digits);
+      this.endRecord();
+    }
+  }
+
+  @PreDestroy
+  @Synchronized
+  private void preDestroy() {
+    if (this.getChannel() != null) {
+      try (final FileChannel fileChannel = this.getChannel()) {
+        fileChannel.force(false);
+      } catch (IOException e) {
+        log.warn("Can't close the order journal {}: {}", this.getOutputFile(), e.getMessage());
+      }
+      this.setChannel(null);
+    }
+  }
+
+  private static void putOrderSafe(final @NotNull ByteBuffer record, final @NotNull OrderSafe orderSafe) {
+    record.putInt(orderSafe.takeProfit()).putInt(orderSafe.stopLoss()).putInt(orderSafe.trailingDistance()).putInt(orderSafe.trailingActivation())
+        .putInt(orderSafe.trailingStep()).putInt(orderSafe.breakEvenActivation()).putInt(orderSafe.breakEvenOffset());
+  }
+
+  private static @NotNull OrderSafe getOrderSafe(final @NotNull ByteBuffer record) {
+    return new OrderSafe(record.getInt(), record.getInt(), record.getInt(), record.getInt(), record.getInt(), record.getInt(), record.getInt());
+  }
+
+  private static void putTicket(final @NotNull ByteBuffer record, final @NotNull LocalDateTime dateTime, final int bid, final int ask, final int digits) {
+    BinaryTools.putDateTime(record, dateTime);
+    record.putInt(bid).putInt(ask).put((byte) digits);
+  }
+
+  private @NotNull ByteBuffer startRecord(final byte type) {
+    if (this.getChannel() == null) {
+      throw new ServiceException("The order journal needs to be replayed before new records");
+    }
+    // The length is written when the record ends
+    this.buffer.clear();
+    return this.buffer.putInt(0).put(type);
+  }
+
+  private void endRecord() {
+    final int end = this.buffer.position();
+    this.crc.reset();
+    this.crc.update(this.buffer.duplicate().limit(end).position(Integer.BYTES));
+    this.buffer.putInt(0, end - Integer.BYTES);
+    this.buffer.putInt((int) this.crc.getValue());
+    this.flush();
+    this.setUnsyncedRecords(this.getUnsyncedRecords() + 1L);
+    if (this.getSyncBatch() > 0 && this.getUnsyncedRecords() >= this.getSyncBatch()) {
+      this.sync();
+    }
+  }
+
+  private void flush() {
+    try {
+      this.writeBuffer();
+    } catch (IOException e) {
+      throw new ServiceException("Can't write the order journal " + this.getOutputFile(), e);
+    }
+  }
+
+  private void sync() {
+    try {
+      this.getChannel().force(false);
+      this.setUnsyncedRecords(0L);
+    } catch (IOException e) {
+      throw new ServiceException("Can't sync the order journal " + this.getOutputFile(), e);
+    }
+  }
+
+  private void writeBuffer() throws IOException {
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.getChannel().write(this.buffer);
+    }
+    this.buffer.clear();
+  }
+
+  /**
+   * Apply the records of the journal to the book and the account, the file is truncated after the last valid record
+   *
+   * @param fileChannel The journal channel
+   * @return The newest signal date time of the orders
+   * @throws IOException If the journal can't be read
+   */
+  private @NotNull LocalDateTime readRecords(final @NotNull FileChannel fileChannel) throws IOException {
+    final long size = fileChannel.size();
+    final ByteBuffer journal = fileChannel.map(MapMode.READ_ONLY, 0L, size);
+    if (journal.getInt() != MAGIC || journal.getShort() != VERSION) {
+      throw new ServiceException("Unknown order journal format " + this.getOutputFile());
+    }
+    LocalDateTime lastSignalDateTime = LocalDateTime.MIN;
+    long records = 0L;
+    int valid = journal.position();
+    while (journal.remaining() >= Integer.BYTES) {
+      final int length = journal.getInt();
+      if (length <= 0 || journal.remaining() < length + Integer.BYTES) {
+        break;
+      }
+      final ByteBuffer record = journal.slice(journal.position(), length);
+      this.crc.reset();
+      this.crc.update(record.duplicate());
+      journal.position(journal.position() + length);
+      if (journal.getInt() != (int) this.crc.getValue()) {
+        break;
+      }
+      final LocalDateTime signalDateTime = this.applyRecord(record);
+      if (signalDateTime != null && signalDateTime.isAfter(lastSignalDateTime)) {
+        lastSignalDateTime = signalDateTime;
+      }
+      valid = journal.position();
+      records++;
+    }
+    if (valid < size) {
+      log.warn("Order journal {} with a torn record, {} bytes dropped", this.getOutputFile(), size - valid);
+      fileChannel.truncate(valid);
+    }
+    fileChannel.position(valid);
+    final OrderRepository orders = this.getOrderRepository();
+    this.getAccountRepository().setFloating(orders.getOpenPoints(), orders.getOpenSwapProfit(), (int) orders.numberOfOrdersOpen());
+    log.info("Order journal replayed with {} records, {} open and {} pending orders", records, orders.numberOfOrdersOpen(), orders.numberOfOrdersPending());
+    return lastSignalDateTime;
+  }
+
+  /**
+   * Apply one record of the journal
+   *
+   * @param record The record values (type first)
+   * @return The signal date time of a new order or null
+   */
+  private @Nullable LocalDateTime applyRecord(final @NotNull ByteBuffer record) {
+    final OrderRepository orders = this.getOrderRepository();
+    switch (record.get()) {
+      case OPEN -> {
+        final long orderId = record.getLong();
+        final LocalDateTime openDateTime = BinaryTools.getDateTime(record);
+        final LocalDateTime signalDateTime = BinaryTools.getDateTime(record);
+        final int slot = orders.addOrder(openDateTime, signalDateTime, SIGNAL_TREND[record.get()], ORDER_POSITION[record.get()], record.getInt(), record.getInt(),
+            getOrderSafe(record));
+        this.checkOrderId(slot, orderId);
+        return signalDateTime;
+      }
+      case PENDING -> {
+        final long orderId = record.getLong();
+        final LocalDateTime dateTime = BinaryTools.getDateTime(record);
+        final LocalDateTime signalDateTime = BinaryTools.getDateTime(record);
+        final SignalTrend signalTrend = SIGNAL_TREND[record.get()];
+        final OrderPosition orderPosition = ORDER_POSITION[record.get()];
+        final OrderType orderType = ORDER_TYPE[record.get()];
+        final int tradingPerformanceDiff = record.getInt();
+        final int price = record.getInt();
+        final OrderSafe orderSafe = getOrderSafe(record);
+        final LocalDateTime expirationDateTime = record.get() == 0 ? null : BinaryTools.getDateTime(record);
+        final int slot = orders.addPendingOrder(dateTime, signalDateTime, signalTrend, orderPosition, orderType, tradingPerformanceDiff, price, orderSafe,
+            expirationDateTime);
+        this.checkOrderId(slot, orderId);
+        return signalDateTime;
+      }
+      case ACTIVATE -> {
+        final int slot = this.findSlot(record.getLong());
+        orders.updateTicket(BinaryTools.getDateTime(record), record.getInt(), record.getInt(), record.get());
+        orders.activateOrder(slot);
+      }
+      case STOP_LOSS -> orders.restoreStopLoss(this.findSlot(record.getLong()), record.getInt(), record.get() != 0);
+      case ROLLOVER -> {
+        orders.addSwapProfit(OrderPosition.BUY, record.getLong());
+        orders.addSwapProfit(OrderPosition.SELL, record.getLong());
+        this.setReplayedRolloverDateTime(BinaryTools.getDateTime(record));
+      }
+      case CLOSE -> {
+        final int slot = this.findSlot(record.getLong());
+        final OrderStatus orderStatus = ORDER_STATUS[record.get()];
+        if (OrderStatus.EXPIRED.equals(orderStatus)) {
+          orders.expireOrder(slot);
+        } else {
+          orders.updateTicket(BinaryTools.getDateTime(record), record.getInt(), record.getInt(), record.get());
+          orders.closeOrder(slot, orderStatus);
+          this.getAccountRepository().addRealized(orders.getCurrentProfit(slot), orders.getSwapProfit(slot));
+        }
+        orders.removeCloseOrders();
+      }
+      default -> throw new ServiceException("Unknown order journal record " + record.get(0));
+    }
+    return null;
+  }
+
+  private int findSlot(final long orderId) {
+    final int slot = this.getOrderRepository().findSlot(orderId);
+    if (slot < 0) {
+      throw new ServiceException("The order journal has no order " + orderId);
+    }
+    return slot;
+  }
+
+  private void checkOrderId(final int slot, final long orderId) {
+    if (this.getOrderRepository().getOrderId(slot) != orderId) {
+      throw new ServiceException("The order journal is out of sequence on the order " + orderId);
+    }
+  }
+
+  /**
+   * The state of the journal to continue the run
+   *
+   * @param lastSignalDateTime   The newest signal date time of the orders
+   * @param nextRolloverDateTime The next rollover after the last ticket (null if the journal has no rollover)
+   */
+  public record Replay(@NotNull LocalDateTime lastSignalDateTime, @Nullable LocalDateTime nextRolloverDateTime) {
+
+  }
+}
@@ -0,0 +1,152 @@
+package br.eti.allandemiranda.forex.services;
+
+import br.eti.allandemiranda.forex.dtos.PipelineMetrics;
+import br.eti.allandemiranda.forex.dtos.StageLatency;
+import br.eti.allandemiranda.forex.headers.MetricsHeader;
+import br.eti.allandemiranda.forex.repositories.MetricsRepository;
+import jakarta.annotation.PreDestroy;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Arrays;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+@Getter(AccessLevel.PRIVATE)
+@Slf4j
+public class MetricsService {
+
+  public static final String TICKET = "TICKET";
+  public static final String CHART = "CHART";
+  public static final String INDICATORS = "INDICATORS";
+  public static final String ORDER = "ORDER";
+  private static final String RUN = ".run";
+  private static final String SIGNAL = ".signal";
+  private static final String OUTPUT_FILE_NAME = "metrics.csv";
+  private static final CSVFormat CSV_FORMAT = CSVFormat.TDF.builder().build();
+
+  private final MetricsRepository repository;
+
+  @Getter(AccessLevel.PUBLIC)
+  @Value("${config.metrics.active:false}")
+  private boolean active;
+  @Value("${config.root.folder}")
+  private File outputFolder;
+
+  @Autowired
+  protected MetricsService(final MetricsRepository repository) {
+    this.repository = repository;
+  }
+
+  /**
+   * Start a measure, when the metrics are disabled the clock is not read
+   *
+   * @return The start time to be used on {@link #record(String, long)}
+   */
+  public long start() {
+    return this.isActive() ? System.nanoTime() : 0L;
+  }
+
+  /**
+   * Record the duration of a stage
+   *
+   * @param stage The stage name
+   * @param start The value returned by {@link #start()}
+   */
+  public void record(final @NotNull String stage, final long start) {
+    if (this.isActive()) {
+      this.getRepository().addLatency(stage, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Record the duration of the indicator calculation
+   *
+   * @param indicator The indicator name
+   * @param start     The value returned by {@link #start()}
+   */
+  public void recordIndicatorRun(final @NotNull String indicator, final long start) {
+    if (this.isActive()) {
+      this.getRepository().addLatency(indicator.concat(RUN), System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Record the duration of the indicator signal
+   *
+   * @param indicator The indicator name
+   * @param start     The value returned by {@link #start()}
+   */
+  public void recordIndicatorSignal(final @NotNull String indicator, final long start) {
+    if (this.isActive()) {
+      this.getRepository().addLatency(indicator.concat(SIGNAL), System.nanoTime() - start);
+    }
+  }
+
+  public void addTick() {
+    if (this.isActive()) {
+      this.getRepository().addTick();
+    }
+  }
+
+  public void addBarClosed() {
+    if (this.isActive()) {
+      this.getRepository().addBarClosed();
+    }
+  }
+
+  public void addOrdersOpened(final long orders) {
+    if (this.isActive() && orders > 0L) {
+      this.getRepository().addOrdersOpened(orders);
+    }
+  }
+
+  public void addOrdersClosed(final long orders) {
+    if (this.isActive() && orders > 0L) {
+      this.getRepository().addOrdersClosed(orders);
+    }
+  }
+
+  /**
+   * Live view of the pipeline metrics
+   *
+   * @return The current histograms and counters
+   */
+  public @NotNull PipelineMetrics getMetrics() {
+    return this.getRepository().get();
+  }
+
+  @PreDestroy
+  private void preDestroy() {
+    if (this.isActive()) {
+      final PipelineMetrics metrics = this.getMetrics();
+      log.info("Metrics ticks={} ticks/s={} bars={} opened={} closed={}", metrics.ticks(), String.format("%.1f", metrics.ticksPerSecond()), metrics.barsClosed(),
+          metrics.ordersOpened(), metrics.ordersClosed());
+      metrics.stages().forEach(stage -> log.info("Metrics {} count={} mean={}ns p50={}ns p99={}ns max={}ns", stage.stage(), stage.count(), stage.mean(), stage.p50(),
+          stage.p99(), stage.max()));
+      this.printMetricsFile(metrics);
+    }
+  }
+
+  private @NotNull File getOutputFile() {
+    return new File(this.getOutputFolder(), OUTPUT_FILE_NAME);
+  }
+
+  @SneakyThrows
+  private void printMetricsFile(final @NotNull PipelineMetrics metrics) {
+    try (final FileWriter fileWriter = new FileWriter(this.getOutputFile()); final CSVPrinter csvPrinter = CSV_FORMAT.print(fileWriter)) {
+      csvPrinter.printRecord(Arrays.stream(MetricsHeader.values()).map(Enum::toString).toArray());
+      for (final StageLatency stage : metrics.stages()) {
+        csvPrinter.printRecord(stage.stage(), stage.count(), stage.mean(), stage.p50(), stage.p90(), stage.p99(), stage.p999(), stage.max());
+      }
+    }
+  }
+}
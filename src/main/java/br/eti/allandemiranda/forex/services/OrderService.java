@@ -1,29 +1,35 @@
 package br.eti.allandemiranda.forex.services;
 
 import br.eti.allandemiranda.forex.dtos.Order;
+import br.eti.allandemiranda.forex.dtos.OrderSafe;
 import br.eti.allandemiranda.forex.dtos.Signal;
 import br.eti.allandemiranda.forex.dtos.Ticket;
 import br.eti.allandemiranda.forex.enums.OrderPosition;
 import br.eti.allandemiranda.forex.enums.OrderStatus;
+import br.eti.allandemiranda.forex.enums.OrderType;
 import br.eti.allandemiranda.forex.enums.SignalTrend;
+import br.eti.allandemiranda.forex.events.OrderClosedEvent;
+import br.eti.allandemiranda.forex.events.OrderOpenedEvent;
 import br.eti.allandemiranda.forex.headers.OrderHeader;
+import br.eti.allandemiranda.forex.repositories.AccountRepository;
 import br.eti.allandemiranda.forex.repositories.OrderRepository;
+import br.eti.allandemiranda.forex.repositories.StateSnapshot;
 import br.eti.allandemiranda.forex.repositories.StatisticRepository;
+import br.eti.allandemiranda.forex.utils.BinaryTools;
 import jakarta.annotation.PostConstruct;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Optional;
-import java.util.stream.Collectors;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
@@ -37,19 +43,27 @@ import org.springframework.stereotype.Service;
 
 @Service
 @Getter(AccessLevel.PRIVATE)
-public class OrderService {
+public class OrderService implements StateSnapshot {
 
-  public static final String TIME_OPEN = "0 00:00:00";
-  private static final String TIME_OPEN_FORMAT = "%sd %s:%s:%s";
   private static final String OUTPUT_FILE_NAME = "order.csv";
   private static final CSVFormat CSV_FORMAT = CSVFormat.TDF.builder().build();
 
   private final OrderRepository repository;
   private final StatisticRepository statisticRepository;
+  private final AccountRepository accountRepository;
+  private final MetricsService metricsService;
+  private final JournalService journalService;
+  private final DigestService digestService;
   @Value("${order.open.onlyStrong:false}")
   private boolean isOpenOnlyStrong;
   @Value("${order.open.maxOpenPositions:999}")
   private int maxOpenPositions;
+  // Number of orders (lots) open by one signal
+  @Value("${order.open.orders-per-signal:1}")
+  private int ordersPerSignal;
+  // The ticks before it only warm up the indicators, no order is open and the equity is not followed (empty to open from the first ticket)
+  @Value("${order.open.start:}")
+  private String openStart;
   @Value("${order.open.monday.start:00:00:00}")
   private String mondayStart;
   @Value("${order.open.monday.end:23:59:59}")
@@ -72,16 +86,40 @@ public class OrderService {
   private String fridayEnd;
   @Value("${order.open.spread.max:12}")
   private int maxSpread;
+  // How to open a new order: MARKET, LIMIT or STOP (pending orders)
+  @Value("${order.open.type:MARKET}")
+  private OrderType orderType;
+  // Distance in points from the market price to a pending order
+  @Value("${order.open.pending.distance:50}")
+  private int pendingDistance;
+  // Minutes to expire a pending order (0 to never expire)
+  @Value("${order.open.pending.expiration:60}")
+  private long pendingExpiration;
   @Value("${order.safe.take-profit:150}")
   private int takeProfit;
   @Value("${order.safe.stop-loss:100}")
   private int stopLoss;
+  // Trailing stop distance from the close price (0 to disable), profit to start and minimal move
+  @Value("${order.safe.trailing.distance:0}")
+  private int trailingDistance;
+  @Value("${order.safe.trailing.activation:0}")
+  private int trailingActivation;
+  @Value("${order.safe.trailing.step:1}")
+  private int trailingStep;
+  // Profit to move the stop loss to the open price (0 to disable) and the profit locked
+  @Value("${order.safe.break-even.activation:0}")
+  private int breakEvenActivation;
+  @Value("${order.safe.break-even.offset:0}")
+  private int breakEvenOffset;
   @Value("${order.swap.long:-5.46}")
   private double swapLong;
   @Value("${order.swap.short:0.61}")
   private double swapShort;
   @Value("${order.swap.rate.triple:WEDNESDAY}")
   private String swapRateTriple;
+  // Server time of the day change to add the swap
+  @Value("${order.swap.rollover:00:00:00}")
+  private String swapRollover;
   // The minimal diff between the lines that indicate trading to open a position
   @Value("${order.open.trading.min:-1}")
   private int minTradingDiff;
@@ -92,14 +130,31 @@ public class OrderService {
   @Setter(AccessLevel.PRIVATE)
   private LocalDateTime lastSignalOpenDateTime = LocalDateTime.MIN;
   @Setter(AccessLevel.PRIVATE)
-  private BigDecimal currentBalance = BigDecimal.ZERO;
+  private LocalDateTime openStartDateTime = LocalDateTime.MIN;
+  // Swap values in account units
   @Setter(AccessLevel.PRIVATE)
-  private BigDecimal lastOpenBalance = BigDecimal.ZERO;
+  private long swapLongUnits;
+  @Setter(AccessLevel.PRIVATE)
+  private long swapShortUnits;
+  @Setter(AccessLevel.PRIVATE)
+  private DayOfWeek swapRateTripleDay;
+  @Setter(AccessLevel.PRIVATE)
+  private OrderSafe orderSafe;
+  @Setter(AccessLevel.PRIVATE)
+  private LocalTime swapRolloverTime;
+  // The next rollover after the last ticket (null before the first ticket)
+  @Setter(AccessLevel.PRIVATE)
+  private LocalDateTime nextRolloverDateTime;
 
   @Autowired
-  protected OrderService(final OrderRepository repository, final StatisticRepository statisticRepository) {
+  protected OrderService(final OrderRepository repository, final StatisticRepository statisticRepository, final AccountRepository accountRepository,
+      final MetricsService metricsService, final JournalService journalService, final DigestService digestService) {
     this.repository = repository;
     this.statisticRepository = statisticRepository;
+    this.accountRepository = accountRepository;
+    this.metricsService = metricsService;
+    this.journalService = journalService;
+    this.digestService = digestService;
   }
 
   /**
@@ -134,183 +189,132 @@ public class OrderService {
    */
   public void insertTicketAndSignal(final @NotNull Ticket ticket, final @NotNull Signal signal, final int tpDiff) {
     // Update open tickets
-    this.updateTicket(Arrays.stream(this.getRepository().getOrders()).toList(), ticket, this.getTakeProfit(), this.getStopLoss(), BigDecimal.valueOf(this.getSwapLong()),
-        BigDecimal.valueOf(this.getSwapShort()), DayOfWeek.valueOf(this.getSwapRateTriple())).forEach(order -> this.getRepository().updateOrder(order));
+    this.updateTicket(ticket);
 
     // Check to open a new order
-    if (checkDataTime(ticket.dateTime()) && tpDiff >= this.getMinTradingDiff()) {
-      final Optional<Order> openOrder = this.openOrder(ticket, signal, this.getMaxOpenPositions(), tpDiff);
-      if (openOrder.isPresent()) {
-        this.getRepository().addOrder(openOrder.get());
-        this.setLastSignalOpenDateTime(signal.dataTime());
-      }
+    if (checkDataTime(ticket.dateTime()) && tpDiff >= this.getMinTradingDiff() && this.openOrder(ticket, signal, this.getMaxOpenPositions(), tpDiff)) {
+      this.setLastSignalOpenDateTime(signal.dataTime());
     }
 
-    // Update the current balance
-    this.setCurrentBalance(this.getNewBalance(this.getRepository().getOrders(), this.getCurrentBalance(), this.getLastOpenBalance()));
+    // Update the floating profit of the account
+    this.getAccountRepository().setFloating(this.getRepository().getOpenPoints(), this.getRepository().getOpenSwapProfit(),
+        (int) this.getRepository().numberOfOrdersOpen());
+    if (!ticket.dateTime().isBefore(this.getOpenStartDateTime())) {
+      this.getStatisticRepository().updateEquity(ticket.dateTime());
+    }
 
     // Print the close orders
-    final Order[] orders = this.getRepository().getOrders();
-    if(this.isDebugActive()) {
-      Arrays.stream(orders).filter(order -> !order.orderStatus().equals(OrderStatus.OPEN)).forEachOrdered(order -> this.updateDebugFile(order, this.getCurrentBalance()));
+    final Order[] closeOrders = this.getRepository().getCloseOrders();
+    if (closeOrders.length > 0) {
+      if (this.isDebugActive()) {
+        this.updateDebugFile(closeOrders, this.getCurrentBalance());
+      }
+      final int bid = this.getPoints(ticket.bid(), ticket.digits());
+      final int ask = this.getPoints(ticket.ask(), ticket.digits());
+      Arrays.stream(closeOrders).forEachOrdered(
+          order -> this.getJournalService().addClose(order.orderId(), order.orderStatus(), ticket.dateTime(), bid, ask, ticket.digits()));
+      Arrays.stream(closeOrders).filter(order -> !order.orderStatus().equals(OrderStatus.EXPIRED)).forEachOrdered(this.getStatisticRepository()::addResult);
+      this.getMetricsService().addOrdersClosed(closeOrders.length);
+      Arrays.stream(closeOrders).forEachOrdered(order -> this.getDigestService().addOrder(DigestService.CLOSE, order));
+      Arrays.stream(closeOrders).forEachOrdered(OrderClosedEvent::commit);
+
+      // Remove che closed orders
+      this.getRepository().removeCloseOrders();
     }
-    Arrays.stream(orders).filter(order -> order.orderStatus().equals(OrderStatus.CLOSE_TP)).forEachOrdered(order -> this.getStatisticRepository().addResultWin(order.openDateTime()));
-    Arrays.stream(orders).filter(order -> order.orderStatus().equals(OrderStatus.CLOSE_SL)).forEachOrdered(order -> this.getStatisticRepository().addResultLose(order.openDateTime()));
-    this.getStatisticRepository().setBalance(this.getCurrentBalance());
-
-    // Remove che closed orders
-    this.getRepository().removeCloseOrders();
   }
 
   /**
-   * Get the curretn balance of close orders
-   *
-   * @param orders The full orders on this roand
-   * @return The new current balance
+   * @return If the run was stopped by the drawdown limit
    */
-  private @NotNull BigDecimal getNewBalance(final Order @NotNull [] orders, final @NotNull BigDecimal prevBalance, final @NotNull BigDecimal lastOpenBalance) {
-    final BigDecimal currentOpenProfit = Arrays.stream(orders).filter(order -> order.orderStatus().equals(OrderStatus.OPEN))
-        .map(order -> order.swapProfit().add(BigDecimal.valueOf(order.currentProfit()))).reduce(BigDecimal.ZERO, BigDecimal::add);
-    BigDecimal balance = currentOpenProfit.subtract(lastOpenBalance).add(prevBalance);
-    this.setLastOpenBalance(currentOpenProfit);
-    final BigDecimal currentCloseProfit = Arrays.stream(orders).filter(order -> !order.orderStatus().equals(OrderStatus.OPEN))
-        .map(order -> order.swapProfit().add(BigDecimal.valueOf(order.currentProfit()))).reduce(BigDecimal.ZERO, BigDecimal::add);
-    return balance.add(currentCloseProfit);
+  public boolean isStopped() {
+    return this.getStatisticRepository().isStopped();
   }
 
-  /**
-   * Update data information for positions open
-   *
-   * @param ticket     The current ticket
-   * @param takeProfit The take profit
-   * @param stopLoss   The stop loss profit
-   * @param swapLong   The swap long in points
-   * @param swapShort  The swap short in points
-   * @return The list of orders to be updated
-   */
-  private @NotNull Collection<Order> updateTicket(final @NotNull Collection<Order> orders, final @NotNull Ticket ticket, final int takeProfit, final int stopLoss,
-      final @NotNull BigDecimal swapLong, final @NotNull BigDecimal swapShort, final DayOfWeek swapRateTriple) {
-    return orders.parallelStream().map(order -> {
-      // Check if is necessary add a swap to this order
-      final BigDecimal swapProfit = getSwapProfitProcess(ticket, swapLong, swapShort, swapRateTriple, order);
-
-      // Update open time
-      final LocalDateTime openDateTime = order.openDateTime();
-      final LocalDateTime ticketDateTime = ticket.dateTime();
-      final String timeOpen = String.format(TIME_OPEN_FORMAT, ChronoUnit.DAYS.between(openDateTime, ticketDateTime),
-          ChronoUnit.HOURS.between(openDateTime, ticketDateTime) % 24, ChronoUnit.MINUTES.between(openDateTime, ticketDateTime) % 60,
-          ChronoUnit.SECONDS.between(openDateTime, ticketDateTime) % 60);
-
-      // Update the profit to this order
-      final BigDecimal closePrice = getClosePrice(ticket, order);
-      final int currentProfit = getCurrentProfit(ticket, order, closePrice);
-      final int highProfit = getHighProfit(order, currentProfit);
-      final int lowProfit = getLowProfit(order, currentProfit);
-
-      // Update status of this order
-      final OrderStatus orderStatus = getOrderStatus(takeProfit, stopLoss, currentProfit);
-
-      // Update order
-      return new Order(openDateTime, order.signalDateTime(), order.signalTrend(), ticketDateTime, timeOpen, orderStatus, order.orderPosition(), order.tradingPerformanceDiff(), order.openPrice(),
-          closePrice, highProfit, lowProfit, currentProfit, swapProfit);
-    }).collect(Collectors.toCollection(ArrayList::new));
+  // The orders and the balance are on the repositories, the service only keeps the signal of the last open and the next rollover
+  @Override
+  public void writeSnapshot(final @NotNull DataOutput output) throws IOException {
+    BinaryTools.writeDateTime(output, this.getLastSignalOpenDateTime());
+    BinaryTools.writeNullableDateTime(output, this.getNextRolloverDateTime());
   }
 
-  /**
-   * Get tge order status
-   *
-   * @param takeProfit    The take profit
-   * @param stopLoss      The stop loss (positive value)
-   * @param currentProfit the current profit
-   * @return The new status to the order
-   */
-  private @NotNull OrderStatus getOrderStatus(final int takeProfit, final int stopLoss, final int currentProfit) {
-    if (currentProfit >= takeProfit) {
-      return OrderStatus.CLOSE_TP;
-    } else if (currentProfit <= Math.negateExact(stopLoss)) {
-      return OrderStatus.CLOSE_SL;
-    } else {
-      return OrderStatus.OPEN;
-    }
+  @Override
+  public void readSnapshot(final @NotNull DataInput input) throws IOException {
+    this.setLastSignalOpenDateTime(BinaryTools.readDateTime(input));
+    this.setNextRolloverDateTime(BinaryTools.readNullableDateTime(input));
   }
 
   /**
-   * Get new low profit
+   * Get the current balance (realized and floating profit)
    *
-   * @param order         The new order
-   * @param currentProfit The current profit
-   * @return The low value to this order
+   * @return The current balance
    */
-  private int getLowProfit(final @NotNull Order order, final int currentProfit) {
-    return currentProfit < order.lowProfit() ? order.currentProfit() : order.lowProfit();
+  public @NotNull BigDecimal getCurrentBalance() {
+    return this.getAccountRepository().toDecimal(this.getAccountRepository().getEquity());
   }
 
   /**
-   * Get new high profit
+   * Update the book with the ticket, only the orders with the take profit or stop loss crossed are closed and valued
    *
-   * @param order         The new order
-   * @param currentProfit The current profit
-   * @return The high value to this order
+   * @param ticket The current ticket
    */
-  private int getHighProfit(final @NotNull Order order, final int currentProfit) {
-    return currentProfit > order.highProfit() ? order.currentProfit() : order.highProfit();
-  }
+  private void updateTicket(final @NotNull Ticket ticket) {
+    final OrderRepository orders = this.getRepository();
+    final int bid = this.getPoints(ticket.bid(), ticket.digits());
+    final int ask = this.getPoints(ticket.ask(), ticket.digits());
 
-  /**
-   * Get current profit
-   *
-   * @param ticket     The current ticket
-   * @param order      The current order
-   * @param closePrice The close price
-   * @return The new current profit
-   */
-  private int getCurrentProfit(final @NotNull Ticket ticket, final @NotNull Order order, final @NotNull BigDecimal closePrice) {
-    int currentProfit;
-    if (order.orderPosition().equals(OrderPosition.BUY)) {
-      currentProfit = this.getPoints(closePrice, ticket.digits()) - this.getPoints(order.openPrice(), ticket.digits());
-    } else {
-      currentProfit = this.getPoints(order.openPrice(), ticket.digits()) - this.getPoints(closePrice, ticket.digits());
+    // Add the swap to the open orders on the rollover
+    this.rollover(ticket.dateTime());
+
+    // Update the price of the book
+    orders.updateTicket(ticket.dateTime(), bid, ask, ticket.digits());
+
+    // Close the orders with a trigger crossed
+    for (int slot = orders.closeTriggeredOrder(); slot >= 0; slot = orders.closeTriggeredOrder()) {
+      this.getAccountRepository().addRealized(orders.getCurrentProfit(slot), orders.getSwapProfit(slot));
     }
-    return currentProfit;
-  }
 
-  /**
-   * Get close price
-   *
-   * @param ticket The current ticket
-   * @param order  The current order
-   * @return The new close price
-   */
-  private @NotNull BigDecimal getClosePrice(final @NotNull Ticket ticket, final @NotNull Order order) {
-    if (order.orderPosition().equals(OrderPosition.BUY)) {
-      return ticket.bid();
-    } else {
-      return ticket.ask();
+    // Move the stop loss of the orders with the trailing stop or break-even price crossed
+    for (int slot = orders.adjustTriggeredOrder(); slot >= 0; slot = orders.adjustTriggeredOrder()) {
+      this.getJournalService().addStopLoss(orders.getOrderId(slot), orders.getStopLossPrice(slot), orders.isBreakEven(slot));
+      this.getDigestService().addStopLoss(ticket.dateTime(), orders.getOrderId(slot), orders.getStopLossPrice(slot), orders.isBreakEven(slot));
     }
+
+    // Open the pending orders with the price crossed and expire the old ones
+    for (int slot = orders.getActivatedSlot(); slot >= 0; slot = orders.getActivatedSlot()) {
+      orders.activateOrder(slot);
+      this.getJournalService().addActivation(orders.getOrderId(slot), ticket.dateTime(), bid, ask, ticket.digits());
+      this.getMetricsService().addOrdersOpened(1L);
+      if (this.getDigestService().isActive() || OrderOpenedEvent.isRecording()) {
+        final Order order = orders.getOrder(slot);
+        this.getDigestService().addOrder(DigestService.ACTIVATE, order);
+        OrderOpenedEvent.commit(order);
+      }
+    }
+    orders.expirePendingOrders(ticket.dateTime());
   }
 
   /**
-   * Check if is necessary add a swap to this order
+   * Check once by ticket if the rollover time was crossed, then the swap of the day is added to each position side in one step (the triple swap is
+   * defined by the day closed). Many days without tickets (like weekends) add only one swap.
    *
-   * @param ticket         The current ticket
-   * @param swapLong       The swap-long points
-   * @param swapShort      The swap short points
-   * @param swapRateTriple The day of the week to swap tripe
-   * @param order          The current order to be updated
-   * @return The new swap balance value
+   * @param dateTime The ticket date time
    */
-  private @NotNull BigDecimal getSwapProfitProcess(final @NotNull Ticket ticket, final @NotNull BigDecimal swapLong, final @NotNull BigDecimal swapShort,
-      final @NotNull DayOfWeek swapRateTriple, final @NotNull Order order) {
-    if (!order.lastUpdateDateTime().getDayOfWeek().equals(ticket.dateTime().getDayOfWeek())) {
-      BigDecimal points;
-      if (OrderPosition.BUY.equals(order.orderPosition())) {
-        points = swapRateTriple.equals(order.lastUpdateDateTime().getDayOfWeek()) ? swapLong.multiply(BigDecimal.valueOf(3)) : swapLong;
-      } else {
-        points = swapRateTriple.equals(order.lastUpdateDateTime().getDayOfWeek()) ? swapShort.multiply(BigDecimal.valueOf(3)) : swapShort;
+  private void rollover(final @NotNull LocalDateTime dateTime) {
+    final LocalDateTime nextRollover = this.getNextRolloverDateTime();
+    if (nextRollover == null || !dateTime.isBefore(nextRollover)) {
+      long swapLongUnits = 0L;
+      long swapShortUnits = 0L;
+      if (nextRollover != null) {
+        final boolean triple = this.getSwapRateTripleDay().equals(nextRollover.minusDays(1L).getDayOfWeek());
+        swapLongUnits = triple ? this.getSwapLongUnits() * 3L : this.getSwapLongUnits();
+        swapShortUnits = triple ? this.getSwapShortUnits() * 3L : this.getSwapShortUnits();
+        this.getRepository().addSwapProfit(OrderPosition.BUY, swapLongUnits);
+        this.getRepository().addSwapProfit(OrderPosition.SELL, swapShortUnits);
       }
-      return order.swapProfit().add(points);
-    } else {
-      return order.swapProfit();
+      final LocalDate swapDay = dateTime.minusNanos(this.getSwapRolloverTime().toNanoOfDay()).toLocalDate();
+      this.setNextRolloverDateTime(swapDay.plusDays(1L).atTime(this.getSwapRolloverTime()));
+      // The next rollover is on the journal too, so a replay after a rollover time adds the swap of it on the first ticket
+      this.getJournalService().addRollover(swapLongUnits, swapShortUnits, this.getNextRolloverDateTime());
     }
   }
 
@@ -320,43 +324,71 @@ public class OrderService {
    * @param ticket           The current ticket
    * @param signal           The current signal
    * @param maxOpenPositions The maximum number of open orders
-   * @return The possible new order to open
+   * @return If a new order was open
    */
-  private @NotNull Optional<Order> openOrder(final @NotNull Ticket ticket, final @NotNull Signal signal, final int maxOpenPositions, final int tpDiff) {
+  private boolean openOrder(final @NotNull Ticket ticket, final @NotNull Signal signal, final int maxOpenPositions, final int tpDiff) {
     final LocalDateTime signalDateTime = signal.dataTime();
     final SignalTrend trend = signal.trend();
-    if (this.getRepository().numberOfOrdersOpen() < maxOpenPositions && ticket.spread() <= this.getMaxSpread() && signalDateTime.isAfter(
-        this.getLastSignalOpenDateTime())) {
+    final long freePositions = maxOpenPositions - this.getRepository().numberOfOrdersOpen() - this.getRepository().numberOfOrdersPending();
+    if (freePositions > 0 && ticket.spread() <= this.getMaxSpread() && signalDateTime.isAfter(this.getLastSignalOpenDateTime())) {
+      final int orders = (int) Math.min(this.getOrdersPerSignal(), freePositions);
       if (this.isOpenOnlyStrong() && trend.equals(SignalTrend.STRONG_BUY)) {
-        return Optional.of(generateOpenOrder(ticket, signalDateTime, trend, OrderPosition.BUY, tpDiff));
+        return generateOpenOrder(ticket, signalDateTime, trend, OrderPosition.BUY, tpDiff, orders);
       } else if (this.isOpenOnlyStrong() && trend.equals(SignalTrend.STRONG_SELL)) {
-        return Optional.of(generateOpenOrder(ticket, signalDateTime, trend, OrderPosition.SELL, tpDiff));
+        return generateOpenOrder(ticket, signalDateTime, trend, OrderPosition.SELL, tpDiff, orders);
       } else if (!this.isOpenOnlyStrong() && (trend.equals(SignalTrend.STRONG_BUY) || trend.equals(SignalTrend.BUY))) {
-        return Optional.of(generateOpenOrder(ticket, signalDateTime, trend, OrderPosition.BUY, tpDiff));
+        return generateOpenOrder(ticket, signalDateTime, trend, OrderPosition.BUY, tpDiff, orders);
       } else if (!this.isOpenOnlyStrong() && (trend.equals(SignalTrend.STRONG_SELL) || trend.equals(SignalTrend.SELL))) {
-        return Optional.of(generateOpenOrder(ticket, signalDateTime, trend, OrderPosition.SELL, tpDiff));
+        return generateOpenOrder(ticket, signalDateTime, trend, OrderPosition.SELL, tpDiff, orders);
       }
     }
-    return Optional.empty();
+    return false;
   }
 
   /**
-   * Generate an open order to be sent
+   * Add an order to the book, at market or pending to the price defined by the open type
    *
    * @param ticket         The current Ticket
    * @param signalDateTime The Signal data time
    * @param trend          The trend to the new order
    * @param orderPosition  The position to the new order
-   * @return The new order
+   * @return If the order was added
    */
-  private @NotNull Order generateOpenOrder(final @NotNull Ticket ticket, final @NotNull LocalDateTime signalDateTime, final @NotNull SignalTrend trend,
-      final @NotNull OrderPosition orderPosition, final int tpDiff) {
+  private boolean generateOpenOrder(final @NotNull Ticket ticket, final @NotNull LocalDateTime signalDateTime, final @NotNull SignalTrend trend,
+      final @NotNull OrderPosition orderPosition, final int tpDiff, final int orders) {
     final LocalDateTime ticketDateTime = ticket.dateTime();
-    final BigDecimal openPrice = orderPosition.equals(OrderPosition.BUY) ? ticket.ask() : ticket.bid();
-    final BigDecimal closePrice = orderPosition.equals(OrderPosition.BUY) ? ticket.bid() : ticket.ask();
-    final int spread = Math.negateExact(ticket.spread());
-    return new Order(ticketDateTime, signalDateTime, trend, ticketDateTime, TIME_OPEN, OrderStatus.OPEN, orderPosition, tpDiff, openPrice, closePrice, spread, spread, spread,
-        BigDecimal.ZERO);
+    final boolean buy = orderPosition.equals(OrderPosition.BUY);
+    final int marketPrice = this.getPoints(buy ? ticket.ask() : ticket.bid(), ticket.digits());
+    final OrderType orderType = this.getOrderType();
+    if (OrderType.MARKET.equals(orderType)) {
+      for (int i = 0; i < orders; i++) {
+        final int slot = this.getRepository().addOrder(ticketDateTime, signalDateTime, trend, orderPosition, tpDiff, marketPrice, this.getOrderSafe());
+        this.getJournalService()
+            .addOpen(this.getRepository().getOrderId(slot), ticketDateTime, signalDateTime, trend, orderPosition, tpDiff, marketPrice, this.getOrderSafe());
+        if (this.getDigestService().isActive() || OrderOpenedEvent.isRecording()) {
+          final Order order = this.getRepository().getOrder(slot);
+          this.getDigestService().addOrder(DigestService.OPEN, order);
+          OrderOpenedEvent.commit(order);
+        }
+      }
+      this.getMetricsService().addOrdersOpened(orders);
+    } else {
+      // A limit waits a better price and a stop waits the price to break in the direction of the position
+      final int distance = this.getPendingDistance();
+      final int price = (OrderType.LIMIT.equals(orderType) == buy) ? marketPrice - distance : marketPrice + distance;
+      final LocalDateTime expirationDateTime = this.getPendingExpiration() > 0 ? ticketDateTime.plusMinutes(this.getPendingExpiration()) : null;
+      for (int i = 0; i < orders; i++) {
+        final int slot = this.getRepository()
+            .addPendingOrder(ticketDateTime, signalDateTime, trend, orderPosition, orderType, tpDiff, price, this.getOrderSafe(), expirationDateTime);
+        this.getJournalService()
+            .addPending(this.getRepository().getOrderId(slot), ticketDateTime, signalDateTime, trend, orderPosition, orderType, tpDiff, price, this.getOrderSafe(),
+                expirationDateTime);
+        if (this.getDigestService().isActive()) {
+          this.getDigestService().addOrder(DigestService.PENDING, this.getRepository().getOrder(slot));
+        }
+      }
+    }
+    return true;
   }
 
   /**
@@ -380,6 +412,9 @@ public class OrderService {
    * @return If you can open
    */
   private boolean checkDataTime(final @NotNull LocalDateTime dateTime) {
+    if (dateTime.isBefore(this.getOpenStartDateTime())) {
+      return false;
+    }
     final LocalTime localTime = dateTime.toLocalTime();
     return switch (dateTime.getDayOfWeek()) {
       case MONDAY -> getDataConfirmation(this.getMondayStart(), this.getMondayEnd(), localTime);
@@ -393,6 +428,25 @@ public class OrderService {
 
   @PostConstruct
   private void init() {
+    // The account units have the decimals of the swap values, so the balance is exact
+    final BigDecimal swapLong = BigDecimal.valueOf(this.getSwapLong());
+    final BigDecimal swapShort = BigDecimal.valueOf(this.getSwapShort());
+    final int scale = Math.max(0, Math.max(swapLong.scale(), swapShort.scale()));
+    this.getAccountRepository().setScale(scale);
+    this.getRepository().setSwapScale(scale);
+    this.setSwapLongUnits(this.getAccountRepository().toUnits(swapLong));
+    this.setSwapShortUnits(this.getAccountRepository().toUnits(swapShort));
+    this.setSwapRateTripleDay(DayOfWeek.valueOf(this.getSwapRateTriple()));
+    this.setOrderSafe(new OrderSafe(this.getTakeProfit(), this.getStopLoss(), this.getTrailingDistance(), this.getTrailingActivation(),
+        Math.max(1, this.getTrailingStep()), this.getBreakEvenActivation(), this.getBreakEvenOffset()));
+    this.setSwapRolloverTime(LocalTime.parse(this.getSwapRollover(), DateTimeFormatter.ISO_TIME));
+    if (!this.getOpenStart().isEmpty()) {
+      this.setOpenStartDateTime(LocalDateTime.parse(this.getOpenStart(), DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    }
+    // Rebuild the book from the journal, the signals of the journal orders are not used again
+    final JournalService.Replay replay = this.getJournalService().replay();
+    this.setLastSignalOpenDateTime(replay.lastSignalDateTime());
+    this.setNextRolloverDateTime(replay.nextRolloverDateTime());
     this.printDebugHeader();
   }
 
@@ -410,12 +464,14 @@ public class OrderService {
   }
 
   @SneakyThrows
-  private void updateDebugFile(final @NotNull Order order, final @NotNull BigDecimal currentBalance) {
+  private void updateDebugFile(final Order @NotNull [] orders, final @NotNull BigDecimal currentBalance) {
     try (final FileWriter fileWriter = new FileWriter(this.getOutputFile(), true); final CSVPrinter csvPrinter = CSV_FORMAT.print(fileWriter)) {
-      csvPrinter.printRecord(order.openDateTime().format(DateTimeFormatter.ISO_DATE_TIME), order.signalDateTime().format(DateTimeFormatter.ISO_DATE_TIME),
-          order.signalTrend(), order.lastUpdateDateTime().format(DateTimeFormatter.ISO_DATE_TIME), order.timeOpen(), order.orderStatus(), order.orderPosition(),
-          order.tradingPerformanceDiff(), getNumberPrice(order.openPrice()), getNumberPrice(order.closePrice()), order.highProfit(), order.lowProfit(), order.currentProfit(),
-          getNumberBalance(order.swapProfit()), getNumberBalance(currentBalance));
+      for (final Order order : orders) {
+        csvPrinter.printRecord(order.openDateTime().format(DateTimeFormatter.ISO_DATE_TIME), order.signalDateTime().format(DateTimeFormatter.ISO_DATE_TIME),
+            order.signalTrend(), order.lastUpdateDateTime().format(DateTimeFormatter.ISO_DATE_TIME), order.timeOpen(), order.orderStatus(), order.orderPosition(),
+            order.tradingPerformanceDiff(), getNumberPrice(order.openPrice()), getNumberPrice(order.closePrice()), order.highProfit(), order.lowProfit(),
+            order.currentProfit(), getNumberBalance(order.swapProfit()), getNumberBalance(currentBalance), order.orderId());
+      }
     }
   }
 }
@@ -0,0 +1,180 @@
+package br.eti.allandemiranda.forex.services;
+
+import br.eti.allandemiranda.forex.exceptions.ServiceException;
+import br.eti.allandemiranda.forex.repositories.StateSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.Synchronized;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Checkpoint of the state of the run (ticket, chart, indicators, signal, order book, balance and statistics) with the number of ticks read from the input. The
+ * checkpoint is taken at the end of a tick every some bars, so a run can resume on the next tick of the input after the last checkpoint. A run can also start
+ * from the snapshot of another run ({@code config.snapshot.resume-file}), like many variants from one warm-up run, without touching that snapshot.
+ */
+@Service
+@Getter(AccessLevel.PRIVATE)
+@Slf4j
+public class SnapshotService {
+
+  private static final String OUTPUT_FILE_NAME = "snapshot.bin";
+  private static final String TEMPORARY_FILE_NAME = "snapshot.tmp";
+  private static final int MAGIC = 0x46585353;
+  private static final short VERSION = 3;
+
+  private final TreeMap<String, StateSnapshot> repositories = new TreeMap<>();
+  private final CandlestickService candlestickService;
+
+  @Value("${config.root.folder}")
+  private File outputFolder;
+  @Value("${config.snapshot.active:false}")
+  private boolean active;
+  // Number of closed bars between the checkpoints
+  @Value("${config.snapshot.bars:96}")
+  private int bars;
+  // Snapshot of another run to start from (empty to resume from the snapshot of this run)
+  @Value("${config.snapshot.resume-file:}")
+  private String resumeFile;
+  @Value("${order.journal.active:false}")
+  private boolean journalActive;
+  @Setter(AccessLevel.PRIVATE)
+  private long lastCheckpointBar = 0L;
+
+  @Autowired
+  protected SnapshotService(final @NotNull Collection<StateSnapshot> repositories, final CandlestickService candlestickService) {
+    repositories.forEach(repository -> this.getRepositories().put(repository.getSnapshotName(), repository));
+    this.candlestickService = candlestickService;
+  }
+
+  private @NotNull File getOutputFile() {
+    return new File(this.getOutputFolder(), OUTPUT_FILE_NAME);
+  }
+
+  /**
+   * Restore the snapshot to start from (if exist) to the repositories
+   */
+  @PostConstruct
+  private void init() {
+    if (this.isJournalActive() && (this.isActive() || !this.getResumeFile().isEmpty())) {
+      throw new ServiceException("The snapshot has the order book, it can't be used with the order journal");
+    }
+    if (!this.getResumeFile().isEmpty()) {
+      // The run is a branch of another run, it can't start without its state
+      try {
+        final File file = ResourceUtils.getFile(this.getResumeFile());
+        this.restore(file);
+        log.info("Snapshot restored from {}", file);
+      } catch (IOException e) {
+        throw new ServiceException("Can't restore the snapshot " + this.getResumeFile(), e);
+      }
+    } else if (this.isActive() && this.getOutputFile().exists()) {
+      try {
+        this.restore(this.getOutputFile());
+        log.info("Snapshot restored from {}", this.getOutputFile());
+      } catch (IOException e) {
+        log.warn("Can't restore the snapshot {}: {}", this.getOutputFile(), e.getMessage());
+      }
+    }
+    this.setLastCheckpointBar(this.getCandlestickService().getNumberBar());
+  }
+
+  @PreDestroy
+  private void preDestroy() {
+    this.save();
+  }
+
+  /**
+   * Save the snapshot if the bars since the last checkpoint reached the interval, it needs to be called at the end of a tick so the state is consistent
+   */
+  public void checkpoint() {
+    final long numberBar = this.getCandlestickService().getNumberBar();
+    if (this.isActive() && numberBar - this.getLastCheckpointBar() >= this.getBars()) {
+      this.setLastCheckpointBar(numberBar);
+      this.save();
+    }
+  }
+
+  /**
+   * Write the state of all repositories on the snapshot file. The file is replaced atomically, so a crash during the write keeps the last snapshot.
+   */
+  @Synchronized
+  public void save() {
+    if (this.isActive()) {
+      final File temporaryFile = new File(this.getOutputFolder(), TEMPORARY_FILE_NAME);
+      try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile.toPath())))) {
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        output.writeInt(this.getRepositories().size());
+        for (final Map.Entry<String, StateSnapshot> entry : this.getRepositories().entrySet()) {
+          final ByteArrayOutputStream section = new ByteArrayOutputStream();
+          entry.getValue().writeSnapshot(new DataOutputStream(section));
+          output.writeUTF(entry.getKey());
+          output.writeInt(section.size());
+          section.writeTo(output);
+        }
+      } catch (IOException e) {
+        log.warn("Can't write the snapshot {}: {}", temporaryFile, e.getMessage());
+        return;
+      }
+      try {
+        Files.move(temporaryFile.toPath(), this.getOutputFile().toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        log.warn("Can't replace the snapshot {}: {}", this.getOutputFile(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Read a snapshot file, sections without repository are skipped. All sections are read before any repository is changed, so a truncated file does not restore
+   * a part of the state.
+   *
+   * @param file The snapshot file
+   * @throws IOException If the file is not a valid snapshot
+   */
+  @Synchronized
+  private void restore(final @NotNull File file) throws IOException {
+    final Map<String, byte[]> sections = new LinkedHashMap<>();
+    try (final DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+      if (input.readInt() != MAGIC || input.readShort() != VERSION) {
+        throw new IOException("Unknown snapshot format");
+      }
+      final int size = input.readInt();
+      for (int i = 0; i < size; i++) {
+        final String name = input.readUTF();
+        final byte[] section = new byte[input.readInt()];
+        input.readFully(section);
+        sections.put(name, section);
+      }
+    }
+    for (final Map.Entry<String, byte[]> section : sections.entrySet()) {
+      final StateSnapshot repository = this.getRepositories().get(section.getKey());
+      if (repository == null) {
+        log.warn("Snapshot section {} without repository", section.getKey());
+      } else {
+        repository.readSnapshot(new DataInputStream(new ByteArrayInputStream(section.getValue())));
+      }
+    }
+  }
+}
@@ -33,6 +33,15 @@ public class TicketService {
     return this.getRepository().getCurrentTicket();
   }
 
+  /**
+   * Number of ticks received since the start of the input, a run resumed from a snapshot continues on this tick
+   *
+   * @return The number of ticks
+   */
+  public long getNumberOfTicks() {
+    return this.getRepository().getNumberOfTicks();
+  }
+
   /**
    * Check if the ticket information is valid to be used. This happened because the data sometimes come with only BID or ASK value, and for processes of price is
    * necessary to be on database the double values valid.
@@ -53,6 +62,7 @@ public class TicketService {
    */
   @Synchronized
   public boolean updateData(final @NotNull LocalDateTime dateTime, final double bid, final double ask) {
+    this.getRepository().countTick();
     if (dateTime.isAfter(this.getRepository().getCurrentTicket().dateTime())) {
       this.getRepository().update(dateTime, bid, ask);
       return true;
@@ -0,0 +1,128 @@
+package br.eti.allandemiranda.forex.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public class BinaryTools {
+
+  private BinaryTools() {
+    throw new IllegalCallerException();
+  }
+
+  /**
+   * Write a date time as epoch seconds and nanos (UTC)
+   *
+   * @param output   The binary output
+   * @param dateTime The date time
+   * @throws IOException If the output fail
+   */
+  public static void writeDateTime(final @NotNull DataOutput output, final @NotNull LocalDateTime dateTime) throws IOException {
+    output.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+    output.writeInt(dateTime.getNano());
+  }
+
+  /**
+   * Read a date time written by {@link #writeDateTime(DataOutput, LocalDateTime)}
+   *
+   * @param input The binary input
+   * @return The date time
+   * @throws IOException If the input fail
+   */
+  public static @NotNull LocalDateTime readDateTime(final @NotNull DataInput input) throws IOException {
+    final long epochSecond = input.readLong();
+    final int nano = input.readInt();
+    return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+  }
+
+  /**
+   * Write a nullable date time as a presence flag and the date time
+   *
+   * @param output   The binary output
+   * @param dateTime The date time (can be null)
+   * @throws IOException If the output fail
+   */
+  public static void writeNullableDateTime(final @NotNull DataOutput output, final @Nullable LocalDateTime dateTime) throws IOException {
+    output.writeBoolean(dateTime != null);
+    if (dateTime != null) {
+      writeDateTime(output, dateTime);
+    }
+  }
+
+  /**
+   * Read a nullable date time written by {@link #writeNullableDateTime(DataOutput, LocalDateTime)}
+   *
+   * @param input The binary input
+   * @return The date time (can be null)
+   * @throws IOException If the input fail
+   */
+  public static @Nullable LocalDateTime readNullableDateTime(final @NotNull DataInput input) throws IOException {
+    return input.readBoolean() ? readDateTime(input) : null;
+  }
+
+  /**
+   * Put a date time on a buffer with the layout of {@link #writeDateTime(DataOutput, LocalDateTime)}
+   *
+   * @param buffer   The buffer
+   * @param dateTime The date time
+   */
+  public static void putDateTime(final @NotNull ByteBuffer buffer, final @NotNull LocalDateTime dateTime) {
+    buffer.putLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+    buffer.putInt(dateTime.getNano());
+  }
+
+  /**
+   * Get a date time put by {@link #putDateTime(ByteBuffer, LocalDateTime)}
+   *
+   * @param buffer The buffer
+   * @return The date time
+   */
+  public static @NotNull LocalDateTime getDateTime(final @NotNull ByteBuffer buffer) {
+    final long epochSecond = buffer.getLong();
+    final int nano = buffer.getInt();
+    return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+  }
+
+  /**
+   * Write a nullable decimal value as scale and unscaled bytes
+   *
+   * @param output The binary output
+   * @param value  The decimal value (can be null)
+   * @throws IOException If the output fail
+   */
+  public static void writeBigDecimal(final @NotNull DataOutput output, final @Nullable BigDecimal value) throws IOException {
+    if (value == null) {
+      output.writeBoolean(false);
+    } else {
+      output.writeBoolean(true);
+      final byte[] unscaled = value.unscaledValue().toByteArray();
+      output.writeInt(value.scale());
+      output.writeShort(unscaled.length);
+      output.write(unscaled);
+    }
+  }
+
+  /**
+   * Read a nullable decimal value written by {@link #writeBigDecimal(DataOutput, BigDecimal)}
+   *
+   * @param input The binary input
+   * @return The decimal value (can be null)
+   * @throws IOException If the input fail
+   */
+  public static @Nullable BigDecimal readBigDecimal(final @NotNull DataInput input) throws IOException {
+    if (!input.readBoolean()) {
+      return null;
+    }
+    final int scale = input.readInt();
+    final byte[] unscaled = new byte[input.readShort()];
+    input.readFully(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale);
+  }
+}
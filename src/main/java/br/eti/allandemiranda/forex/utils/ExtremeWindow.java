@@ -0,0 +1,111 @@
+package br.eti.allandemiranda.forex.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Highest price (in points) since a tick sequence, kept as a monotonic deque. A price is dropped when a newer one is higher or equal, so the first entry with a
+ * sequence after the query is the answer (binary search). To follow the lowest price use negative prices.
+ */
+public class ExtremeWindow {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private long[] sequences = new long[INITIAL_CAPACITY];
+  private int[] prices = new int[INITIAL_CAPACITY];
+  private int head = 0;
+  private int tail = 0;
+
+  /**
+   * Add the price of a new tick
+   *
+   * @param sequence The tick sequence (increasing)
+   * @param price    The price in points
+   */
+  public void add(final long sequence, final int price) {
+    while (this.tail > this.head && this.prices[this.tail - 1] <= price) {
+      this.tail--;
+    }
+    if (this.tail == this.prices.length) {
+      this.compact();
+    }
+    this.sequences[this.tail] = sequence;
+    this.prices[this.tail++] = price;
+  }
+
+  /**
+   * Get the highest price since a tick
+   *
+   * @param sequence The first tick sequence of the window
+   * @return The highest price of the ticks with sequence equal or after
+   */
+  public int getSince(final long sequence) {
+    int low = this.head;
+    int high = this.tail - 1;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (this.sequences[middle] < sequence) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return this.prices[low];
+  }
+
+  /**
+   * Drop the ticks that will not be used anymore
+   *
+   * @param sequence The oldest tick sequence that can be consulted
+   */
+  public void trim(final long sequence) {
+    while (this.tail - this.head > 1 && this.sequences[this.head] < sequence) {
+      this.head++;
+    }
+  }
+
+  /**
+   * Write the prices kept on the deque
+   *
+   * @param output The binary output
+   * @throws IOException If the output fail
+   */
+  public void writeTo(final @NotNull DataOutput output) throws IOException {
+    output.writeInt(this.tail - this.head);
+    for (int i = this.head; i < this.tail; i++) {
+      output.writeLong(this.sequences[i]);
+      output.writeInt(this.prices[i]);
+    }
+  }
+
+  /**
+   * Replace the deque by the prices written by {@link #writeTo(DataOutput)}
+   *
+   * @param input The binary input
+   * @throws IOException If the input fail
+   */
+  public void readFrom(final @NotNull DataInput input) throws IOException {
+    this.head = 0;
+    this.tail = 0;
+    final int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      final long sequence = input.readLong();
+      this.add(sequence, input.readInt());
+    }
+  }
+
+  private void compact() {
+    final int size = this.tail - this.head;
+    if (size * 2 > this.prices.length) {
+      this.sequences = Arrays.copyOf(this.sequences, this.prices.length * 2);
+      this.prices = Arrays.copyOf(this.prices, this.prices.length * 2);
+    }
+    System.arraycopy(this.sequences, this.head, this.sequences, 0, size);
+    System.arraycopy(this.prices, this.head, this.prices, 0, size);
+    this.head = 0;
+    this.tail = size;
+  }
+}
@@ -0,0 +1,86 @@
+package br.eti.allandemiranda.forex.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of durations in nanoseconds (HDR style). Values below 128 are exact, above it each power of two is split in 64 buckets, so the relative error
+ * of any percentile is less than 1.6%. Recording is lock free and can be called from many threads.
+ */
+public class LatencyHistogram {
+
+  private static final int LINEAR_BITS = 7;
+  private static final int SUB_BUCKETS = 1 << (LINEAR_BITS - 1);
+  private static final int BUCKETS = SUB_BUCKETS * (Long.SIZE - LINEAR_BITS + 2);
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+  private static int getIndex(final long value) {
+    if (value < (1L << LINEAR_BITS)) {
+      return (int) value;
+    }
+    final int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (LINEAR_BITS - 1);
+    return shift * SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  private static long getHighestValue(final int index) {
+    if (index < (1 << LINEAR_BITS)) {
+      return index;
+    }
+    final int shift = index / SUB_BUCKETS - 1;
+    final long subBucket = index - (long) shift * SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * Record a duration
+   *
+   * @param nanos The duration in nanoseconds (negative values are recorded as zero)
+   */
+  public void record(final long nanos) {
+    final long value = Math.max(0L, nanos);
+    this.counts.incrementAndGet(getIndex(value));
+    this.count.increment();
+    this.sum.add(value);
+    this.max.accumulate(value);
+  }
+
+  public long getCount() {
+    return this.count.sum();
+  }
+
+  public long getMax() {
+    return this.max.get();
+  }
+
+  public long getMean() {
+    final long total = this.getCount();
+    return total == 0L ? 0L : this.sum.sum() / total;
+  }
+
+  /**
+   * Get the value at a percentile
+   *
+   * @param percentile The percentile (0 to 100)
+   * @return The highest value equivalent to the percentile bucket (nanoseconds)
+   */
+  public long getValueAtPercentile(final double percentile) {
+    final long total = this.getCount();
+    if (total == 0L) {
+      return 0L;
+    }
+    final long target = Math.max(1L, (long) Math.ceil(percentile / 100d * total));
+    long cumulative = 0L;
+    for (int i = 0; i < BUCKETS; i++) {
+      cumulative += this.counts.get(i);
+      if (cumulative >= target) {
+        return Math.min(getHighestValue(i), this.getMax());
+      }
+    }
+    return this.getMax();
+  }
+}
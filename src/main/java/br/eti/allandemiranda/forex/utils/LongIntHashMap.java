@@ -0,0 +1,118 @@
+package br.eti.allandemiranda.forex.utils;
+
+import java.util.Arrays;
+
+/**
+ * Hash map of positive long keys to int values without boxing (open addressing with linear probe). The key zero is reserved to mark empty positions.
+ */
+public class LongIntHashMap {
+
+  private static final int INITIAL_CAPACITY = 64;
+  private static final long EMPTY = 0L;
+
+  private long[] keys = new long[INITIAL_CAPACITY];
+  private int[] values = new int[INITIAL_CAPACITY];
+  private int mask = INITIAL_CAPACITY - 1;
+  private int size = 0;
+
+  private static int hash(final long key) {
+    final long mixed = key * 0x9E3779B97F4A7C15L;
+    return (int) (mixed ^ (mixed >>> 32));
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Get the value of a key
+   *
+   * @param key The key (upper than zero)
+   * @return The value or -1 if the key is not on the map
+   */
+  public int get(final long key) {
+    for (int index = hash(key) & this.mask; this.keys[index] != EMPTY; index = (index + 1) & this.mask) {
+      if (this.keys[index] == key) {
+        return this.values[index];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Add or replace the value of a key
+   *
+   * @param key   The key (upper than zero)
+   * @param value The value
+   */
+  public void put(final long key, final int value) {
+    if (key <= EMPTY) {
+      throw new IllegalArgumentException("The key needs to be upper than zero");
+    }
+    if ((this.size + 1) * 2 > this.keys.length) {
+      this.rehash(this.keys.length * 2);
+    }
+    int index = hash(key) & this.mask;
+    while (this.keys[index] != EMPTY) {
+      if (this.keys[index] == key) {
+        this.values[index] = value;
+        return;
+      }
+      index = (index + 1) & this.mask;
+    }
+    this.keys[index] = key;
+    this.values[index] = value;
+    this.size++;
+  }
+
+  /**
+   * Remove a key, the next keys of the probe are moved back to keep the search without tombstones
+   *
+   * @param key The key
+   */
+  public void remove(final long key) {
+    // The empty mark is never a key
+    if (key <= EMPTY) {
+      return;
+    }
+    int index = hash(key) & this.mask;
+    while (this.keys[index] != key) {
+      if (this.keys[index] == EMPTY) {
+        return;
+      }
+      index = (index + 1) & this.mask;
+    }
+    this.size--;
+    int next = (index + 1) & this.mask;
+    while (this.keys[next] != EMPTY) {
+      final int ideal = hash(this.keys[next]) & this.mask;
+      // Move back when the ideal position of the next key is not between the hole and the next position (cyclic)
+      if (((next - ideal) & this.mask) >= ((next - index) & this.mask)) {
+        this.keys[index] = this.keys[next];
+        this.values[index] = this.values[next];
+        index = next;
+      }
+      next = (next + 1) & this.mask;
+    }
+    this.keys[index] = EMPTY;
+  }
+
+  public void clear() {
+    Arrays.fill(this.keys, EMPTY);
+    this.size = 0;
+  }
+
+  private void rehash(final int capacity) {
+    final long[] oldKeys = this.keys;
+    final int[] oldValues = this.values;
+    this.keys = new long[capacity];
+    this.values = new int[capacity];
+    this.mask = capacity - 1;
+    this.size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        this.put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package br.eti.allandemiranda.forex.utils;
+
+import br.eti.allandemiranda.forex.enums.ResampleMode;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Monte Carlo resample of the closed trade results. Each resample is one new order of the trades (shuffle, the final equity is the same and the drawdown
+ * changes) or the same number of trades drawn with replacement (bootstrap), and gives the final equity and the max drawdown of its equity curve.
+ * <p>
+ * The resamples are split in chunks processed in parallel, each chunk has its own random generator split from the seed before the run, so the result not
+ * depend on the threads.
+ */
+public class MonteCarlo {
+
+  private static final int CHUNKS = 64;
+
+  private MonteCarlo() {
+  }
+
+  /**
+   * Run the resamples of the trades
+   *
+   * @param results    The result of each trade (any unit)
+   * @param size       The number of trades
+   * @param iterations The number of resamples
+   * @param mode       The resample mode
+   * @param seed       The seed of the random numbers
+   * @return The final equity and the max drawdown of each resample, sorted
+   */
+  public static @NotNull Result simulate(final long @NotNull [] results, final int size, final int iterations, final @NotNull ResampleMode mode,
+      final long seed) {
+    final long[] finals = new long[iterations];
+    final long[] drawdowns = new long[iterations];
+    final SplittableRandom root = new SplittableRandom(seed);
+    final SplittableRandom[] randoms = IntStream.range(0, CHUNKS).mapToObj(i -> root.split()).toArray(SplittableRandom[]::new);
+    IntStream.range(0, CHUNKS).parallel().forEach(chunk -> {
+      final SplittableRandom random = randoms[chunk];
+      // The shuffle of a shuffle is a new uniform shuffle, so one copy by chunk is enough
+      final long[] trades = Arrays.copyOf(results, size);
+      for (int i = (int) ((long) iterations * chunk / CHUNKS); i < (int) ((long) iterations * (chunk + 1) / CHUNKS); i++) {
+        long equity = 0L;
+        long peak = 0L;
+        long drawdown = 0L;
+        for (int j = size - 1; j >= 0; j--) {
+          final long trade;
+          if (mode.equals(ResampleMode.SHUFFLE)) {
+            // Fisher-Yates from the end, the trade on the position j is not changed after it
+            final int k = random.nextInt(j + 1);
+            trade = trades[k];
+            trades[k] = trades[j];
+            trades[j] = trade;
+          } else {
+            trade = trades[random.nextInt(size)];
+          }
+          equity += trade;
+          if (equity > peak) {
+            peak = equity;
+          } else if (peak - equity > drawdown) {
+            drawdown = peak - equity;
+          }
+        }
+        finals[i] = equity;
+        drawdowns[i] = drawdown;
+      }
+    });
+    Arrays.parallelSort(finals);
+    Arrays.parallelSort(drawdowns);
+    return new Result(finals, drawdowns);
+  }
+
+  /**
+   * The sorted values of all resamples
+   *
+   * @param finals    The final equity of each resample
+   * @param drawdowns The max drawdown of each resample
+   */
+  public record Result(long @NotNull [] finals, long @NotNull [] drawdowns) {
+
+    /**
+     * @param percentile The percentile (0 to 100)
+     * @return The final equity of the percentile
+     */
+    public long getFinal(final double percentile) {
+      return getPercentile(this.finals, percentile);
+    }
+
+    /**
+     * @param percentile The percentile (0 to 100)
+     * @return The max drawdown of the percentile
+     */
+    public long getDrawdown(final double percentile) {
+      return getPercentile(this.drawdowns, percentile);
+    }
+
+    private static long getPercentile(final long @NotNull [] values, final double percentile) {
+      return values.length == 0 ? 0L : values[(int) Math.min(values.length - 1L, Math.max(0L, Math.round(percentile / 100d * (values.length - 1))))];
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package br.eti.allandemiranda.forex.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Account of many symbols, each symbol engine adds the changes of its own account and the totals are updated by lock-free counters, so the engines never wait
+ * between them. The accounts of the symbols are in points of each symbol, they are converted to the account currency by the point value of the symbol and
+ * summed on one fixed point scale.
+ * <p>
+ * The counters are updated one by one, so the equity read while the engines run can mix the values of two updates; the extremes are taken on each update.
+ */
+public class PortfolioLedger {
+
+  private static final int MAX_SCALE = 18;
+
+  private final int scale;
+  private final Map<String, SymbolLedger> symbols = new LinkedHashMap<>();
+  private final AtomicLong realizedBalance = new AtomicLong();
+  private final AtomicLong floatingProfit = new AtomicLong();
+  private final AtomicInteger openPositions = new AtomicInteger();
+  private final AtomicInteger maxOpenPositions = new AtomicInteger();
+  private final AtomicLong peakEquity = new AtomicLong();
+  private final AtomicLong maxDrawdown = new AtomicLong();
+
+  /**
+   * @param scale The number of decimals of the ledger, the values of the symbols are rounded to it
+   */
+  public PortfolioLedger(final int scale) {
+    if (scale < 0 || scale > MAX_SCALE) {
+      throw new IllegalArgumentException("Scale must be between 0 and " + MAX_SCALE);
+    }
+    this.scale = scale;
+  }
+
+  /**
+   * Add a symbol to the portfolio
+   *
+   * @param symbol     The symbol
+   * @param pointValue The value of one point of the symbol in the account currency
+   * @return The account of the symbol on the portfolio
+   */
+  public synchronized @NotNull SymbolLedger addSymbol(final @NotNull String symbol, final @NotNull BigDecimal pointValue) {
+    if (pointValue.signum() <= 0) {
+      throw new IllegalArgumentException("The point value of " + symbol + " must be positive");
+    }
+    if (this.symbols.containsKey(symbol)) {
+      throw new IllegalArgumentException("The symbol " + symbol + " is already on the portfolio");
+    }
+    final SymbolLedger symbolLedger = new SymbolLedger(symbol, pointValue);
+    this.symbols.put(symbol, symbolLedger);
+    return symbolLedger;
+  }
+
+  /**
+   * Get the account of a symbol
+   *
+   * @param symbol The symbol
+   * @return The account of the symbol on the portfolio
+   */
+  public synchronized @NotNull SymbolLedger getSymbol(final @NotNull String symbol) {
+    final SymbolLedger symbolLedger = this.symbols.get(symbol);
+    if (Objects.isNull(symbolLedger)) {
+      throw new IllegalArgumentException("Unknown symbol " + symbol);
+    }
+    return symbolLedger;
+  }
+
+  /**
+   * @return The accounts of the symbols in the order they were added
+   */
+  public synchronized @NotNull List<SymbolLedger> getSymbols() {
+    return List.copyOf(this.symbols.values());
+  }
+
+  public @NotNull BigDecimal getBalance() {
+    return BigDecimal.valueOf(this.realizedBalance.get(), this.scale);
+  }
+
+  public @NotNull BigDecimal getEquity() {
+    return BigDecimal.valueOf(this.realizedBalance.get() + this.floatingProfit.get(), this.scale);
+  }
+
+  public @NotNull BigDecimal getMaxDrawdown() {
+    return BigDecimal.valueOf(this.maxDrawdown.get(), this.scale);
+  }
+
+  public int getOpenPositions() {
+    return this.openPositions.get();
+  }
+
+  public int getMaxOpenPositions() {
+    return this.maxOpenPositions.get();
+  }
+
+  private void addPositions(final int positions) {
+    if (positions != 0) {
+      final int open = this.openPositions.addAndGet(positions);
+      this.maxOpenPositions.accumulateAndGet(open, Math::max);
+    }
+  }
+
+  private void updateExtremes() {
+    final long equity = this.realizedBalance.get() + this.floatingProfit.get();
+    final long peak = this.peakEquity.accumulateAndGet(equity, Math::max);
+    this.maxDrawdown.accumulateAndGet(peak - equity, Math::max);
+  }
+
+  /**
+   * Account of one symbol on the portfolio, updated by the engine of the symbol. The totals of the symbol are kept in its own units and converted as a whole,
+   * so the rounding of the conversion is not summed on each change.
+   */
+  public final class SymbolLedger {
+
+    private final String symbol;
+    private final BigDecimal pointValue;
+    // Totals in the units of the symbol account
+    private long realized = 0L;
+    private long floating = 0L;
+    // Totals in the units of the portfolio
+    private long realizedValue = 0L;
+    private long floatingValue = 0L;
+    private int openPositions = 0;
+    private int maxOpenPositions = 0;
+    // Conversion of the symbol units to the portfolio units, kept for the scale of the symbol account
+    private int factorScale = -1;
+    private BigDecimal factor = BigDecimal.ONE;
+    private long exactFactor = 0L;
+
+    private SymbolLedger(final @NotNull String symbol, final @NotNull BigDecimal pointValue) {
+      this.symbol = symbol;
+      this.pointValue = pointValue;
+    }
+
+    /**
+     * Add the result of a closed order of the symbol
+     *
+     * @param units The result in account units of the symbol
+     * @param scale The number of decimals of the account of the symbol
+     */
+    public synchronized void addRealized(final long units, final int scale) {
+      this.realized = Math.addExact(this.realized, units);
+      final long value = this.toLedgerUnits(this.realized, scale);
+      PortfolioLedger.this.realizedBalance.addAndGet(value - this.realizedValue);
+      this.realizedValue = value;
+      PortfolioLedger.this.updateExtremes();
+    }
+
+    /**
+     * Add the change of the open orders of the symbol
+     *
+     * @param units     The change of the floating profit in account units of the symbol
+     * @param scale     The number of decimals of the account of the symbol
+     * @param positions The change of the number of open orders
+     */
+    public synchronized void addFloating(final long units, final int scale, final int positions) {
+      if (units != 0L) {
+        this.floating = Math.addExact(this.floating, units);
+        final long value = this.toLedgerUnits(this.floating, scale);
+        PortfolioLedger.this.floatingProfit.addAndGet(value - this.floatingValue);
+        this.floatingValue = value;
+      }
+      if (positions != 0) {
+        this.openPositions += positions;
+        this.maxOpenPositions = Math.max(this.maxOpenPositions, this.openPositions);
+        PortfolioLedger.this.addPositions(positions);
+      }
+      PortfolioLedger.this.updateExtremes();
+    }
+
+    public @NotNull String getSymbol() {
+      return this.symbol;
+    }
+
+    public @NotNull BigDecimal getPointValue() {
+      return this.pointValue;
+    }
+
+    /**
+     * @return The realized balance of the symbol in the account currency
+     */
+    public synchronized @NotNull BigDecimal getBalance() {
+      return BigDecimal.valueOf(this.realizedValue, PortfolioLedger.this.scale);
+    }
+
+    /**
+     * @return The value of the open orders of the symbol in the account currency
+     */
+    public synchronized @NotNull BigDecimal getFloatingProfit() {
+      return BigDecimal.valueOf(this.floatingValue, PortfolioLedger.this.scale);
+    }
+
+    public synchronized int getOpenPositions() {
+      return this.openPositions;
+    }
+
+    public synchronized int getMaxOpenPositions() {
+      return this.maxOpenPositions;
+    }
+
+    private long toLedgerUnits(final long units, final int scale) {
+      if (scale != this.factorScale) {
+        this.factor = this.pointValue.movePointRight(PortfolioLedger.this.scale - scale);
+        this.exactFactor = this.factor.stripTrailingZeros().scale() <= 0 ? this.factor.longValueExact() : 0L;
+        this.factorScale = scale;
+      }
+      // The point value is positive, so a factor without decimals is never zero
+      return this.exactFactor != 0L ? Math.multiplyExact(units, this.exactFactor)
+          : this.factor.multiply(BigDecimal.valueOf(units)).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package br.eti.allandemiranda.forex.utils;
+
+import br.eti.allandemiranda.forex.dtos.Signal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Signals and trading performance diffs given to the order processor on each ticket, recorded by the run of one indicator configuration and replayed by the runs
+ * that only change the order parameters. The ticket and the chart are processed on both runs, so the order processor is called on the same tickets and the
+ * entries are read in sequence. It is read-only after {@link #finish()}, so many runs can share it.
+ * <p>
+ * Each entry has the date time of its ticket, so the tapes recorded on consecutive ranges of the ticks can be joined in one tape.
+ */
+public class SignalTape {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private LocalDateTime[] dateTimes = new LocalDateTime[INITIAL_CAPACITY];
+  private Signal[] signals = new Signal[INITIAL_CAPACITY];
+  private int[] tradingDiffs = new int[INITIAL_CAPACITY];
+  private int size = 0;
+  private boolean recorded = false;
+
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * @return If the tape was recorded and can be replayed
+   */
+  public boolean isRecorded() {
+    return this.recorded;
+  }
+
+  /**
+   * Add the entry of the next ticket
+   *
+   * @param dateTime    The ticket date time
+   * @param signal      The last signal
+   * @param tradingDiff The trading performance diff
+   */
+  public void add(final @NotNull LocalDateTime dateTime, final @NotNull Signal signal, final int tradingDiff) {
+    if (this.recorded) {
+      throw new IllegalStateException("The signal tape was already recorded");
+    }
+    if (this.size == this.signals.length) {
+      this.dateTimes = Arrays.copyOf(this.dateTimes, this.size * 2);
+      this.signals = Arrays.copyOf(this.signals, this.size * 2);
+      this.tradingDiffs = Arrays.copyOf(this.tradingDiffs, this.size * 2);
+    }
+    this.dateTimes[this.size] = dateTime;
+    this.signals[this.size] = signal;
+    this.tradingDiffs[this.size++] = tradingDiff;
+  }
+
+  /**
+   * Add the entries of other tape with the ticket between two date times
+   *
+   * @param tape  The other tape
+   * @param start The first date time (inclusive)
+   * @param end   The last date time (exclusive)
+   */
+  public void addAll(final @NotNull SignalTape tape, final @NotNull LocalDateTime start, final @NotNull LocalDateTime end) {
+    for (int i = 0; i < tape.size(); i++) {
+      if (!tape.getDateTime(i).isBefore(start) && tape.getDateTime(i).isBefore(end)) {
+        this.add(tape.getDateTime(i), tape.getSignal(i), tape.getTradingDiff(i));
+      }
+    }
+  }
+
+  /**
+   * End the record, the tape can only be replayed after it
+   */
+  public void finish() {
+    this.recorded = true;
+  }
+
+  public @NotNull LocalDateTime getDateTime(final int index) {
+    return this.dateTimes[index];
+  }
+
+  public @NotNull Signal getSignal(final int index) {
+    return this.signals[index];
+  }
+
+  public int getTradingDiff(final int index) {
+    return this.tradingDiffs[index];
+  }
+}
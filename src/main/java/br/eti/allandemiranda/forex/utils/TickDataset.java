@@ -0,0 +1,359 @@
+package br.eti.allandemiranda.forex.utils;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.stream.StreamSupport;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Ticks of an input file decoded once to primitive columns (date time, BID and ASK). It is read-only after the load, so many runs can share it, and a window of
+ * the ticks is a view over the same columns.
+ * <p>
+ * The columns can be kept on a cache file mapped on memory (off the heap): the first process decodes the input and writes the file, the next ones only map it,
+ * so the processes of the same host share the pages of the file.
+ */
+public class TickDataset {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final CSVFormat CSV_FORMAT = CSVFormat.TDF.builder().build();
+  // Cache file: magic, version and size, then the columns of epoch seconds, BID, ASK and nanos
+  private static final long CACHE_MAGIC = 0x46585449434B5331L;
+  private static final int CACHE_VERSION = 1;
+  private static final int CACHE_HEADER_BYTES = Long.BYTES + Integer.BYTES + Integer.BYTES;
+  private static final int CACHE_TICK_BYTES = Long.BYTES + Double.BYTES + Double.BYTES + Integer.BYTES;
+  private static final String CACHE_EXTENSION = ".ticks";
+
+  private final LongBuffer epochSeconds;
+  private final IntBuffer nanos;
+  private final DoubleBuffer bids;
+  private final DoubleBuffer asks;
+  private final int offset;
+  private final int size;
+  private final boolean mapped;
+
+  private TickDataset(final @NotNull LongBuffer epochSeconds, final @NotNull IntBuffer nanos, final @NotNull DoubleBuffer bids,
+      final @NotNull DoubleBuffer asks, final int size, final boolean mapped) {
+    this.epochSeconds = epochSeconds;
+    this.nanos = nanos;
+    this.bids = bids;
+    this.asks = asks;
+    this.offset = 0;
+    this.size = size;
+    this.mapped = mapped;
+  }
+
+  private TickDataset(final @NotNull TickDataset dataset, final int from, final int to) {
+    this.epochSeconds = dataset.epochSeconds;
+    this.nanos = dataset.nanos;
+    this.bids = dataset.bids;
+    this.asks = dataset.asks;
+    this.offset = dataset.offset + from;
+    this.size = to - from;
+    this.mapped = dataset.mapped;
+  }
+
+  /**
+   * Read the ticks of a file (MetaTrader export) in order
+   *
+   * @param file     The input file
+   * @param consumer The consumer of each tick
+   * @throws IOException If the file can't be read
+   */
+  public static void read(final @NotNull File file, final @NotNull TickConsumer consumer) throws IOException {
+    read(file, 0L, consumer);
+  }
+
+  /**
+   * Read the ticks of a file (MetaTrader export) in order from a tick, the ticks before it are not decoded
+   *
+   * @param file     The input file
+   * @param from     The number of ticks to skip
+   * @param consumer The consumer of each tick
+   * @throws IOException If the file can't be read
+   */
+  public static void read(final @NotNull File file, final long from, final @NotNull TickConsumer consumer) throws IOException {
+    try (final FileReader fileReader = new FileReader(file); final CSVParser csvParser = CSV_FORMAT.parse(fileReader)) {
+      StreamSupport.stream(csvParser.spliterator(), false).skip(1L + from).forEachOrdered(csvRecord -> {
+        final LocalDateTime localDateTime = toDateTime(csvRecord.get(0), csvRecord.get(1));
+        final Double bid = csvRecord.get(2).isEmpty() ? null : Double.parseDouble(csvRecord.get(2));
+        final Double ask = csvRecord.get(3).isEmpty() ? null : Double.parseDouble(csvRecord.get(3));
+        consumer.accept(localDateTime, bid, ask);
+      });
+    }
+  }
+
+  /**
+   * Decode the date time of a tick on the MetaTrader format
+   *
+   * @param date The date, like {@code 2023.07.03}
+   * @param time The time, like {@code 00:07:00.123}
+   * @return The date time
+   */
+  public static @NotNull LocalDateTime toDateTime(final @NotNull String date, final @NotNull String time) {
+    return LocalDateTime.parse(date.replace(".", "-").concat("T").concat(time), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+  }
+
+  /**
+   * Decode all ticks of a file
+   *
+   * @param file The input file
+   * @return The dataset
+   * @throws IOException If the file can't be read
+   */
+  public static @NotNull TickDataset load(final @NotNull File file) throws IOException {
+    final Decoder decoder = new Decoder();
+    read(file, decoder);
+    return decoder.toDataset();
+  }
+
+  /**
+   * Map the cache file of the ticks of a file, the cache file is written if it not exists (or the input changed)
+   *
+   * @param file        The input file
+   * @param cacheFolder The folder of the cache files
+   * @return The dataset on the mapped file
+   * @throws IOException If the input can't be read or the cache can't be written
+   */
+  public static @NotNull TickDataset load(final @NotNull File file, final @NotNull File cacheFolder) throws IOException {
+    final Path cacheFile = getCacheFile(file, cacheFolder);
+    final TickDataset cached = map(cacheFile);
+    if (cached != null) {
+      return cached;
+    }
+    write(load(file), cacheFile);
+    final TickDataset written = map(cacheFile);
+    if (written == null) {
+      throw new IOException("The cache file " + cacheFile + " is not valid after the write");
+    }
+    return written;
+  }
+
+  // The name has the input name, path, length and change time, so a changed input has other cache file
+  private static @NotNull Path getCacheFile(final @NotNull File file, final @NotNull File cacheFolder) throws IOException {
+    final Path input = file.toPath().toRealPath();
+    return cacheFolder.toPath().resolve(
+        String.format("%s-%08x-%d-%d%s", input.getFileName(), input.toString().hashCode(), Files.size(input), Files.getLastModifiedTime(input).toMillis(),
+            CACHE_EXTENSION));
+  }
+
+  private static TickDataset map(final @NotNull Path cacheFile) throws IOException {
+    if (!Files.isRegularFile(cacheFile)) {
+      return null;
+    }
+    final MappedByteBuffer buffer;
+    try (final FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+      if (channel.size() < CACHE_HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+        return null;
+      }
+      buffer = channel.map(MapMode.READ_ONLY, 0L, channel.size());
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    final int size = buffer.getInt(Long.BYTES + Integer.BYTES);
+    if (buffer.getLong(0) != CACHE_MAGIC || buffer.getInt(Long.BYTES) != CACHE_VERSION || size < 0
+        || buffer.capacity() != CACHE_HEADER_BYTES + (long) size * CACHE_TICK_BYTES) {
+      return null;
+    }
+    int position = CACHE_HEADER_BYTES;
+    final LongBuffer epochSeconds = buffer.slice(position, size * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    position += size * Long.BYTES;
+    final DoubleBuffer bids = buffer.slice(position, size * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    position += size * Double.BYTES;
+    final DoubleBuffer asks = buffer.slice(position, size * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    position += size * Double.BYTES;
+    final IntBuffer nanos = buffer.slice(position, size * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    return new TickDataset(epochSeconds, nanos, bids, asks, size, true);
+  }
+
+  // The file is written with other name and moved, so other process never maps a file on write
+  private static void write(final @NotNull TickDataset dataset, final @NotNull Path cacheFile) throws IOException {
+    final long length = CACHE_HEADER_BYTES + (long) dataset.size() * CACHE_TICK_BYTES;
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("The ticks are too big to one cache file (" + length + " bytes)");
+    }
+    Files.createDirectories(cacheFile.getParent());
+    final Path temporaryFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+    try {
+      // The temporary files are only readable by the owner, the cache is read by the processes of other users too
+      if (Files.getFileStore(temporaryFile).supportsFileAttributeView(PosixFileAttributeView.class)) {
+        Files.setPosixFilePermissions(temporaryFile, PosixFilePermissions.fromString("rw-r--r--"));
+      }
+      try (final FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        final MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0L, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(CACHE_MAGIC).putInt(CACHE_VERSION).putInt(dataset.size());
+        for (int i = 0; i < dataset.size(); i++) {
+          buffer.putLong(dataset.epochSeconds.get(dataset.offset + i));
+        }
+        for (int i = 0; i < dataset.size(); i++) {
+          buffer.putDouble(dataset.getBid(i));
+        }
+        for (int i = 0; i < dataset.size(); i++) {
+          buffer.putDouble(dataset.getAsk(i));
+        }
+        for (int i = 0; i < dataset.size(); i++) {
+          buffer.putInt(dataset.nanos.get(dataset.offset + i));
+        }
+        buffer.force();
+      }
+      Files.move(temporaryFile, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * @return If the columns are on a mapped cache file
+   */
+  public boolean isMapped() {
+    return this.mapped;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public @NotNull LocalDateTime getDateTime(final int index) {
+    return LocalDateTime.ofEpochSecond(this.epochSeconds.get(this.offset + index), this.nanos.get(this.offset + index), ZoneOffset.UTC);
+  }
+
+  /**
+   * Get the index of the first tick on or after a date time
+   *
+   * @param dateTime The date time
+   * @return The tick index (the size if all ticks are before)
+   */
+  public int indexOf(final @NotNull LocalDateTime dateTime) {
+    final long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+    final int nano = dateTime.getNano();
+    int low = 0;
+    int high = this.size;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      final int index = this.offset + middle;
+      final long epochSecond = this.epochSeconds.get(index);
+      if (epochSecond < seconds || (epochSecond == seconds && this.nanos.get(index) < nano)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Get a view of the ticks between two date times, the columns are not copied
+   *
+   * @param start The first date time (inclusive)
+   * @param end   The last date time (exclusive)
+   * @return The window of ticks
+   */
+  public @NotNull TickDataset window(final @NotNull LocalDateTime start, final @NotNull LocalDateTime end) {
+    final int from = this.indexOf(start);
+    return new TickDataset(this, from, Math.max(from, this.indexOf(end)));
+  }
+
+  /**
+   * @param index The tick index
+   * @return The BID price (zero if the tick not have a price)
+   */
+  public double getBid(final int index) {
+    return this.bids.get(this.offset + index);
+  }
+
+  /**
+   * @param index The tick index
+   * @return The ASK price (zero if the tick not have a price)
+   */
+  public double getAsk(final int index) {
+    return this.asks.get(this.offset + index);
+  }
+
+  /**
+   * Send the ticks in order to a consumer, a price not present is sent as null
+   *
+   * @param consumer The consumer of each tick
+   */
+  public void forEach(final @NotNull TickConsumer consumer) {
+    this.forEach(0, consumer);
+  }
+
+  /**
+   * Send the ticks in order to a consumer from a tick, a price not present is sent as null
+   *
+   * @param from     The index of the first tick
+   * @param consumer The consumer of each tick
+   */
+  public void forEach(final int from, final @NotNull TickConsumer consumer) {
+    for (int i = this.offset + Math.min(from, this.size); i < this.offset + this.size; i++) {
+      final double bid = this.bids.get(i);
+      final double ask = this.asks.get(i);
+      consumer.accept(LocalDateTime.ofEpochSecond(this.epochSeconds.get(i), this.nanos.get(i), ZoneOffset.UTC), bid == 0d ? null : bid, ask == 0d ? null : ask);
+    }
+  }
+
+  /**
+   * Columns on the heap filled by the decode of a file
+   */
+  private static final class Decoder implements TickConsumer {
+
+    private long[] epochSeconds = new long[INITIAL_CAPACITY];
+    private int[] nanos = new int[INITIAL_CAPACITY];
+    private double[] bids = new double[INITIAL_CAPACITY];
+    private double[] asks = new double[INITIAL_CAPACITY];
+    private int size = 0;
+
+    @Override
+    public void accept(final @NotNull LocalDateTime dateTime, final Double bid, final Double ask) {
+      if (this.size == this.epochSeconds.length) {
+        final int capacity = this.size * 2;
+        this.epochSeconds = Arrays.copyOf(this.epochSeconds, capacity);
+        this.nanos = Arrays.copyOf(this.nanos, capacity);
+        this.bids = Arrays.copyOf(this.bids, capacity);
+        this.asks = Arrays.copyOf(this.asks, capacity);
+      }
+      this.epochSeconds[this.size] = dateTime.toEpochSecond(ZoneOffset.UTC);
+      this.nanos[this.size] = dateTime.getNano();
+      this.bids[this.size] = bid == null ? 0d : bid;
+      this.asks[this.size] = ask == null ? 0d : ask;
+      this.size++;
+    }
+
+    private @NotNull TickDataset toDataset() {
+      return new TickDataset(LongBuffer.wrap(this.epochSeconds), IntBuffer.wrap(this.nanos), DoubleBuffer.wrap(this.bids), DoubleBuffer.wrap(this.asks),
+          this.size, false);
+    }
+  }
+
+  @FunctionalInterface
+  public interface TickConsumer {
+
+    /**
+     * Receive a tick
+     *
+     * @param dateTime The tick date time
+     * @param bid      The BID price (null if not have a price)
+     * @param ask      The ASK price (null if not have a price)
+     */
+    void accept(@NotNull LocalDateTime dateTime, Double bid, Double ask);
+  }
+}
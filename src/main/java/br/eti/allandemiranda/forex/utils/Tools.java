@@ -3,6 +3,8 @@ package br.eti.allandemiranda.forex.utils;
 import br.eti.allandemiranda.forex.exceptions.ThreadToolException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.IntStream;
@@ -76,4 +78,17 @@ public class Tools {
   public static int getPoints(final @NotNull BigDecimal price, final int digits) {
     return price.multiply(BigDecimal.valueOf(Math.pow(10, digits))).intValue();
   }
+
+  /**
+   * Text of the time an order is open, without format parser
+   *
+   * @param openDateTime The open date time
+   * @param dateTime     The current date time
+   * @return The time open text (days hours:minutes:seconds)
+   */
+  public static @NotNull String getTimeOpen(final @NotNull LocalDateTime openDateTime, final @NotNull LocalDateTime dateTime) {
+    final long seconds = ChronoUnit.SECONDS.between(openDateTime, dateTime);
+    return new StringBuilder(16).append(seconds / 86_400L).append("d ").append(seconds / 3_600L % 24L).append(':').append(seconds / 60L % 60L).append(':')
+        .append(seconds % 60L).toString();
+  }
 }
@@ -0,0 +1,168 @@
+package br.eti.allandemiranda.forex.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Indexed binary min-heap of trigger prices (in points) by order slot. Each slot has at most one entry, so it can be removed in O(log n) when the order is closed by
+ * another trigger. To sort from the highest price use negative prices.
+ */
+public class TriggerHeap {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private int[] prices = new int[INITIAL_CAPACITY];
+  private int[] slots = new int[INITIAL_CAPACITY];
+  // Heap position of each slot (-1 when the slot is not on the heap)
+  private int[] positions = filled(INITIAL_CAPACITY);
+  private int size = 0;
+
+  private static int[] filled(final int capacity) {
+    final int[] array = new int[capacity];
+    Arrays.fill(array, -1);
+    return array;
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public int peekPrice() {
+    return this.prices[0];
+  }
+
+  public int peekSlot() {
+    return this.slots[0];
+  }
+
+  /**
+   * Add the trigger of a slot (replace the old one if exist)
+   *
+   * @param slot  The order slot
+   * @param price The trigger price in points
+   */
+  public void add(final int slot, final int price) {
+    if (slot >= this.positions.length) {
+      final int length = this.positions.length;
+      this.positions = Arrays.copyOf(this.positions, Math.max(slot + 1, length * 2));
+      Arrays.fill(this.positions, length, this.positions.length, -1);
+    }
+    this.remove(slot);
+    if (this.size == this.prices.length) {
+      this.prices = Arrays.copyOf(this.prices, this.size * 2);
+      this.slots = Arrays.copyOf(this.slots, this.size * 2);
+    }
+    this.prices[this.size] = price;
+    this.slots[this.size] = slot;
+    this.positions[slot] = this.size;
+    this.siftUp(this.size++);
+  }
+
+  /**
+   * Remove the trigger of a slot
+   *
+   * @param slot The order slot
+   */
+  public void remove(final int slot) {
+    if (slot >= this.positions.length || this.positions[slot] < 0) {
+      return;
+    }
+    final int index = this.positions[slot];
+    this.positions[slot] = -1;
+    final int last = --this.size;
+    if (index != last) {
+      this.move(last, index);
+      this.siftDown(index);
+      this.siftUp(index);
+    }
+  }
+
+  public void clear() {
+    for (int i = 0; i < this.size; i++) {
+      this.positions[this.slots[i]] = -1;
+    }
+    this.size = 0;
+  }
+
+  /**
+   * Write the entries in the heap order
+   *
+   * @param output The binary output
+   * @throws IOException If the output fail
+   */
+  public void writeTo(final @NotNull DataOutput output) throws IOException {
+    output.writeInt(this.size);
+    for (int i = 0; i < this.size; i++) {
+      output.writeInt(this.slots[i]);
+      output.writeInt(this.prices[i]);
+    }
+  }
+
+  /**
+   * Replace the entries by the ones written by {@link #writeTo(DataOutput)}, they are added in the heap order so the heap has the same layout
+   *
+   * @param input The binary input
+   * @throws IOException If the input fail
+   */
+  public void readFrom(final @NotNull DataInput input) throws IOException {
+    this.clear();
+    final int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      final int slot = input.readInt();
+      this.add(slot, input.readInt());
+    }
+  }
+
+  private void move(final int from, final int to) {
+    this.prices[to] = this.prices[from];
+    this.slots[to] = this.slots[from];
+    this.positions[this.slots[to]] = to;
+  }
+
+  private void siftUp(final int start) {
+    final int price = this.prices[start];
+    final int slot = this.slots[start];
+    int index = start;
+    while (index > 0) {
+      final int parent = (index - 1) >>> 1;
+      if (this.prices[parent] <= price) {
+        break;
+      }
+      this.move(parent, index);
+      index = parent;
+    }
+    this.prices[index] = price;
+    this.slots[index] = slot;
+    this.positions[slot] = index;
+  }
+
+  private void siftDown(final int start) {
+    final int price = this.prices[start];
+    final int slot = this.slots[start];
+    int index = start;
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= this.size) {
+        break;
+      }
+      if (child + 1 < this.size && this.prices[child + 1] < this.prices[child]) {
+        child++;
+      }
+      if (this.prices[child] >= price) {
+        break;
+      }
+      this.move(child, index);
+      index = child;
+    }
+    this.prices[index] = price;
+    this.slots[index] = slot;
+    this.positions[slot] = index;
+  }
+}
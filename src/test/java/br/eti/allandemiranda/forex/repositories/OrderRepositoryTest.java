@@ -0,0 +1,234 @@
+package br.eti.allandemiranda.forex.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.eti.allandemiranda.forex.dtos.OrderSafe;
+import br.eti.allandemiranda.forex.enums.OrderPosition;
+import br.eti.allandemiranda.forex.enums.OrderStatus;
+import br.eti.allandemiranda.forex.enums.OrderType;
+import br.eti.allandemiranda.forex.enums.SignalTrend;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OrderRepositoryTest {
+
+  private static final LocalDateTime DATE_TIME = LocalDateTime.of(2023, 7, 3, 10, 0);
+  private static final int DIGITS = 5;
+  private static final int BID = 109_000;
+  private static final int SPREAD = 5;
+  private static final OrderSafe ORDER_SAFE = new OrderSafe(150, 100, 0, 0, 1, 0, 0);
+
+  private OrderRepository repository;
+
+  @BeforeEach
+  void createRepository() {
+    this.repository = new OrderRepository();
+    this.tick(0L, BID);
+  }
+
+  @Test
+  void trailingStopStartsOnTheActivationAndMovesByTheStep() {
+    // Trailing distance 50, activation 100 and step 20
+    final int slot = this.addOrder(OrderPosition.BUY, BID + SPREAD, new OrderSafe(1_000, 100, 50, 100, 20, 0, 0));
+    assertEquals(BID + SPREAD - 100, this.repository.getStopLossPrice(slot));
+
+    this.tick(1L, BID + SPREAD + 99);
+    assertEquals(BID + SPREAD - 100, this.repository.getStopLossPrice(slot));
+
+    this.tick(2L, BID + SPREAD + 100);
+    assertEquals(BID + SPREAD + 50, this.repository.getStopLossPrice(slot));
+
+    // A move smaller than the step keeps the stop loss
+    this.tick(3L, BID + SPREAD + 119);
+    assertEquals(BID + SPREAD + 50, this.repository.getStopLossPrice(slot));
+
+    this.tick(4L, BID + SPREAD + 120);
+    assertEquals(BID + SPREAD + 70, this.repository.getStopLossPrice(slot));
+
+    // The stop loss never goes back
+    this.tick(5L, BID + SPREAD + 80);
+    assertEquals(BID + SPREAD + 70, this.repository.getStopLossPrice(slot));
+
+    assertEquals(List.of(slot), this.tick(6L, BID + SPREAD + 70));
+    assertEquals(OrderStatus.CLOSE_SL, this.repository.getOrderStatus(slot));
+    assertEquals(70, this.repository.getCurrentProfit(slot));
+  }
+
+  @Test
+  void sellTrailingStopFollowsTheAsk() {
+    final int slot = this.addOrder(OrderPosition.SELL, BID, new OrderSafe(1_000, 100, 50, 100, 20, 0, 0));
+    assertEquals(BID + 100, this.repository.getStopLossPrice(slot));
+
+    // ASK 100 points under the open price
+    this.tick(1L, BID - 100 - SPREAD);
+    assertEquals(BID - 50, this.repository.getStopLossPrice(slot));
+
+    this.tick(2L, BID - 119 - SPREAD);
+    assertEquals(BID - 50, this.repository.getStopLossPrice(slot));
+
+    this.tick(3L, BID - 120 - SPREAD);
+    assertEquals(BID - 70, this.repository.getStopLossPrice(slot));
+
+    assertEquals(List.of(slot), this.tick(4L, BID - 70 - SPREAD));
+    assertEquals(OrderStatus.CLOSE_SL, this.repository.getOrderStatus(slot));
+    assertEquals(70, this.repository.getCurrentProfit(slot));
+  }
+
+  @Test
+  void breakEvenLocksTheOffset() {
+    // Break-even activation 50 and offset 10
+    final OrderSafe orderSafe = new OrderSafe(1_000, 100, 0, 0, 1, 50, 10);
+    final int buy = this.addOrder(OrderPosition.BUY, BID + SPREAD, orderSafe);
+    final int sell = this.addOrder(OrderPosition.SELL, BID, orderSafe);
+
+    this.tick(1L, BID + SPREAD + 49);
+    assertEquals(BID + SPREAD - 100, this.repository.getStopLossPrice(buy));
+    assertFalse(this.repository.isBreakEven(buy));
+
+    this.tick(2L, BID + SPREAD + 50);
+    assertEquals(BID + SPREAD + 10, this.repository.getStopLossPrice(buy));
+    assertTrue(this.repository.isBreakEven(buy));
+
+    // The break-even is applied once (the ASK stays under the stop loss of the sell)
+    this.tick(3L, BID + SPREAD + 80);
+    assertEquals(BID + SPREAD + 10, this.repository.getStopLossPrice(buy));
+
+    assertEquals(List.of(buy), this.tick(4L, BID + SPREAD + 10));
+    assertEquals(10, this.repository.getCurrentProfit(buy));
+    assertFalse(this.repository.isBreakEven(sell));
+
+    this.tick(5L, BID - 50 - SPREAD);
+    assertEquals(BID - 10, this.repository.getStopLossPrice(sell));
+    assertTrue(this.repository.isBreakEven(sell));
+
+    assertEquals(List.of(sell), this.tick(6L, BID - 10 - SPREAD));
+    assertEquals(OrderStatus.CLOSE_SL, this.repository.getOrderStatus(sell));
+    assertEquals(10, this.repository.getCurrentProfit(sell));
+  }
+
+  @Test
+  void oneTicketClosesAllOrdersWithATriggerCrossed() {
+    final int takeProfit = this.addOrder(OrderPosition.BUY, BID + SPREAD, ORDER_SAFE);
+    final int lowerTakeProfit = this.addOrder(OrderPosition.BUY, BID - 100, ORDER_SAFE);
+    final int open = this.addOrder(OrderPosition.BUY, BID + 200, ORDER_SAFE);
+    final int sellStopLoss = this.addOrder(OrderPosition.SELL, BID, ORDER_SAFE);
+    final int sellOpen = this.addOrder(OrderPosition.SELL, BID + 300, ORDER_SAFE);
+
+    // The price jumps over the take profit of two buys and the stop loss of one sell, each order is closed on the ticket price
+    final List<Integer> closed = this.tick(1L, BID + 160);
+
+    assertEquals(Set.of(takeProfit, lowerTakeProfit, sellStopLoss), Set.copyOf(closed));
+    assertEquals(3, closed.size());
+    assertEquals(OrderStatus.CLOSE_TP, this.repository.getOrderStatus(takeProfit));
+    assertEquals(OrderStatus.CLOSE_TP, this.repository.getOrderStatus(lowerTakeProfit));
+    assertEquals(OrderStatus.CLOSE_SL, this.repository.getOrderStatus(sellStopLoss));
+    assertEquals(155, this.repository.getCurrentProfit(takeProfit));
+    assertEquals(260, this.repository.getCurrentProfit(lowerTakeProfit));
+    assertEquals(-165, this.repository.getCurrentProfit(sellStopLoss));
+    assertEquals(OrderStatus.OPEN, this.repository.getOrderStatus(open));
+    assertEquals(OrderStatus.OPEN, this.repository.getOrderStatus(sellOpen));
+    assertEquals(2L, this.repository.numberOfOrdersOpen());
+    assertEquals((BID + 160L - (BID + 200L)) + (BID + 300L - (BID + 160L + SPREAD)), this.repository.getOpenPoints());
+  }
+
+  @Test
+  void pendingOrderActivatesAndTheOtherExpires() {
+    final int stop = this.repository.addPendingOrder(DATE_TIME, DATE_TIME, SignalTrend.BUY, OrderPosition.BUY, OrderType.STOP, 0, BID + SPREAD + 100,
+        ORDER_SAFE, DATE_TIME.plusMinutes(30L));
+    final int limit = this.addBuyLimit(BID + SPREAD - 100, DATE_TIME.plusMinutes(30L));
+
+    // The ASK reaches the stop price, the order is open on the ASK
+    this.tick(10L, BID + 100);
+    assertEquals(OrderStatus.OPEN, this.repository.getOrderStatus(stop));
+    assertEquals(DATE_TIME.plusMinutes(10L), this.repository.getOpenDateTime(stop));
+    assertEquals(BID + 100 + SPREAD - 100, this.repository.getStopLossPrice(stop));
+    assertEquals(1L, this.repository.numberOfOrdersPending());
+
+    // The expiration only touches the order still pending
+    this.tick(30L, BID + 50);
+    assertEquals(OrderStatus.EXPIRED, this.repository.getOrderStatus(limit));
+    assertEquals(OrderStatus.OPEN, this.repository.getOrderStatus(stop));
+    assertEquals(0L, this.repository.numberOfOrdersPending());
+    assertEquals(1L, this.repository.numberOfOrdersOpen());
+
+    assertEquals(List.of(stop), this.tick(40L, BID + SPREAD));
+    assertEquals(OrderStatus.CLOSE_SL, this.repository.getOrderStatus(stop));
+    assertEquals(-100, this.repository.getCurrentProfit(stop));
+  }
+
+  @Test
+  void pendingOrdersExpireByTheirOwnExpirationTime() {
+    // The first order was placed with a longer expiration (like an order of the journal), it can't hide the second one
+    final int late = this.addBuyLimit(BID - 100, DATE_TIME.plusMinutes(120L));
+    final int early = this.addBuyLimit(BID - 100, DATE_TIME.plusMinutes(30L));
+    final int never = this.addBuyLimit(BID - 100, null);
+
+    this.tick(29L, BID);
+    assertEquals(3L, this.repository.numberOfOrdersPending());
+
+    this.tick(30L, BID);
+    assertEquals(2L, this.repository.numberOfOrdersPending());
+    assertEquals(OrderStatus.EXPIRED, this.repository.getOrderStatus(early));
+    assertEquals(OrderStatus.PENDING, this.repository.getOrderStatus(late));
+
+    this.tick(120L, BID);
+    assertEquals(1L, this.repository.numberOfOrdersPending());
+    assertEquals(OrderStatus.EXPIRED, this.repository.getOrderStatus(late));
+    assertEquals(OrderStatus.PENDING, this.repository.getOrderStatus(never));
+  }
+
+  @Test
+  void snapshotRestoresThePendingExpirations() throws IOException {
+    this.addBuyLimit(BID - 100, DATE_TIME.plusMinutes(120L));
+    final int early = this.addBuyLimit(BID - 100, DATE_TIME.plusMinutes(30L));
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    this.repository.writeSnapshot(new DataOutputStream(bytes));
+
+    this.repository = new OrderRepository();
+    this.repository.readSnapshot(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    this.tick(30L, BID);
+
+    assertEquals(1L, this.repository.numberOfOrdersPending());
+    assertEquals(OrderStatus.EXPIRED, this.repository.getOrderStatus(early));
+  }
+
+  private int addOrder(final @NotNull OrderPosition orderPosition, final int openPrice, final @NotNull OrderSafe orderSafe) {
+    return this.repository.addOrder(DATE_TIME, DATE_TIME, SignalTrend.BUY, orderPosition, 0, openPrice, orderSafe);
+  }
+
+  private int addBuyLimit(final int price, final LocalDateTime expirationDateTime) {
+    return this.repository.addPendingOrder(DATE_TIME, DATE_TIME, SignalTrend.BUY, OrderPosition.BUY, OrderType.LIMIT, 0, price, ORDER_SAFE,
+        expirationDateTime);
+  }
+
+  // A ticket some minutes after the start, the orders are closed, adjusted, activated and expired like the order service does
+  private @NotNull List<Integer> tick(final long minutes, final int bid) {
+    final LocalDateTime dateTime = DATE_TIME.plusMinutes(minutes);
+    this.repository.updateTicket(dateTime, bid, bid + SPREAD, DIGITS);
+    final List<Integer> closed = new ArrayList<>();
+    for (int slot = this.repository.closeTriggeredOrder(); slot >= 0; slot = this.repository.closeTriggeredOrder()) {
+      closed.add(slot);
+    }
+    // The new stop losses are used from the next ticket
+    for (int slot = this.repository.adjustTriggeredOrder(); slot >= 0; slot = this.repository.adjustTriggeredOrder()) {
+      assertEquals(OrderStatus.OPEN, this.repository.getOrderStatus(slot));
+    }
+    for (int slot = this.repository.getActivatedSlot(); slot >= 0; slot = this.repository.getActivatedSlot()) {
+      this.repository.activateOrder(slot);
+    }
+    this.repository.expirePendingOrders(dateTime);
+    return closed;
+  }
+}
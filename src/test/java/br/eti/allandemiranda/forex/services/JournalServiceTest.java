@@ -0,0 +1,179 @@
+package br.eti.allandemiranda.forex.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.eti.allandemiranda.forex.BacktestKernel;
+import br.eti.allandemiranda.forex.dtos.OrderSafe;
+import br.eti.allandemiranda.forex.dtos.Signal;
+import br.eti.allandemiranda.forex.dtos.Ticket;
+import br.eti.allandemiranda.forex.enums.OrderPosition;
+import br.eti.allandemiranda.forex.enums.OrderStatus;
+import br.eti.allandemiranda.forex.enums.SignalTrend;
+import br.eti.allandemiranda.forex.repositories.AccountRepository;
+import br.eti.allandemiranda.forex.repositories.OrderRepository;
+import br.eti.allandemiranda.forex.utils.BinaryTools;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalServiceTest {
+
+  private static final String JOURNAL_FILE_NAME = "order.journal";
+  // Length, type, swaps, next rollover and CRC
+  private static final int ROLLOVER_RECORD_SIZE = Integer.BYTES + 1 + Long.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+  private static final LocalDateTime OPEN_DATE_TIME = LocalDateTime.of(2023, 7, 3, 10, 0);
+  private static final OrderSafe ORDER_SAFE = new OrderSafe(150, 100, 0, 0, 1, 0, 0);
+  private static final int OPEN_PRICE = 109_000;
+  private static final int CLOSE_PROFIT = 150;
+  private static final long SWAP = 7L;
+  // The default swap of a buy order
+  private static final BigDecimal SWAP_LONG = new BigDecimal("-5.46");
+  private static final LocalDateTime NEXT_ROLLOVER_DATE_TIME = OPEN_DATE_TIME.toLocalDate().plusDays(1L).atStartOfDay();
+
+  @TempDir
+  private File folder;
+  private File journal;
+
+  @BeforeEach
+  void writeJournal() {
+    this.journal = new File(this.folder, JOURNAL_FILE_NAME);
+    try (final BacktestKernel kernel = this.kernel()) {
+      final JournalService journalService = kernel.getBean(JournalService.class);
+      journalService.addOpen(1L, OPEN_DATE_TIME, OPEN_DATE_TIME, SignalTrend.BUY, OrderPosition.BUY, 0, OPEN_PRICE, ORDER_SAFE);
+      journalService.addOpen(2L, OPEN_DATE_TIME.plusMinutes(15L), OPEN_DATE_TIME.plusMinutes(15L), SignalTrend.BUY, OrderPosition.BUY, 0, OPEN_PRICE,
+          ORDER_SAFE);
+      journalService.addClose(1L, OrderStatus.CLOSE_TP, OPEN_DATE_TIME.plusHours(1L), OPEN_PRICE + CLOSE_PROFIT, OPEN_PRICE + CLOSE_PROFIT + 10, 5);
+      journalService.addRollover(SWAP, -SWAP, NEXT_ROLLOVER_DATE_TIME);
+    }
+  }
+
+  @Test
+  void replayRebuildsTheBookAndTheBalance() throws IOException {
+    final long size = this.journal.length();
+    try (final BacktestKernel kernel = this.kernel()) {
+      final OrderRepository orderRepository = kernel.getBean(OrderRepository.class);
+      final AccountRepository accountRepository = kernel.getBean(AccountRepository.class);
+
+      assertEquals(1L, orderRepository.numberOfOrdersOpen());
+      assertTrue(orderRepository.findSlot(1L) < 0);
+      assertTrue(orderRepository.findSlot(2L) >= 0);
+      assertEquals(SWAP, orderRepository.getOpenSwapProfit());
+      assertEquals(accountRepository.toUnits(CLOSE_PROFIT, 0L), accountRepository.getRealizedBalance());
+      assertEquals(NEXT_ROLLOVER_DATE_TIME, getNextRolloverDateTime(kernel));
+    }
+    assertEquals(size, this.journal.length());
+  }
+
+  @Test
+  void replayDropsATornLastRecord() throws IOException {
+    final long size = this.journal.length();
+    try (final RandomAccessFile file = new RandomAccessFile(this.journal, "rw")) {
+      file.setLength(size - 5L);
+    }
+
+    this.assertLastRecordDropped(size);
+  }
+
+  @Test
+  void replayDropsALastRecordWithABadCrc() throws IOException {
+    final long size = this.journal.length();
+    final byte[] bytes = Files.readAllBytes(this.journal.toPath());
+    bytes[bytes.length - 1] ^= 0x01;
+    Files.write(this.journal.toPath(), bytes);
+
+    this.assertLastRecordDropped(size);
+  }
+
+  @Test
+  void replayAddsTheSwapOfARolloverAfterTheStop(final @TempDir File restartFolder) {
+    // A buy order open before the rollover of the day and the process stopped
+    try (final BacktestKernel kernel = this.kernel(restartFolder, Map.of())) {
+      kernel.getBean(OrderService.class).insertTicketAndSignal(getTicket(OPEN_DATE_TIME), new Signal(OPEN_DATE_TIME, SignalTrend.BUY), 0);
+    }
+
+    try (final BacktestKernel kernel = this.kernel(restartFolder, Map.of())) {
+      final OrderRepository orderRepository = kernel.getBean(OrderRepository.class);
+      final AccountRepository accountRepository = kernel.getBean(AccountRepository.class);
+      final LocalDateTime restartDateTime = NEXT_ROLLOVER_DATE_TIME.plusHours(10L);
+      kernel.getBean(OrderService.class).insertTicketAndSignal(getTicket(restartDateTime), new Signal(OPEN_DATE_TIME, SignalTrend.BUY), 0);
+
+      assertEquals(1L, orderRepository.numberOfOrdersOpen());
+      assertEquals(accountRepository.toUnits(SWAP_LONG), orderRepository.getOpenSwapProfit());
+    }
+  }
+
+  @Test
+  void replayKeepsTheRecordsOfACrashedProcess(final @TempDir File crashFolder) throws IOException {
+    final File crashJournal = new File(crashFolder, JOURNAL_FILE_NAME);
+    // Default sync batch, the close is not synced
+    try (final BacktestKernel kernel = this.kernel(this.folder, Map.of())) {
+      kernel.getBean(JournalService.class)
+          .addClose(2L, OrderStatus.CLOSE_TP, OPEN_DATE_TIME.plusHours(2L), OPEN_PRICE + CLOSE_PROFIT, OPEN_PRICE + CLOSE_PROFIT + 10, 5);
+      // The journal of a process killed now, before the close of the kernel
+      Files.copy(this.journal.toPath(), crashJournal.toPath());
+    }
+
+    try (final BacktestKernel kernel = this.kernel(crashFolder, Map.of())) {
+      final OrderRepository orderRepository = kernel.getBean(OrderRepository.class);
+      final AccountRepository accountRepository = kernel.getBean(AccountRepository.class);
+
+      assertEquals(0L, orderRepository.numberOfOrdersOpen());
+      assertEquals(accountRepository.toUnits(CLOSE_PROFIT * 2L, SWAP), accountRepository.getRealizedBalance());
+    }
+    assertEquals(this.journal.length(), crashJournal.length());
+  }
+
+  // The rollover is the last record, the orders and the close before it are replayed
+  private void assertLastRecordDropped(final long size) throws IOException {
+    try (final BacktestKernel kernel = this.kernel()) {
+      final OrderRepository orderRepository = kernel.getBean(OrderRepository.class);
+      final AccountRepository accountRepository = kernel.getBean(AccountRepository.class);
+
+      assertEquals(1L, orderRepository.numberOfOrdersOpen());
+      assertEquals(0L, orderRepository.getOpenSwapProfit());
+      assertEquals(accountRepository.toUnits(CLOSE_PROFIT, 0L), accountRepository.getRealizedBalance());
+      assertNull(getNextRolloverDateTime(kernel));
+    }
+    assertEquals(size - ROLLOVER_RECORD_SIZE, this.journal.length());
+  }
+
+  // The order service keeps the next rollover on its snapshot, after the signal of the last open
+  private static @Nullable LocalDateTime getNextRolloverDateTime(final @NotNull BacktestKernel kernel) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    kernel.getBean(OrderService.class).writeSnapshot(new DataOutputStream(bytes));
+    final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    BinaryTools.readDateTime(input);
+    return BinaryTools.readNullableDateTime(input);
+  }
+
+  private static @NotNull Ticket getTicket(final @NotNull LocalDateTime dateTime) {
+    return new Ticket(dateTime, new BigDecimal("1.09000"), new BigDecimal("1.09005"), 5, 5);
+  }
+
+  private @NotNull BacktestKernel kernel() {
+    return this.kernel(this.folder, Map.of("order.journal.sync-batch", "1"));
+  }
+
+  private @NotNull BacktestKernel kernel(final @NotNull File rootFolder, final @NotNull Map<String, String> properties) {
+    final Map<String, String> kernelProperties = new HashMap<>(properties);
+    kernelProperties.put("config.root.folder", rootFolder.getPath() + File.separator);
+    kernelProperties.put("order.journal.active", "true");
+    return BacktestKernel.builder().properties(kernelProperties).build();
+  }
+}
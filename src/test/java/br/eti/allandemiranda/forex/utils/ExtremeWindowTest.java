@@ -0,0 +1,91 @@
+package br.eti.allandemiranda.forex.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ExtremeWindowTest {
+
+  @Test
+  void getSinceIsTheHighestPriceOfTheWindow() {
+    final ExtremeWindow window = new ExtremeWindow();
+    final int[] prices = {5, 3, 8, 8, 2, 7, 1};
+    for (int sequence = 0; sequence < prices.length; sequence++) {
+      window.add(sequence, prices[sequence]);
+    }
+
+    assertEquals(8, window.getSince(0L));
+    assertEquals(8, window.getSince(2L));
+    assertEquals(8, window.getSince(3L));
+    assertEquals(7, window.getSince(4L));
+    assertEquals(7, window.getSince(5L));
+    assertEquals(1, window.getSince(6L));
+  }
+
+  @Test
+  void negativePricesFollowTheLowestPrice() {
+    final ExtremeWindow window = new ExtremeWindow();
+    final int[] prices = {5, 3, 8, 2, 7};
+    for (int sequence = 0; sequence < prices.length; sequence++) {
+      window.add(sequence, -prices[sequence]);
+    }
+
+    assertEquals(2, -window.getSince(0L));
+    assertEquals(7, -window.getSince(4L));
+  }
+
+  @Test
+  void slidingWindowMatchesTheBruteForce() {
+    final Random random = new Random(11L);
+    final ExtremeWindow window = new ExtremeWindow();
+    final int ticks = 50_000;
+    final int[] prices = new int[ticks];
+    long oldest = 0L;
+    for (int sequence = 0; sequence < ticks; sequence++) {
+      // Long falls keep many prices on the deque, so it grows and compacts
+      prices[sequence] = sequence % 5_000 < 1_000 ? -sequence : random.nextInt(2_000) - 1_000;
+      window.add(sequence, prices[sequence]);
+      if (random.nextInt(10) == 0) {
+        oldest = Math.max(oldest, sequence - random.nextInt(500));
+        window.trim(oldest);
+      }
+      final long since = oldest + random.nextInt((int) (sequence - oldest + 1L));
+      assertEquals(max(prices, since, sequence), window.getSince(since));
+    }
+  }
+
+  @Test
+  void readFromRestoresTheWindow() throws IOException {
+    final ExtremeWindow window = new ExtremeWindow();
+    final int[] prices = {9, 4, 6, 1, 3, 2};
+    for (int sequence = 0; sequence < prices.length; sequence++) {
+      window.add(sequence + 100L, prices[sequence]);
+    }
+    window.trim(101L);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    window.writeTo(new DataOutputStream(bytes));
+
+    final ExtremeWindow restored = new ExtremeWindow();
+    restored.add(0L, 1_000);
+    restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    for (long since = 101L; since < 106L; since++) {
+      assertEquals(window.getSince(since), restored.getSince(since));
+    }
+    assertEquals(6, restored.getSince(101L));
+  }
+
+  private static int max(final int[] prices, final long from, final int to) {
+    int max = Integer.MIN_VALUE;
+    for (int i = (int) from; i <= to; i++) {
+      max = Math.max(max, prices[i]);
+    }
+    return max;
+  }
+}
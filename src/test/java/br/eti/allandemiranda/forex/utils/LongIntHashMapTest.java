@@ -0,0 +1,134 @@
+package br.eti.allandemiranda.forex.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+class LongIntHashMapTest {
+
+  // Capacity of a new map, it is not grown while the map has less than half of it
+  private static final int CAPACITY = 64;
+
+  @Test
+  void putReplacesTheValueOfAKey() {
+    final LongIntHashMap map = new LongIntHashMap();
+    map.put(1L, 10);
+    map.put(2L, 20);
+    map.put(1L, 11);
+
+    assertEquals(2, map.size());
+    assertEquals(11, map.get(1L));
+    assertEquals(20, map.get(2L));
+    assertEquals(-1, map.get(3L));
+  }
+
+  @Test
+  void putRejectsTheEmptyMark() {
+    final LongIntHashMap map = new LongIntHashMap();
+
+    assertThrows(IllegalArgumentException.class, () -> map.put(0L, 1));
+    assertThrows(IllegalArgumentException.class, () -> map.put(-1L, 1));
+  }
+
+  @Test
+  void removeOfAnUnknownKeyIsIgnored() {
+    final LongIntHashMap map = new LongIntHashMap();
+    map.put(1L, 10);
+    map.remove(2L);
+    map.remove(0L);
+    map.remove(-5L);
+
+    assertEquals(1, map.size());
+    assertEquals(10, map.get(1L));
+  }
+
+  @Test
+  void removeShiftsBackTheKeysOfTheSameProbe() {
+    final LongIntHashMap map = new LongIntHashMap();
+    // Three keys of the same position and one of the next position, probed in a row
+    final List<Long> same = keysAt(10, 3);
+    final long next = keysAt(11, 1).get(0);
+    same.forEach(key -> map.put(key, (int) (long) key));
+    map.put(next, (int) next);
+
+    map.remove(same.get(0));
+
+    assertEquals(3, map.size());
+    assertEquals(-1, map.get(same.get(0)));
+    assertEquals((int) (long) same.get(1), map.get(same.get(1)));
+    assertEquals((int) (long) same.get(2), map.get(same.get(2)));
+    assertEquals((int) next, map.get(next));
+  }
+
+  @Test
+  void removeShiftsBackAcrossTheEndOfTheTable() {
+    final LongIntHashMap map = new LongIntHashMap();
+    // The probe of the last position continues on the first positions of the table
+    final List<Long> last = keysAt(CAPACITY - 1, 3);
+    final long first = keysAt(0, 1).get(0);
+    final long second = keysAt(1, 1).get(0);
+    last.forEach(key -> map.put(key, 1));
+    map.put(first, 2);
+    map.put(second, 3);
+
+    map.remove(last.get(0));
+    assertEquals(-1, map.get(last.get(0)));
+    assertEquals(1, map.get(last.get(1)));
+    assertEquals(1, map.get(last.get(2)));
+    assertEquals(2, map.get(first));
+    assertEquals(3, map.get(second));
+
+    map.remove(last.get(2));
+    map.remove(first);
+    assertEquals(2, map.size());
+    assertEquals(1, map.get(last.get(1)));
+    assertEquals(3, map.get(second));
+  }
+
+  @Test
+  void randomPutsAndRemovalsMatchAHashMap() {
+    final Random random = new Random(3L);
+    final LongIntHashMap map = new LongIntHashMap();
+    final Map<Long, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 100_000; i++) {
+      final long key = 1L + random.nextInt(2_000);
+      if (random.nextBoolean()) {
+        map.remove(key);
+        expected.remove(key);
+      } else {
+        final int value = random.nextInt(Integer.MAX_VALUE);
+        map.put(key, value);
+        expected.put(key, value);
+      }
+    }
+
+    assertEquals(expected.size(), map.size());
+    for (long key = 1L; key <= 2_000L; key++) {
+      assertEquals(expected.getOrDefault(key, -1), map.get(key));
+    }
+  }
+
+  // Keys with the ideal position on a map of the initial capacity
+  private static @NotNull List<Long> keysAt(final int position, final int count) {
+    final List<Long> keys = new ArrayList<>(count);
+    for (long key = 1L; keys.size() < count; key++) {
+      if (getPosition(key) == position) {
+        keys.add(key);
+      }
+    }
+    return keys;
+  }
+
+  // The same hash of the map
+  private static int getPosition(final long key) {
+    final long mixed = key * 0x9E3779B97F4A7C15L;
+    return (int) (mixed ^ (mixed >>> 32)) & (CAPACITY - 1);
+  }
+}
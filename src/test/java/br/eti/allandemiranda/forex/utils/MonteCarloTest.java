@@ -0,0 +1,91 @@
+package br.eti.allandemiranda.forex.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.eti.allandemiranda.forex.enums.ResampleMode;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class MonteCarloTest {
+
+  private static final int TRADES = 500;
+  private static final int ITERATIONS = 5_000;
+  private static final long SEED = 42L;
+
+  @ParameterizedTest
+  @EnumSource(ResampleMode.class)
+  void resultDoesNotDependOnTheThreads(final ResampleMode mode) throws ExecutionException, InterruptedException {
+    final long[] results = getResults();
+    final MonteCarlo.Result expected = simulate(1, results, mode, SEED);
+
+    for (final int threads : new int[]{2, 3, 8}) {
+      final MonteCarlo.Result result = simulate(threads, results, mode, SEED);
+      assertArrayEquals(expected.finals(), result.finals());
+      assertArrayEquals(expected.drawdowns(), result.drawdowns());
+    }
+    final MonteCarlo.Result common = MonteCarlo.simulate(results, TRADES, ITERATIONS, mode, SEED);
+    assertArrayEquals(expected.finals(), common.finals());
+    assertArrayEquals(expected.drawdowns(), common.drawdowns());
+  }
+
+  @Test
+  void otherSeedGivesOtherResamples() throws ExecutionException, InterruptedException {
+    final long[] results = getResults();
+
+    assertFalse(Arrays.equals(simulate(2, results, ResampleMode.SHUFFLE, SEED).drawdowns(),
+        simulate(2, results, ResampleMode.SHUFFLE, SEED + 1L).drawdowns()));
+  }
+
+  @Test
+  void shuffleKeepsTheFinalEquity() {
+    final long[] results = getResults();
+    final long total = Arrays.stream(results, 0, TRADES).sum();
+
+    final MonteCarlo.Result result = MonteCarlo.simulate(results, TRADES, ITERATIONS, ResampleMode.SHUFFLE, SEED);
+
+    assertEquals(total, result.getFinal(0d));
+    assertEquals(total, result.getFinal(100d));
+    assertTrue(result.getDrawdown(5d) <= result.getDrawdown(95d));
+  }
+
+  @Test
+  void resamplesUseOnlyTheSizeOfTheTrades() {
+    final long[] results = new long[64];
+    Arrays.fill(results, 0, 3, 10L);
+    Arrays.fill(results, 3, results.length, -1_000L);
+
+    final MonteCarlo.Result result = MonteCarlo.simulate(results, 3, 100, ResampleMode.BOOTSTRAP, SEED);
+
+    assertEquals(30L, result.getFinal(0d));
+    assertEquals(0L, result.getDrawdown(100d));
+  }
+
+  private static @NotNull MonteCarlo.Result simulate(final int threads, final long @NotNull [] results, final @NotNull ResampleMode mode, final long seed)
+      throws ExecutionException, InterruptedException {
+    final ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      return pool.submit(() -> MonteCarlo.simulate(results, TRADES, ITERATIONS, mode, seed)).get();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  // The array is bigger than the trades, like the buffer of the statistics
+  private static long @NotNull [] getResults() {
+    final Random random = new Random(5L);
+    final long[] results = new long[TRADES * 2];
+    for (int i = 0; i < TRADES; i++) {
+      results[i] = random.nextBoolean() ? 150L + random.nextInt(50) : -100L - random.nextInt(50);
+    }
+    return results;
+  }
+}
@@ -0,0 +1,109 @@
+package br.eti.allandemiranda.forex.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TickDatasetTest {
+
+  private static final String HEADER = "<DATE>\t<TIME>\t<BID>\t<ASK>\t<LAST>\t<VOLUME>\t<FLAGS>";
+  private static final List<String> TICKS = List.of("2023.07.03\t05:29:58.692\t1.09066\t1.09070\t\t\t6", "2023.07.03\t05:29:59.001\t1.09067\t\t\t\t2",
+      "2023.07.03\t05:30:00.150\t\t1.09073\t\t\t4", "2023.07.03\t05:30:02.999\t1.09061\t1.09065\t\t\t6");
+  private static final FileTime CHANGE_TIME = FileTime.fromMillis(1_688_362_198_000L);
+
+  @TempDir
+  private File folder;
+  private File input;
+  private File cacheFolder;
+
+  @BeforeEach
+  void writeInput() throws IOException {
+    this.input = new File(this.folder, "EURUSD.csv");
+    this.cacheFolder = new File(this.folder, "cache");
+    write(this.input, TICKS);
+  }
+
+  @Test
+  void cacheHasTheTicksOfTheInput() throws IOException {
+    final TickDataset decoded = TickDataset.load(this.input);
+    final TickDataset cached = TickDataset.load(this.input, this.cacheFolder);
+
+    assertFalse(decoded.isMapped());
+    assertTrue(cached.isMapped());
+    assertSameTicks(decoded, cached);
+    assertEquals(1, getCacheFiles().size());
+  }
+
+  @Test
+  void secondLoadMapsTheCacheFile() throws IOException {
+    final TickDataset first = TickDataset.load(this.input, this.cacheFolder);
+    // Other bids of the same length and change time, the input is not read again
+    write(this.input, TICKS.stream().map(tick -> tick.replace("1.0906", "1.0806")).toList());
+
+    final TickDataset second = TickDataset.load(this.input, this.cacheFolder);
+
+    assertTrue(second.isMapped());
+    assertSameTicks(first, second);
+    assertEquals(1.09066d, second.getBid(0));
+    assertEquals(1, getCacheFiles().size());
+  }
+
+  @Test
+  void changedInputIsNotReadFromTheOldCache() throws IOException {
+    TickDataset.load(this.input, this.cacheFolder);
+    write(this.input, Stream.concat(TICKS.stream(), Stream.of("2023.07.03\t05:30:03.500\t1.09060\t1.09064\t\t\t6")).toList());
+
+    final TickDataset changed = TickDataset.load(this.input, this.cacheFolder);
+
+    assertEquals(TICKS.size() + 1, changed.size());
+    assertSameTicks(TickDataset.load(this.input), changed);
+    assertEquals(2, getCacheFiles().size());
+  }
+
+  @Test
+  void invalidCacheFileIsWrittenAgain() throws IOException {
+    TickDataset.load(this.input, this.cacheFolder);
+    final Path cacheFile = getCacheFiles().get(0);
+    final byte[] bytes = Files.readAllBytes(cacheFile);
+    bytes[0] ^= 0x01;
+    Files.write(cacheFile, bytes);
+
+    final TickDataset written = TickDataset.load(this.input, this.cacheFolder);
+
+    assertTrue(written.isMapped());
+    assertSameTicks(TickDataset.load(this.input), written);
+  }
+
+  private static void assertSameTicks(final @NotNull TickDataset expected, final @NotNull TickDataset actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getDateTime(i), actual.getDateTime(i));
+      assertEquals(expected.getBid(i), actual.getBid(i));
+      assertEquals(expected.getAsk(i), actual.getAsk(i));
+    }
+  }
+
+  // The change time is fixed, so only the length tells a changed input
+  private static void write(final @NotNull File file, final @NotNull List<String> ticks) throws IOException {
+    Files.write(file.toPath(), Stream.concat(Stream.of(HEADER), ticks.stream()).toList());
+    Files.setLastModifiedTime(file.toPath(), CHANGE_TIME);
+  }
+
+  private @NotNull List<Path> getCacheFiles() throws IOException {
+    try (final Stream<Path> files = Files.list(this.cacheFolder.toPath())) {
+      return files.toList();
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package br.eti.allandemiranda.forex.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+class TriggerHeapTest {
+
+  @Test
+  void addKeepsTheLowestPriceFirst() {
+    final TriggerHeap heap = new TriggerHeap();
+    heap.add(0, 30);
+    heap.add(1, 10);
+    heap.add(2, 20);
+
+    assertEquals(List.of(1, 2, 0), drain(heap));
+    assertTrue(heap.isEmpty());
+  }
+
+  @Test
+  void addOfTheSameSlotReplacesItsPrice() {
+    final TriggerHeap heap = new TriggerHeap();
+    heap.add(0, 10);
+    heap.add(1, 20);
+    heap.add(2, 30);
+    heap.add(0, 40);
+    heap.add(2, 5);
+
+    assertEquals(3, heap.size());
+    assertEquals(5, heap.peekPrice());
+    assertEquals(List.of(2, 1, 0), drain(heap));
+  }
+
+  @Test
+  void removeOfAnySlotKeepsTheOrder() {
+    final TriggerHeap heap = new TriggerHeap();
+    for (int slot = 0; slot < 10; slot++) {
+      heap.add(slot, 100 - slot * 10);
+    }
+    heap.remove(9);
+    heap.remove(4);
+    heap.remove(0);
+    // Slots not on the heap are ignored
+    heap.remove(4);
+    heap.remove(1000);
+
+    assertEquals(List.of(8, 7, 6, 5, 3, 2, 1), drain(heap));
+  }
+
+  @Test
+  void randomUpdatesAndRemovalsFollowTheLowestPrice() {
+    final Random random = new Random(7L);
+    final TriggerHeap heap = new TriggerHeap();
+    final Map<Integer, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 20_000; i++) {
+      final int slot = random.nextInt(300);
+      if (random.nextInt(3) == 0) {
+        heap.remove(slot);
+        expected.remove(slot);
+      } else {
+        final int price = random.nextInt(1_000) - 500;
+        heap.add(slot, price);
+        expected.put(slot, price);
+      }
+      assertEquals(expected.size(), heap.size());
+      if (!expected.isEmpty()) {
+        assertEquals(expected.values().stream().mapToInt(Integer::intValue).min().orElseThrow(), heap.peekPrice());
+        assertEquals(heap.peekPrice(), expected.get(heap.peekSlot()));
+      }
+    }
+
+    final List<Integer> prices = new ArrayList<>();
+    while (!heap.isEmpty()) {
+      assertEquals(expected.remove(heap.peekSlot()), heap.peekPrice());
+      prices.add(heap.peekPrice());
+      heap.remove(heap.peekSlot());
+    }
+    assertTrue(expected.isEmpty());
+    assertEquals(prices.stream().sorted(Comparator.naturalOrder()).toList(), prices);
+  }
+
+  @Test
+  void readFromRestoresTheWrittenEntries() throws IOException {
+    final TriggerHeap heap = new TriggerHeap();
+    for (int slot = 0; slot < 100; slot++) {
+      heap.add(slot, (slot * 37) % 101);
+    }
+    heap.remove(50);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    heap.writeTo(new DataOutputStream(bytes));
+
+    final TriggerHeap restored = new TriggerHeap();
+    restored.add(500, -1);
+    restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertEquals(drain(heap), drain(restored));
+  }
+
+  private static @NotNull List<Integer> drain(final @NotNull TriggerHeap heap) {
+    final List<Integer> slots = new ArrayList<>();
+    while (!heap.isEmpty()) {
+      slots.add(heap.peekSlot());
+      heap.remove(heap.peekSlot());
+    }
+    return slots;
+  }
+}